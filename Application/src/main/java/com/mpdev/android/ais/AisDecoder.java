@@ -0,0 +1,380 @@
+package com.mpdev.android.ais;
+
+import com.mpdev.android.boat.NmeaMessage;
+
+/**
+ * AisDecoder class
+ * Decodes the AIS sentences (!--VDM other vessels, !--VDO own vessel)
+ *
+ * !AIVDM,2,1,9,B,53P;U:T2AT>389`kV21<B0Tp@E0Dp@DqB222220l10B366890:l3lU4kCmE2,0*15
+ * !AIVDM,2,2,9,B,88888888880,2*2E
+ *        |  |  |  |  payload                                                    fill bits
+ *        |  |  |  channel
+ *        |  |  sequential message id (multi-sentence messages only)
+ *        |  sentence number
+ *        number of sentences
+ *
+ * A single sentence message is decoded in place in the receive buffer
+ * The fragments of a multi-sentence message are collected per message id and channel
+ * and the message is decoded when the last fragment arrives
+ * Decoded message types: 1, 2, 3 (class A position), 4 (base station), 5 (class A static and voyage),
+ * 18, 19 (class B position), 24 (class B static) and 27 (long range position)
+ * Used by one thread only
+ */
+public class AisDecoder {
+
+    /** receives the decoded messages */
+    public interface Listener {
+        /**
+         * called for each decoded message
+         * @param report    the decoded fields (the object is reused after the call returns)
+         */
+        void onReport(AisReport report);
+    }
+
+    // decode results
+    public static final int DECODED = 0;
+    public static final int FRAGMENT = 1;
+    public static final int UNSUPPORTED = 2;
+    public static final int ERROR = 3;
+
+    // max sentences in a message (one digit field)
+    private static final int MAX_FRAGMENTS = 9;
+    // sequential message ids (0 - 9) per channel (A, B, other)
+    private static final int NUM_SEQ_IDS = 10;
+    private static final int NUM_CHANNELS = 3;
+
+    /** the fragments received so far for one message id and channel */
+    private static class Assembly {
+        byte[] payload = new byte[128];
+        int length = 0;
+        int total = 0;
+        int next = 0;
+        void add(byte[] buf, int start, int len) {
+            if (length + len > payload.length) {
+                byte[] newPayload = new byte[Math.max(length + len, 2 * payload.length)];
+                System.arraycopy(payload, 0, newPayload, 0, length);
+                payload = newPayload;
+            }
+            System.arraycopy(buf, start, payload, length, len);
+            length += len;
+        }
+    }
+    private final Assembly[] assemblies = new Assembly[NUM_SEQ_IDS * NUM_CHANNELS];
+
+    private final AisPayload payload = new AisPayload();
+    private final AisReport report = new AisReport();
+    private final Listener listener;
+
+    // field offsets of the current sentence
+    private static final int NUM_FIELDS = 7;
+    private final int[] fieldStart = new int[NUM_FIELDS];
+    private final int[] fieldLength = new int[NUM_FIELDS];
+
+    // statistics
+    public int sentences = 0;
+    public int messages = 0;
+    public int errors = 0;
+
+    /**
+     * Constructor
+     * @param listener  receives the decoded messages
+     */
+    public AisDecoder(Listener listener) {
+        this.listener = listener;
+        for (int i = 0; i < assemblies.length; ++i)
+            assemblies[i] = new Assembly();
+    }
+
+    /** true if the sentence is an AIS sentence (starts with '!') */
+    public static boolean isAis(byte[] buf, int start, int length) {
+        return length > 0 && buf[start] == '!';
+    }
+
+    /**
+     * decodes one sentence - the listener is called if a message is complete
+     * @param buf               the buffer that holds the sentence
+     * @param start             offset of the '!'
+     * @param length            length of the sentence (any trailing CR/LF is ignored)
+     * @param validateChecksum  if false don't check the checksum
+     * @return                  DECODED, FRAGMENT (more sentences expected), UNSUPPORTED or ERROR
+     */
+    public int decode(byte[] buf, int start, int length, boolean validateChecksum) {
+        ++sentences;
+        int end = start + length;
+        while (end > start && (buf[end - 1] == '\r' || buf[end - 1] == '\n'))
+            --end;
+        int result = decodeSentence(buf, start, end, validateChecksum);
+        if (result == DECODED) {
+            ++messages;
+            listener.onReport(report);
+        }
+        else if (result == ERROR)
+            ++errors;
+        return result;
+    }
+
+    /** decodes one sentence without the CR/LF */
+    private int decodeSentence(byte[] buf, int start, int end, boolean validateChecksum) {
+        if (end - start < 15 || buf[start] != '!')
+            return ERROR;
+        if (!(buf[start + 3] == 'V' && buf[start + 4] == 'D' && (buf[start + 5] == 'M' || buf[start + 5] == 'O')))
+            return UNSUPPORTED;
+        boolean ownShip = buf[start + 5] == 'O';
+        // checksum '*hh' at the end
+        int star = end - 3;
+        if (buf[star] != '*')
+            return ERROR;
+        if (validateChecksum && NmeaMessage.checkSum(buf, start, end) != hex(buf, star + 1))
+            return ERROR;
+        if (!splitFields(buf, start, star))
+            return ERROR;
+        int total = digit(buf, 1);
+        int number = digit(buf, 2);
+        int fillBits = (fieldLength[6] == 1) ? digit(buf, 6) : 0;
+        if (total < 1 || total > MAX_FRAGMENTS || number < 1 || number > total || fillBits < 0 || fillBits > 5)
+            return ERROR;
+        int pStart = fieldStart[5];
+        int pLen = fieldLength[5];
+        if (total == 1) {
+            // single sentence - decode in place
+            if (!payload.set(buf, pStart, pLen, fillBits))
+                return ERROR;
+            return decodeMessage(ownShip);
+        }
+        // multi-sentence message - collect the fragments
+        int seqId = (fieldLength[3] == 1) ? digit(buf, 3) : 0;
+        if (seqId < 0)
+            return ERROR;
+        int channel = (fieldLength[4] == 1 && buf[fieldStart[4]] == 'A') ? 0
+                : (fieldLength[4] == 1 && buf[fieldStart[4]] == 'B') ? 1 : 2;
+        Assembly a = assemblies[seqId * NUM_CHANNELS + channel];
+        if (number == 1) {
+            a.length = 0;
+            a.total = total;
+            a.next = 1;
+        }
+        else if (a.total != total || a.next != number) {
+            // missing or out of order fragment - the message is lost
+            a.next = 0;
+            return ERROR;
+        }
+        a.add(buf, pStart, pLen);
+        if (++a.next <= total)
+            return FRAGMENT;
+        a.next = 0;
+        if (!payload.set(a.payload, 0, a.length, fillBits))
+            return ERROR;
+        return decodeMessage(ownShip);
+    }
+
+    /** finds the 7 comma separated fields up to the '*' */
+    private boolean splitFields(byte[] buf, int start, int star) {
+        int field = 0;
+        fieldStart[0] = start;
+        for (int i = start; i < star; ++i) {
+            if (buf[i] == ',') {
+                fieldLength[field] = i - fieldStart[field];
+                if (++field >= NUM_FIELDS)
+                    return false;
+                fieldStart[field] = i + 1;
+            }
+        }
+        fieldLength[field] = star - fieldStart[field];
+        return field == NUM_FIELDS - 1;
+    }
+
+    /** the single digit in a field (-1 if not a digit) */
+    private int digit(byte[] buf, int field) {
+        if (fieldLength[field] != 1)
+            return -1;
+        int d = buf[fieldStart[field]] - '0';
+        return (d >= 0 && d <= 9) ? d : -1;
+    }
+
+    /** the value of two hex digits (-1 if not valid) */
+    private static int hex(byte[] buf, int i) {
+        int h = Character.digit(buf[i], 16);
+        int l = Character.digit(buf[i + 1], 16);
+        return (h < 0 || l < 0) ? -1 : (h << 4) | l;
+    }
+
+    /** decodes the message in the payload into the report */
+    private int decodeMessage(boolean ownShip) {
+        int len = payload.bitLength();
+        if (len < 38)
+            return ERROR;
+        int type = payload.uint(0, 6);
+        report.clear(type, payload.uint(8, 30), ownShip);
+        switch (type) {
+            case 1:
+            case 2:
+            case 3:
+                if (len < 149)
+                    return ERROR;
+                decodePositionA();
+                return DECODED;
+            case 4:
+                if (len < 134)
+                    return ERROR;
+                decodeBaseStation();
+                return DECODED;
+            case 5:
+                if (len < 420)
+                    return ERROR;
+                decodeStaticA();
+                return DECODED;
+            case 18:
+                if (len < 139)
+                    return ERROR;
+                decodePositionB(false);
+                return DECODED;
+            case 19:
+                if (len < 301)
+                    return ERROR;
+                decodePositionB(true);
+                return DECODED;
+            case 24:
+                if (len < 160)
+                    return ERROR;
+                return decodeStaticB() ? DECODED : ERROR;
+            case 27:
+                if (len < 94)
+                    return ERROR;
+                decodeLongRange();
+                return DECODED;
+            default:
+                return UNSUPPORTED;
+        }
+    }
+
+    /** types 1, 2, 3 - class A position report */
+    private void decodePositionA() {
+        report.hasPosition = true;
+        report.navStatus = payload.uint(38, 4);
+        int rot = payload.sint(42, 8);
+        if (rot != -128) {
+            // the rate of turn is sent as 4.733 x sqrt(degrees/min)
+            double r = rot / 4.733;
+            report.rot = Math.copySign(r * r, rot);
+        }
+        report.sog = speed(payload.uint(50, 10));
+        report.accuracy = payload.uint(60, 1) == 1;
+        report.lon = longitude(payload.sint(61, 28), 600000.0);
+        report.lat = latitude(payload.sint(89, 27), 600000.0);
+        report.cog = course(payload.uint(116, 12));
+        report.heading = heading(payload.uint(128, 9));
+        report.second = payload.uint(137, 6);
+    }
+
+    /** type 4 - base station report (position only) */
+    private void decodeBaseStation() {
+        report.hasPosition = true;
+        report.accuracy = payload.uint(78, 1) == 1;
+        report.lon = longitude(payload.sint(79, 28), 600000.0);
+        report.lat = latitude(payload.sint(107, 27), 600000.0);
+        report.second = payload.uint(72, 6);
+    }
+
+    /** type 5 - class A static and voyage data */
+    private void decodeStaticA() {
+        report.imo = payload.uint(40, 30);
+        report.callsign = payload.text(70, 7);
+        report.name = payload.text(112, 20);
+        report.shipType = payload.uint(232, 8);
+        decodeDimensions(240);
+        report.draught = payload.uint(294, 8) / 10.0;
+        report.destination = payload.text(302, 20);
+        report.staticFields = AisReport.STATIC_NAME | AisReport.STATIC_CALLSIGN | AisReport.STATIC_SHIP_TYPE
+                | AisReport.STATIC_DIMENSIONS | AisReport.STATIC_VOYAGE;
+    }
+
+    /** types 18, 19 - class B position report (19 also carries the static data) */
+    private void decodePositionB(boolean extended) {
+        report.classB = true;
+        report.hasPosition = true;
+        report.sog = speed(payload.uint(46, 10));
+        report.accuracy = payload.uint(56, 1) == 1;
+        report.lon = longitude(payload.sint(57, 28), 600000.0);
+        report.lat = latitude(payload.sint(85, 27), 600000.0);
+        report.cog = course(payload.uint(112, 12));
+        report.heading = heading(payload.uint(124, 9));
+        report.second = payload.uint(133, 6);
+        if (extended) {
+            report.name = payload.text(143, 20);
+            report.shipType = payload.uint(263, 8);
+            decodeDimensions(271);
+            report.staticFields = AisReport.STATIC_NAME | AisReport.STATIC_SHIP_TYPE | AisReport.STATIC_DIMENSIONS;
+        }
+    }
+
+    /** type 24 - class B static data (part A name, part B type, callsign and dimensions) */
+    private boolean decodeStaticB() {
+        report.classB = true;
+        switch (payload.uint(38, 2)) {
+            case 0:
+                report.name = payload.text(40, 20);
+                report.staticFields = AisReport.STATIC_NAME;
+                return true;
+            case 1:
+                if (payload.bitLength() < 162)
+                    return false;
+                report.shipType = payload.uint(40, 8);
+                report.callsign = payload.text(90, 7);
+                decodeDimensions(132);
+                report.staticFields = AisReport.STATIC_SHIP_TYPE | AisReport.STATIC_CALLSIGN
+                        | AisReport.STATIC_DIMENSIONS;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** type 27 - long range position report (reduced resolution) - sent by class A and class B units */
+    private void decodeLongRange() {
+        report.hasPosition = true;
+        report.accuracy = payload.uint(38, 1) == 1;
+        report.navStatus = payload.uint(40, 4);
+        report.lon = longitude(payload.sint(44, 18), 600.0);
+        report.lat = latitude(payload.sint(62, 17), 600.0);
+        int sog = payload.uint(79, 6);
+        report.sog = (sog == 63) ? Double.NaN : sog;
+        int cog = payload.uint(85, 9);
+        report.cog = (cog >= 360) ? Double.NaN : cog;
+    }
+
+    /** distances from the reference point to bow, stern, port and starboard */
+    private void decodeDimensions(int from) {
+        report.toBow = payload.uint(from, 9);
+        report.toStern = payload.uint(from + 9, 9);
+        report.toPort = payload.uint(from + 18, 6);
+        report.toStarboard = payload.uint(from + 24, 6);
+    }
+
+    /** speed in 1/10 knot (1023 = not available) */
+    private static double speed(int value) {
+        return (value == 1023) ? Double.NaN : value / 10.0;
+    }
+
+    /** course in 1/10 degree (3600 = not available) */
+    private static double course(int value) {
+        return (value >= 3600) ? Double.NaN : value / 10.0;
+    }
+
+    /** heading in degrees (511 = not available) */
+    private static int heading(int value) {
+        return (value >= 360) ? AisReport.NO_HEADING : value;
+    }
+
+    /** longitude in 1/scale degrees (181 degrees = not available) */
+    private static double longitude(int value, double scale) {
+        double lon = value / scale;
+        return (lon > 180.0 || lon < -180.0) ? Double.NaN : lon;
+    }
+
+    /** latitude in 1/scale degrees (91 degrees = not available) */
+    private static double latitude(int value, double scale) {
+        double lat = value / scale;
+        return (lat > 90.0 || lat < -90.0) ? Double.NaN : lat;
+    }
+}
@@ -0,0 +1,108 @@
+package com.mpdev.android.ais;
+
+/**
+ * AisPayload class
+ * Bit level access to the armored payload of an AIS message
+ *
+ * Each payload character carries 6 bits - the fields are extracted straight from the characters
+ * (no intermediate bit string or byte array is created)
+ * The payload is referenced in the caller's buffer - it is not copied
+ */
+class AisPayload {
+
+    // 6 bit value of each armoring character (-1 if not valid)
+    private static final byte[] SIX_BIT = new byte[128];
+    static {
+        for (int i = 0; i < SIX_BIT.length; ++i)
+            SIX_BIT[i] = -1;
+        for (int c = '0'; c <= 'W'; ++c)
+            SIX_BIT[c] = (byte) (c - '0');
+        for (int c = '`'; c <= 'w'; ++c)
+            SIX_BIT[c] = (byte) (c - '0' - 8);
+    }
+
+    private byte[] buf;
+    private int start;
+    private int numChars;
+    private int numBits;
+
+    /**
+     * sets the payload
+     * @param buf       the buffer that holds the payload characters
+     * @param start     offset of the first character
+     * @param numChars  number of characters
+     * @param fillBits  number of padding bits at the end (0 - 5)
+     * @return          false if the payload contains an invalid character
+     */
+    boolean set(byte[] buf, int start, int numChars, int fillBits) {
+        for (int i = start; i < start + numChars; ++i)
+            if (buf[i] < 0 || SIX_BIT[buf[i]] < 0)
+                return false;
+        this.buf = buf;
+        this.start = start;
+        this.numChars = numChars;
+        this.numBits = Math.max(0, 6 * numChars - fillBits);
+        return true;
+    }
+
+    /** number of data bits in the payload */
+    int bitLength() {
+        return numBits;
+    }
+
+    /**
+     * unsigned field
+     * @param from      the first bit of the field
+     * @param n         the field length in bits (up to 57)
+     * @return          the field value - 0 if the field is beyond the end of the payload
+     */
+    long bits(int from, int n) {
+        if (n <= 0 || from + n > 6 * numChars)
+            return 0L;
+        int i = start + from / 6;
+        int avail = 6 - from % 6;
+        long value = SIX_BIT[buf[i]] & ((1 << avail) - 1);
+        int remaining = n - avail;
+        while (remaining > 0) {
+            value = (value << 6) | SIX_BIT[buf[++i]];
+            remaining -= 6;
+        }
+        // drop the bits read past the end of the field
+        return value >> -remaining;
+    }
+
+    /** unsigned field up to 31 bits */
+    int uint(int from, int n) {
+        return (int) bits(from, n);
+    }
+
+    /** signed (two's complement) field up to 32 bits */
+    int sint(int from, int n) {
+        long value = bits(from, n);
+        return (int) (value << (64 - n) >> (64 - n));
+    }
+
+    /**
+     * text field (AIS 6 bit ASCII) - trailing '@' padding and spaces are removed
+     * @param from      the first bit of the field
+     * @param numChars  the field length in characters
+     * @return          the text ("" if the field is empty or beyond the end of the payload)
+     */
+    String text(int from, int numChars) {
+        numChars = Math.min(numChars, (numBits - from) / 6);
+        if (numChars <= 0)
+            return "";
+        char[] chars = new char[numChars];
+        int len = 0;
+        for (int i = 0; i < numChars; ++i) {
+            int c = (int) bits(from + 6 * i, 6);
+            if (c == 0)
+                break;
+            chars[i] = (char) (c < 32 ? c + 64 : c);
+            len = i + 1;
+        }
+        while (len > 0 && chars[len - 1] == ' ')
+            --len;
+        return new String(chars, 0, len);
+    }
+}
@@ -0,0 +1,111 @@
+package com.mpdev.android.ais;
+
+/**
+ * AisReport class
+ * The fields decoded from one AIS message (see AisDecoder)
+ * The same object is reused for every message - only the fields of the message type are set
+ * (see hasPosition and staticFields)
+ */
+public class AisReport {
+
+    // static data fields (bits of staticFields)
+    public static final int STATIC_NAME = 1;
+    public static final int STATIC_CALLSIGN = 1 << 1;
+    public static final int STATIC_SHIP_TYPE = 1 << 2;
+    public static final int STATIC_DIMENSIONS = 1 << 3;
+    public static final int STATIC_VOYAGE = 1 << 4;
+
+    // not available values
+    public static final int NO_HEADING = -1;
+
+    int type;
+    int mmsi;
+    // true for !--VDO (own vessel)
+    boolean ownShip;
+    // true for class B reports (their targets do not send voyage data)
+    boolean classB;
+
+    // position report
+    boolean hasPosition;
+    int navStatus;
+    double lat;         // degrees - NaN if not available
+    double lon;         // degrees - NaN if not available
+    double sog;         // knots - NaN if not available
+    double cog;         // degrees - NaN if not available
+    int heading;        // degrees - NO_HEADING if not available
+    double rot;         // degrees/min - NaN if not available
+    boolean accuracy;
+    int second;         // UTC second of the fix - 60 or more if not available
+
+    // static and voyage data (only the fields in staticFields are set)
+    int staticFields;
+    String name;
+    String callsign;
+    int shipType;
+    int imo;
+    int toBow, toStern, toPort, toStarboard;    // metres
+    double draught;     // metres
+    String destination;
+
+    /** clears the fields before a new message is decoded */
+    void clear(int type, int mmsi, boolean ownShip) {
+        this.type = type;
+        this.mmsi = mmsi;
+        this.ownShip = ownShip;
+        classB = false;
+        hasPosition = false;
+        navStatus = 15;
+        lat = lon = sog = cog = rot = Double.NaN;
+        heading = NO_HEADING;
+        accuracy = false;
+        second = 60;
+        staticFields = 0;
+    }
+
+    /** the message type (1 - 27) */
+    public int getType() {
+        return type;
+    }
+
+    /** the MMSI of the vessel */
+    public int getMmsi() {
+        return mmsi;
+    }
+
+    /** true if the report is about the own vessel */
+    public boolean isOwnShip() {
+        return ownShip;
+    }
+
+    /** true if the message carries a position */
+    public boolean hasPosition() {
+        return hasPosition;
+    }
+
+    /** the static data fields in the message (STATIC_ bits) */
+    public int getStaticFields() {
+        return staticFields;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("type ").append(type).append(" mmsi ").append(mmsi);
+        if (ownShip)
+            sb.append(" (own)");
+        if (hasPosition)
+            sb.append(" pos ").append(lat).append(",").append(lon).append(" sog ").append(sog)
+                    .append(" cog ").append(cog).append(" hdg ").append(heading);
+        if ((staticFields & STATIC_NAME) != 0)
+            sb.append(" name '").append(name).append("'");
+        if ((staticFields & STATIC_CALLSIGN) != 0)
+            sb.append(" call '").append(callsign).append("'");
+        if ((staticFields & STATIC_SHIP_TYPE) != 0)
+            sb.append(" shiptype ").append(shipType);
+        if ((staticFields & STATIC_DIMENSIONS) != 0)
+            sb.append(" size ").append(toBow + toStern).append("x").append(toPort + toStarboard);
+        if ((staticFields & STATIC_VOYAGE) != 0)
+            sb.append(" draught ").append(draught).append(" dest '").append(destination).append("'");
+        return sb.toString();
+    }
+}
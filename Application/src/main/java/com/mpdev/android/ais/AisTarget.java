@@ -0,0 +1,153 @@
+package com.mpdev.android.ais;
+
+/**
+ * AisTarget class
+ * The last known state of a vessel heard on AIS - merged from its position and static reports
+ * A target is not changed once it is in the AisTargetStore (an update stores a new copy)
+ */
+public class AisTarget {
+
+    int mmsi;
+    boolean classB;
+
+    // last position report (lastPosition = 0 if no position heard yet)
+    long lastPosition;
+    int navStatus;
+    double lat;
+    double lon;
+    double sog;
+    double cog;
+    int heading;
+    double rot;
+
+    // static data (null / 0 until heard)
+    String name;
+    String callsign;
+    int shipType;
+    int imo;
+    int length;
+    int beam;
+    double draught;
+    String destination;
+
+    // when any report was last received (msec)
+    long lastHeard;
+
+    /** Constructor */
+    AisTarget(int mmsi) {
+        this.mmsi = mmsi;
+        lat = lon = sog = cog = rot = Double.NaN;
+        heading = AisReport.NO_HEADING;
+        navStatus = 15;
+    }
+
+    /**
+     * merges a report into the target
+     * @param r     the decoded report (same mmsi)
+     * @param now   the receive time (msec)
+     */
+    void update(AisReport r, long now) {
+        lastHeard = now;
+        classB |= r.classB;
+        if (r.hasPosition && !Double.isNaN(r.lat) && !Double.isNaN(r.lon)) {
+            lastPosition = now;
+            lat = r.lat;
+            lon = r.lon;
+            sog = r.sog;
+            cog = r.cog;
+            heading = r.heading;
+            rot = r.rot;
+            if (r.type != 18 && r.type != 19)
+                navStatus = r.navStatus;
+        }
+        int fields = r.staticFields;
+        if ((fields & AisReport.STATIC_NAME) != 0)
+            name = r.name;
+        if ((fields & AisReport.STATIC_CALLSIGN) != 0)
+            callsign = r.callsign;
+        if ((fields & AisReport.STATIC_SHIP_TYPE) != 0)
+            shipType = r.shipType;
+        if ((fields & AisReport.STATIC_DIMENSIONS) != 0) {
+            length = r.toBow + r.toStern;
+            beam = r.toPort + r.toStarboard;
+        }
+        if ((fields & AisReport.STATIC_VOYAGE) != 0) {
+            imo = r.imo;
+            draught = r.draught;
+            destination = r.destination;
+        }
+    }
+
+    /** copies all the fields from another target */
+    void copyFrom(AisTarget src) {
+        mmsi = src.mmsi;
+        classB = src.classB;
+        lastPosition = src.lastPosition;
+        navStatus = src.navStatus;
+        lat = src.lat;
+        lon = src.lon;
+        sog = src.sog;
+        cog = src.cog;
+        heading = src.heading;
+        rot = src.rot;
+        name = src.name;
+        callsign = src.callsign;
+        shipType = src.shipType;
+        imo = src.imo;
+        length = src.length;
+        beam = src.beam;
+        draught = src.draught;
+        destination = src.destination;
+        lastHeard = src.lastHeard;
+    }
+
+    /** the MMSI */
+    public int getMmsi() {
+        return mmsi;
+    }
+
+    /** true if a position has been received */
+    public boolean hasPosition() {
+        return lastPosition > 0;
+    }
+
+    /** latitude (degrees) */
+    public double getLat() {
+        return lat;
+    }
+
+    /** longitude (degrees) */
+    public double getLon() {
+        return lon;
+    }
+
+    /** speed over ground (knots - NaN if not available) */
+    public double getSog() {
+        return sog;
+    }
+
+    /** course over ground (degrees - NaN if not available) */
+    public double getCog() {
+        return cog;
+    }
+
+    /** heading (degrees - AisReport.NO_HEADING if not available) */
+    public int getHeading() {
+        return heading;
+    }
+
+    /** the vessel name (null until received) */
+    public String getName() {
+        return name;
+    }
+
+    /** when the target was last heard (msec) */
+    public long getLastHeard() {
+        return lastHeard;
+    }
+
+    @Override
+    public String toString() {
+        return mmsi + ((name != null) ? " " + name : "") + " " + lat + "," + lon + " sog " + sog + " cog " + cog;
+    }
+}
@@ -0,0 +1,369 @@
+package com.mpdev.android.ais;
+
+import com.mpdev.android.boat.BoatPosition.PositionData;
+import com.mpdev.android.metrics.Counter;
+import com.mpdev.android.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * AisTargetStore class
+ * The AIS targets - updated by the decoder in the reader thread (the only writer) and read by the UI
+ *
+ * Each target has a fixed slot while it is in the store - the slot of an MMSI is found in a primitive
+ * open addressing map (see IntIntMap)
+ * A target is never changed after it is stored: an update stores a new copy in the slot
+ * so the readers take the targets without locking and always see a consistent target
+ * The targets that have not been heard for the configured timeout are evicted
+ *
+ * The positions are indexed in a grid of CELL_SIZE x CELL_SIZE degree cells (about 6nm)
+ * so that a range query only visits the targets in the cells around the position
+ * Each cell holds an array of the slots in it - the array is replaced (not changed) when a target
+ * enters or leaves the cell, so the range queries can also be made from any thread
+ * The own vessel reports (VDO) are not kept - the own position comes from the GPS
+ */
+public class AisTargetStore implements AisDecoder.Listener {
+
+    // initial number of slots - room for the targets of a busy harbour (grows if needed)
+    private static final int INITIAL_CAPACITY = 512;
+    // grid cell size (degrees) and number of longitude cells
+    static final double CELL_SIZE = 0.1;
+    private static final int LAT_CELLS = 1800;
+    private static final int LON_CELLS = 3600;
+    // how often the targets are checked for eviction (msec)
+    private static final long EVICT_INTERVAL = 10000;
+    private static final int NO_SLOT = -1;
+
+    // targets not heard for this long are evicted (msec)
+    private final long timeout;
+
+    // the targets by slot (null for a free slot) - replaced by a larger array when the store grows
+    private volatile AtomicReferenceArray<AisTarget> targets;
+    private volatile int size = 0;
+    // grid: the slots in each cell (no entry for an empty cell)
+    private final ConcurrentHashMap<Integer, int[]> cells = new ConcurrentHashMap<>();
+
+    ////// the following are used by the writer (reader thread) only
+    // slot of each MMSI
+    private final IntIntMap slotByMmsi = new IntIntMap(INITIAL_CAPACITY);
+    // the free slots (stack)
+    private int[] freeSlots;
+    private int numFree;
+    // grid cell of each slot (0 if none)
+    private int[] cellOf;
+    // when the targets were last checked for eviction
+    private long lastEvict = 0L;
+
+    private static final Counter EVICTED = Metrics.counter("ais.evicted");
+
+    /**
+     * Constructor
+     * @param timeout   targets not heard for this long are evicted (msec)
+     */
+    public AisTargetStore(long timeout) {
+        this.timeout = timeout;
+        targets = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        freeSlots = new int[INITIAL_CAPACITY];
+        cellOf = new int[INITIAL_CAPACITY];
+        numFree = 0;
+        addFreeSlots(0, INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void onReport(AisReport report) {
+        if (report.ownShip || report.mmsi <= 0)
+            return;
+        update(report, System.currentTimeMillis());
+    }
+
+    /**
+     * merges a report into its target (the target is added if it is new) - writer only
+     * @param report    the decoded report
+     * @param now       the receive time (msec)
+     */
+    void update(AisReport report, long now) {
+        int slot = slotByMmsi.get(report.mmsi);
+        AisTarget target = new AisTarget(report.mmsi);
+        if (slot == NO_SLOT)
+            slot = allocate(report.mmsi);
+        else
+            target.copyFrom(targets.get(slot));
+        target.update(report, now);
+        targets.set(slot, target);
+        if (target.hasPosition())
+            moveToCell(slot, cellKey(target.lat, target.lon));
+        if (now - lastEvict >= EVICT_INTERVAL)
+            evict(now);
+    }
+
+    /**
+     * removes the targets not heard for the timeout - writer only
+     * (called from update() - it can also be called when no AIS data is received)
+     * @param now       the current time (msec)
+     */
+    public void evict(long now) {
+        lastEvict = now;
+        AtomicReferenceArray<AisTarget> t = targets;
+        for (int slot = 0; slot < t.length(); ++slot) {
+            AisTarget target = t.get(slot);
+            if (target != null && now - target.lastHeard > timeout) {
+                remove(slot, target.mmsi);
+                EVICTED.inc();
+            }
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    ////////////////////////// access from any thread //////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /** the number of targets */
+    public int size() {
+        return size;
+    }
+
+    /** targets not heard for this long are evicted (msec) */
+    public long timeout() {
+        return timeout;
+    }
+
+    /** the number of slots (the slots are numbered 0 to capacity-1) */
+    public int capacity() {
+        return targets.length();
+    }
+
+    /**
+     * the target in a slot
+     * @param slot  the slot
+     * @return      the target or null if the slot is free
+     */
+    public AisTarget target(int slot) {
+        AtomicReferenceArray<AisTarget> t = targets;
+        return (slot >= 0 && slot < t.length()) ? t.get(slot) : null;
+    }
+
+    /**
+     * the current targets (not heard for less than the timeout)
+     * the list is a copy - the targets in it do not change
+     * @return      the targets
+     */
+    public List<AisTarget> snapshot() {
+        AtomicReferenceArray<AisTarget> t = targets;
+        long now = System.currentTimeMillis();
+        List<AisTarget> list = new ArrayList<>(size);
+        for (int slot = 0; slot < t.length(); ++slot) {
+            AisTarget target = t.get(slot);
+            if (target != null && now - target.lastHeard <= timeout)
+                list.add(target);
+        }
+        return list;
+    }
+
+    /**
+     * the current targets within a range of a position (grid lookup)
+     * @param lat       latitude (degrees)
+     * @param lon       longitude (degrees)
+     * @param range     the range (nm)
+     * @return          the targets (a copy)
+     */
+    public List<AisTarget> snapshot(double lat, double lon, double range) {
+        List<AisTarget> list = new ArrayList<>();
+        collect(lat, lon, range, null, list, System.currentTimeMillis());
+        return list;
+    }
+
+    /**
+     * the slots of the targets within a range of a position (grid lookup - no allocation)
+     * a slot may be freed or reused by the writer after it is returned - see target()
+     * @param lat       latitude (degrees)
+     * @param lon       longitude (degrees)
+     * @param range     the range (nm)
+     * @param slots     receives the slots of the targets
+     * @return          the number of slots returned (no more than slots.length)
+     */
+    public int query(double lat, double lon, double range, int[] slots) {
+        return collect(lat, lon, range, slots, null, 0L);
+    }
+
+    /** the slots of the targets within a range of the own position (see query()) */
+    public int query(PositionData position, double range, int[] slots) {
+        return query(position.latitude(), position.longitude(), range, slots);
+    }
+
+    /**
+     * visits the grid cells around a position and collects the targets in range
+     * into either slots or list (list: only the targets heard within the timeout)
+     * @return          the number of targets collected
+     */
+    private int collect(double lat, double lon, double range, int[] slots, List<AisTarget> list, long now) {
+        if (Double.isNaN(lat) || Double.isNaN(lon))
+            return 0;
+        AtomicReferenceArray<AisTarget> t = targets;
+        double latSpan = range / 60.0;
+        double cosLat = Math.cos(Math.toRadians(Math.min(Math.abs(lat) + latSpan, 89.9)));
+        double lonSpan = Math.min(range / (60.0 * cosLat), 180.0);
+        int latFrom = latIndex(lat - latSpan);
+        int latTo = latIndex(lat + latSpan);
+        int lonFrom = lonIndex(lon - lonSpan);
+        // the longitude cells may wrap around the 180th meridian
+        int numLon = (lonSpan >= 180.0) ? LON_CELLS : (lonIndex(lon + lonSpan) - lonFrom + LON_CELLS) % LON_CELLS + 1;
+        int n = 0;
+        for (int latIdx = latFrom; latIdx <= latTo; ++latIdx) {
+            for (int i = 0; i < numLon; ++i) {
+                int[] cell = cells.get(latIdx * LON_CELLS + (lonFrom + i) % LON_CELLS + 1);
+                if (cell == null)
+                    continue;
+                for (int slot : cell) {
+                    // the target may have been removed or replaced since the cell was read
+                    AisTarget target = (slot < t.length()) ? t.get(slot) : null;
+                    if (target == null || !target.hasPosition()
+                            || distance(lat, lon, target.lat, target.lon) > range)
+                        continue;
+                    if (list != null) {
+                        if (now - target.lastHeard <= timeout) {
+                            list.add(target);
+                            ++n;
+                        }
+                    }
+                    else {
+                        if (n == slots.length)
+                            return n;
+                        slots[n++] = slot;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////// writer (reader thread) only //////////////////////
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * the slot of a target - writer only
+     * @param mmsi  the MMSI
+     * @return      the slot or -1 if the target is not in the store
+     */
+    public int slotOf(int mmsi) {
+        return slotByMmsi.get(mmsi);
+    }
+
+    /** takes a free slot for a new target */
+    private int allocate(int mmsi) {
+        if (numFree == 0)
+            grow();
+        int slot = freeSlots[--numFree];
+        slotByMmsi.put(mmsi, slot);
+        cellOf[slot] = 0;
+        size = slotByMmsi.size();
+        return slot;
+    }
+
+    /** removes the target in a slot */
+    private void remove(int slot, int mmsi) {
+        unlinkCell(slot);
+        slotByMmsi.remove(mmsi);
+        targets.set(slot, null);
+        freeSlots[numFree++] = slot;
+        size = slotByMmsi.size();
+    }
+
+    /** doubles the number of slots */
+    private void grow() {
+        AtomicReferenceArray<AisTarget> old = targets;
+        int capacity = old.length();
+        AtomicReferenceArray<AisTarget> t = new AtomicReferenceArray<>(2 * capacity);
+        for (int i = 0; i < capacity; ++i)
+            t.set(i, old.get(i));
+        freeSlots = copyOf(freeSlots, 2 * capacity);
+        cellOf = copyOf(cellOf, 2 * capacity);
+        addFreeSlots(capacity, 2 * capacity);
+        targets = t;
+    }
+
+    /** adds a range of slots to the free slots (the lowest slot is taken first) */
+    private void addFreeSlots(int from, int to) {
+        for (int slot = to - 1; slot >= from; --slot)
+            freeSlots[numFree++] = slot;
+    }
+
+    /** moves a slot to a grid cell */
+    private void moveToCell(int slot, int key) {
+        if (cellOf[slot] == key)
+            return;
+        unlinkCell(slot);
+        if (key == 0)
+            return;
+        int[] cell = cells.get(key);
+        int[] newCell;
+        if (cell == null)
+            newCell = new int[] { slot };
+        else {
+            newCell = new int[cell.length + 1];
+            System.arraycopy(cell, 0, newCell, 0, cell.length);
+            newCell[cell.length] = slot;
+        }
+        cells.put(key, newCell);
+        cellOf[slot] = key;
+    }
+
+    /** removes a slot from its grid cell */
+    private void unlinkCell(int slot) {
+        int key = cellOf[slot];
+        if (key == 0)
+            return;
+        cellOf[slot] = 0;
+        int[] cell = cells.get(key);
+        if (cell.length == 1) {
+            cells.remove(key);
+            return;
+        }
+        int[] newCell = new int[cell.length - 1];
+        for (int i = 0, j = 0; i < cell.length; ++i)
+            if (cell[i] != slot)
+                newCell[j++] = cell[i];
+        cells.put(key, newCell);
+    }
+
+    /** the grid cell of a position (0 if the position is not known) */
+    static int cellKey(double lat, double lon) {
+        if (Double.isNaN(lat) || Double.isNaN(lon))
+            return 0;
+        return latIndex(lat) * LON_CELLS + lonIndex(lon) + 1;
+    }
+
+    private static int latIndex(double lat) {
+        int i = (int) Math.floor((lat + 90.0) / CELL_SIZE);
+        return Math.max(0, Math.min(LAT_CELLS - 1, i));
+    }
+
+    private static int lonIndex(double lon) {
+        int i = (int) Math.floor((lon + 180.0) / CELL_SIZE) % LON_CELLS;
+        return (i < 0) ? i + LON_CELLS : i;
+    }
+
+    /**
+     * distance between two positions (flat earth approximation - good for the AIS ranges)
+     * @return      the distance (nm)
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = (lat2 - lat1) * 60.0;
+        double dLon = lon2 - lon1;
+        if (dLon > 180.0)
+            dLon -= 360.0;
+        else if (dLon < -180.0)
+            dLon += 360.0;
+        dLon *= 60.0 * Math.cos(Math.toRadians((lat1 + lat2) / 2.0));
+        return Math.sqrt(dLat * dLat + dLon * dLon);
+    }
+
+    private static int[] copyOf(int[] a, int length) {
+        int[] b = new int[length];
+        System.arraycopy(a, 0, b, 0, Math.min(a.length, length));
+        return b;
+    }
+}
@@ -0,0 +1,364 @@
+package com.mpdev.android.ais;
+
+import com.mpdev.android.metrics.Counter;
+import com.mpdev.android.metrics.Histogram;
+import com.mpdev.android.metrics.Metrics;
+
+/**
+ * CpaEngine class
+ * Closest point of approach (CPA) and time to CPA (TCPA) of every AIS target
+ * and the collision alarms when both are below the limits
+ *
+ * Runs in the reader thread (the AisTargetStore writer) at most once every UPDATE_INTERVAL
+ * The state of each target is kept in primitive arrays indexed by its store slot
+ * A target is recomputed only when it has been updated in the store (new target object)
+ * and all the targets are recomputed when the own vessel position, speed or course changes
+ * With both courses unchanged the CPA stays the same, so the time of the CPA is kept and the TCPA
+ * is counted down - the alarm limits are checked for all the targets on every update
+ *
+ * Own vessel and targets are assumed to keep their course and speed (dead reckoned from the last report)
+ * Targets not heard for the store timeout are not used (no alarms if the AIS reception stops)
+ * Distances are in nm, speeds in knots, times in msec (TCPA in minutes)
+ */
+public class CpaEngine {
+
+    /** receives the collision alarms (called in the reader thread) */
+    public interface Listener {
+        /**
+         * a target has come within the CPA and TCPA limits
+         * @param target    the target
+         * @param cpa       the CPA (nm)
+         * @param tcpa      the time to CPA (minutes)
+         */
+        void onAlarm(AisTarget target, double cpa, double tcpa);
+
+        /**
+         * the alarm of a target has cleared (out of the limits, passed or evicted)
+         * @param mmsi      the target MMSI
+         */
+        void onAlarmCleared(int mmsi);
+    }
+
+    // how often the CPAs are updated (msec)
+    static final long UPDATE_INTERVAL = 1000;
+    // an alarm is cleared only when the CPA or TCPA is this much above the limit (no on/off flicker)
+    private static final double HYSTERESIS = 1.2;
+    private static final double MSEC_PER_HOUR = 3600000.0;
+
+    private final AisTargetStore store;
+    private final Listener listener;
+    // alarm limits
+    private final double cpaLimit;
+    private final long tcpaLimit;
+
+    // own vessel (position when set - NaN if not known)
+    private double ownLat = Double.NaN;
+    private double ownLon = Double.NaN;
+    private double ownVe, ownVn;
+    private long ownTime;
+    private boolean ownChanged = false;
+
+    // target state by slot - valid[slot] false if there is no target or no usable position / course
+    private AisTarget[] seen = new AisTarget[0];
+    private boolean[] valid = new boolean[0];
+    private double[] lat = new double[0];
+    private double[] lon = new double[0];
+    private double[] ve = new double[0];
+    private double[] vn = new double[0];
+    private long[] time = new long[0];
+    // results by slot
+    private double[] cpa = new double[0];
+    private long[] cpaTime = new long[0];
+    private boolean[] alarm = new boolean[0];
+    // the slots updated since the last computation
+    private int[] dirty = new int[0];
+    private int numDirty = 0;
+
+    private long lastUpdate = 0L;
+    private int numAlarms = 0;
+
+    // metrics
+    private static final Counter COMPUTED = Metrics.counter("ais.cpaComputed");
+    private static final Counter ALARMS = Metrics.counter("ais.cpaAlarms");
+    private static final Histogram UPDATE_TIME = Metrics.histogram("latency.cpaUpdate", "usec");
+
+    /**
+     * Constructor
+     * @param store     the AIS targets
+     * @param cpaLimit  alarm if the CPA is less than this (nm)
+     * @param tcpaLimit ... and the CPA is within this time (minutes)
+     * @param listener  receives the alarms
+     */
+    public CpaEngine(AisTargetStore store, double cpaLimit, double tcpaLimit, Listener listener) {
+        this.store = store;
+        this.cpaLimit = cpaLimit;
+        this.tcpaLimit = (long) (tcpaLimit * 60000.0);
+        this.listener = listener;
+    }
+
+    /** true if the CPAs are due to be updated */
+    public boolean isDue(long now) {
+        return now - lastUpdate >= UPDATE_INTERVAL;
+    }
+
+    /**
+     * sets the own vessel position, speed and course
+     * @param lat       latitude (degrees - NaN if not known: no CPAs are calculated)
+     * @param lon       longitude (degrees)
+     * @param sog       speed over ground (knots - not known is taken as stopped)
+     * @param cog       course over ground (degrees)
+     * @param now       the time of the position (msec)
+     */
+    public void setOwnShip(double lat, double lon, double sog, double cog, long now) {
+        if (Double.isNaN(sog) || sog < 0.0 || Double.isNaN(cog) || cog < 0.0)
+            sog = cog = 0.0;
+        double c = Math.toRadians(cog);
+        double ve = sog * Math.sin(c);
+        double vn = sog * Math.cos(c);
+        if (Double.isNaN(lat) || Double.isNaN(lon)) {
+            ownChanged |= !Double.isNaN(ownLat);
+            ownLat = ownLon = Double.NaN;
+            return;
+        }
+        // a new fix on the same course and speed does not change the CPAs
+        if (Double.isNaN(ownLat) || ve != ownVe || vn != ownVn
+                || deadReckonedDistance(lat, lon, now) > 0.01)
+            ownChanged = true;
+        else
+            return;
+        ownLat = lat;
+        ownLon = lon;
+        ownVe = ve;
+        ownVn = vn;
+        ownTime = now;
+    }
+
+    /** distance between a fix and the dead reckoned own position (nm) */
+    private double deadReckonedDistance(double lat, double lon, long now) {
+        double hours = (now - ownTime) / MSEC_PER_HOUR;
+        double dy = (lat - ownLat) * 60.0 - ownVn * hours;
+        double dx = wrap(lon - ownLon) * 60.0 * Math.cos(Math.toRadians(lat)) - ownVe * hours;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * updates the CPAs of the changed targets (all if the own vessel changed) and checks the alarm limits
+     * @param now       the current time (msec)
+     * @return          the number of targets recomputed
+     */
+    public int update(long now) {
+        lastUpdate = now;
+        long start = System.nanoTime();
+        collectChanges(now);
+        int computed = 0;
+        if (!Double.isNaN(ownLat)) {
+            if (ownChanged) {
+                computed = computeAll(now);
+                ownChanged = false;
+            }
+            else
+                computed = computeDirty(now);
+        }
+        numDirty = 0;
+        checkAlarms(now);
+        COMPUTED.add(computed);
+        UPDATE_TIME.record((System.nanoTime() - start) / 1000L);
+        return computed;
+    }
+
+    /** the CPA of the target in a slot (nm - NaN if not known) */
+    public double cpa(int slot) {
+        return (slot < valid.length && valid[slot] && !Double.isNaN(ownLat)) ? cpa[slot] : Double.NaN;
+    }
+
+    /** the time to CPA of the target in a slot (minutes - negative if passed or moving apart, NaN if not known) */
+    public double tcpa(int slot, long now) {
+        return (slot < valid.length && valid[slot] && !Double.isNaN(ownLat))
+                ? (cpaTime[slot] - now) / 60000.0 : Double.NaN;
+    }
+
+    /** true if the target in a slot is in alarm */
+    public boolean isAlarm(int slot) {
+        return slot < alarm.length && alarm[slot];
+    }
+
+    /** the number of targets in alarm */
+    public int alarms() {
+        return numAlarms;
+    }
+
+    /**
+     * finds the targets updated in the store and loads their state
+     * the targets not heard for the store timeout are left out (even if they have not been evicted yet)
+     */
+    private void collectChanges(long now) {
+        int capacity = store.capacity();
+        long timeout = store.timeout();
+        if (capacity > seen.length)
+            grow(capacity);
+        for (int slot = 0; slot < capacity; ++slot) {
+            AisTarget target = store.target(slot);
+            AisTarget previous = seen[slot];
+            if (target == previous) {
+                if (valid[slot] && now - target.lastHeard > timeout)
+                    valid[slot] = false;
+                continue;
+            }
+            // the alarm is for the previous target if the slot has been reused
+            if (alarm[slot] && (target == null || target.mmsi != previous.mmsi))
+                clearAlarm(slot, previous.mmsi);
+            seen[slot] = target;
+            if (target == null || !target.hasPosition() || now - target.lastHeard > timeout || !load(slot, target)) {
+                valid[slot] = false;
+                if (alarm[slot])
+                    clearAlarm(slot, target.mmsi);
+                continue;
+            }
+            dirty[numDirty++] = slot;
+        }
+    }
+
+    /** loads the position and velocity of a target - false if its course is not known */
+    private boolean load(int slot, AisTarget target) {
+        double sog = target.sog;
+        double cog = target.cog;
+        if (Double.isNaN(sog) || sog < 0.1) {
+            // stopped (or speed not known)
+            ve[slot] = vn[slot] = 0.0;
+        }
+        else if (Double.isNaN(cog))
+            return false;
+        else {
+            double c = Math.toRadians(cog);
+            ve[slot] = sog * Math.sin(c);
+            vn[slot] = sog * Math.cos(c);
+        }
+        lat[slot] = target.lat;
+        lon[slot] = target.lon;
+        time[slot] = target.lastPosition;
+        valid[slot] = true;
+        return true;
+    }
+
+    /** computes all the targets - straight loop over the state arrays */
+    private int computeAll(long now) {
+        int n = 0;
+        double cosLat = Math.cos(Math.toRadians(ownLat));
+        double ownHours = (now - ownTime) / MSEC_PER_HOUR;
+        // own position relative to the fix now (nm)
+        double ownX = ownVe * ownHours;
+        double ownY = ownVn * ownHours;
+        for (int i = 0; i < valid.length; ++i) {
+            if (!valid[i])
+                continue;
+            compute(i, now, cosLat, ownX, ownY);
+            ++n;
+        }
+        return n;
+    }
+
+    /** computes the targets updated since the last computation */
+    private int computeDirty(long now) {
+        double cosLat = Math.cos(Math.toRadians(ownLat));
+        double ownHours = (now - ownTime) / MSEC_PER_HOUR;
+        double ownX = ownVe * ownHours;
+        double ownY = ownVn * ownHours;
+        for (int k = 0; k < numDirty; ++k)
+            compute(dirty[k], now, cosLat, ownX, ownY);
+        return numDirty;
+    }
+
+    /**
+     * computes the CPA of one target
+     * the positions are dead reckoned to now and taken relative to the own vessel in a flat x (east) y (north) plane
+     */
+    private void compute(int i, long now, double cosLat, double ownX, double ownY) {
+        double hours = (now - time[i]) / MSEC_PER_HOUR;
+        double dx = wrap(lon[i] - ownLon) * 60.0 * cosLat + ve[i] * hours - ownX;
+        double dy = (lat[i] - ownLat) * 60.0 + vn[i] * hours - ownY;
+        double dvx = ve[i] - ownVe;
+        double dvy = vn[i] - ownVn;
+        double dv2 = dvx * dvx + dvy * dvy;
+        // time to CPA (hours) - no relative motion or moving apart: the CPA is now
+        double t = (dv2 < 1e-9) ? 0.0 : Math.max(0.0, -(dx * dvx + dy * dvy) / dv2);
+        double cx = dx + dvx * t;
+        double cy = dy + dvy * t;
+        cpa[i] = Math.sqrt(cx * cx + cy * cy);
+        cpaTime[i] = now + (long) (t * MSEC_PER_HOUR);
+    }
+
+    /** raises or clears the alarms */
+    private void checkAlarms(long now) {
+        boolean ownKnown = !Double.isNaN(ownLat);
+        for (int i = 0; i < valid.length; ++i) {
+            if (!valid[i]) {
+                if (alarm[i])
+                    clearAlarm(i, seenMmsi(i));
+                continue;
+            }
+            long toCpa = cpaTime[i] - now;
+            if (!alarm[i]) {
+                if (ownKnown && cpa[i] <= cpaLimit && toCpa > 0 && toCpa <= tcpaLimit) {
+                    alarm[i] = true;
+                    ++numAlarms;
+                    ALARMS.inc();
+                    listener.onAlarm(seen[i], cpa[i], toCpa / 60000.0);
+                }
+            }
+            else if (!ownKnown || cpa[i] > cpaLimit * HYSTERESIS || toCpa < 0 || toCpa > tcpaLimit * HYSTERESIS)
+                clearAlarm(i, seenMmsi(i));
+        }
+    }
+
+    private void clearAlarm(int slot, int mmsi) {
+        alarm[slot] = false;
+        --numAlarms;
+        listener.onAlarmCleared(mmsi);
+    }
+
+    /** the MMSI of the target last seen in a slot (0 if none) */
+    private int seenMmsi(int slot) {
+        return (seen[slot] != null) ? seen[slot].mmsi : 0;
+    }
+
+    /** resizes the state arrays to the store capacity */
+    private void grow(int capacity) {
+        AisTarget[] newSeen = new AisTarget[capacity];
+        System.arraycopy(seen, 0, newSeen, 0, seen.length);
+        seen = newSeen;
+        boolean[] newValid = new boolean[capacity];
+        System.arraycopy(valid, 0, newValid, 0, valid.length);
+        valid = newValid;
+        boolean[] newAlarm = new boolean[capacity];
+        System.arraycopy(alarm, 0, newAlarm, 0, alarm.length);
+        alarm = newAlarm;
+        lat = copyOf(lat, capacity);
+        lon = copyOf(lon, capacity);
+        ve = copyOf(ve, capacity);
+        vn = copyOf(vn, capacity);
+        cpa = copyOf(cpa, capacity);
+        long[] newTime = new long[capacity];
+        System.arraycopy(time, 0, newTime, 0, time.length);
+        time = newTime;
+        long[] newCpaTime = new long[capacity];
+        System.arraycopy(cpaTime, 0, newCpaTime, 0, cpaTime.length);
+        cpaTime = newCpaTime;
+        dirty = new int[capacity];
+        numDirty = 0;
+    }
+
+    private static double[] copyOf(double[] a, int length) {
+        double[] b = new double[length];
+        System.arraycopy(a, 0, b, 0, Math.min(a.length, length));
+        return b;
+    }
+
+    /** a longitude difference in -180 to 180 */
+    private static double wrap(double dLon) {
+        if (dLon > 180.0)
+            return dLon - 360.0;
+        if (dLon < -180.0)
+            return dLon + 360.0;
+        return dLon;
+    }
+}
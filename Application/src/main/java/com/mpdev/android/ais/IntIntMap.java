@@ -0,0 +1,120 @@
+package com.mpdev.android.ais;
+
+/**
+ * IntIntMap class
+ * Map of int keys to int values with open addressing (linear probing) - no boxing and no allocation
+ * except when the table grows
+ * The key 0 is reserved for the empty slots
+ * Not thread safe
+ */
+class IntIntMap {
+
+    static final int NO_VALUE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+
+    /**
+     * Constructor
+     * @param capacity  expected number of keys (the table is kept at most half full)
+     */
+    IntIntMap(int capacity) {
+        int n = 16;
+        while (n < 2 * capacity)
+            n <<= 1;
+        keys = new int[n];
+        values = new int[n];
+        mask = n - 1;
+    }
+
+    /** the number of keys */
+    int size() {
+        return size;
+    }
+
+    /**
+     * the value of a key
+     * @param key   the key (not 0)
+     * @return      the value or NO_VALUE if the key is not in the map
+     */
+    int get(int key) {
+        for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return values[i];
+        return NO_VALUE;
+    }
+
+    /**
+     * sets the value of a key
+     * @param key   the key (not 0)
+     * @param value the value
+     */
+    void put(int key, int value) {
+        int i = hash(key) & mask;
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    /**
+     * removes a key
+     * the following entries of the probe sequence are moved back so that no tombstones are needed
+     * @param key   the key
+     * @return      the value of the key or NO_VALUE if the key was not in the map
+     */
+    int remove(int key) {
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == 0)
+                return NO_VALUE;
+            i = (i + 1) & mask;
+        }
+        int value = values[i];
+        --size;
+        // backward shift deletion
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            // move the entry into the gap unless its home slot is between the gap and its current slot
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        return value;
+    }
+
+    /** doubles the table */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[2 * oldKeys.length];
+        values = new int[2 * oldKeys.length];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] == 0)
+                continue;
+            int j = hash(oldKeys[i]) & mask;
+            while (keys[j] != 0)
+                j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    /** spreads the bits of a key */
+    private static int hash(int key) {
+        return (key * 0x9E3779B9) ^ (key * 0x9E3779B9 >>> 16);
+    }
+}
@@ -1,6 +1,5 @@
 package com.mpdev.android.boat;
 
-import android.annotation.SuppressLint;
 import android.os.Build;
 import android.support.annotation.RequiresApi;
 
@@ -9,13 +8,14 @@ import com.mpdev.android.boat.BoatPosition.PositionData;
 import com.mpdev.android.boat.BoatPosition.WayPoint;
 import com.mpdev.android.boatinstruments.AppConfig;
 
-import static com.mpdev.android.boat.NmeaFormatterString.*;
 import static com.mpdev.android.boat.NmeaMessage.MsgStatus.*;
+import static com.mpdev.android.boat.NmeaFieldDecoder.NO_INT;
+import static com.mpdev.android.boat.NmeaSentenceTable.*;
 
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
 import java.util.TimeZone;
 
 /**
@@ -27,27 +27,62 @@ import java.util.TimeZone;
  */
 public class BoatData {
 
-    ////////// Boat data fields and timestamp for each field
-    double boatSpeed; public Date boatSpeed_t;
-    double heading; public Date heading_t;
-    double depth; public Date depth_t;
-    public WindData trueWind; public Date trueWind_t;
-    public WindData appWind; public Date appWind_t;
-    public WindData gndWind; public Date gndWind_t;
-    double polarSpeed; public Date polarSpeed_t;
-    double polarEff; public Date polarEff_t;
-    double waterTemp; public Date waterTemp_t;
-    double log; public Date log_t;
-    double trip; public Date trip_t;
-    public PositionData position; public Date position_t;
-    double sog; public Date sog_t;
-    double cog; public Date cog_t;
-    public WayPoint nextWaypoint; public Date nextWaypoint_t;
-    double xte; public Date xte_t;
-    Date gpsTime; public Date gpsTime_t;
+    ////////// Boat data fields
+    double boatSpeed;
+    double heading;
+    double depth;
+    public WindData trueWind;
+    public WindData appWind;
+    public WindData gndWind;
+    double polarSpeed;
+    double polarEff;
+    double targetTwa;
+    double targetVmg;
+    double waterTemp;
+    double log;
+    double trip;
+    public PositionData position;
+    double sog;
+    double cog;
+    public WayPoint nextWaypoint;
+    double xte;
+    Date gpsTime;
     // max values here
     public BoatDataMax maxValues;
 
+    ////////// field ids - one bit per field in the changed fields mask
+    public static final int FLD_BOAT_SPEED = 1;
+    public static final int FLD_HEADING = 1 << 1;
+    public static final int FLD_DEPTH = 1 << 2;
+    public static final int FLD_TRUE_WIND = 1 << 3;
+    public static final int FLD_APP_WIND = 1 << 4;
+    public static final int FLD_GND_WIND = 1 << 5;
+    public static final int FLD_POLAR_SPEED = 1 << 6;
+    public static final int FLD_POLAR_EFF = 1 << 7;
+    public static final int FLD_WATER_TEMP = 1 << 8;
+    public static final int FLD_LOG = 1 << 9;
+    public static final int FLD_TRIP = 1 << 10;
+    public static final int FLD_POSITION = 1 << 11;
+    public static final int FLD_SOG = 1 << 12;
+    public static final int FLD_COG = 1 << 13;
+    public static final int FLD_NEXT_WP = 1 << 14;
+    public static final int FLD_XTE = 1 << 15;
+    public static final int FLD_GPS_TIME = 1 << 16;
+    public static final int FLD_TARGET_TWA = 1 << 17;
+    public static final int FLD_TARGET_VMG = 1 << 18;
+    public static final int FLD_ALL = (1 << 19) - 1;
+    static final int NUM_FIELDS = 19;
+    // time each field was last updated (see now()) indexed by the bit number of the field id - 0 if never updated
+    final long[] fieldTime = new long[NUM_FIELDS];
+    // origin of the monotonic field timestamps
+    private static final long NANO_ORIGIN = System.nanoTime();
+    // fields changed since the last call to takeChanges
+    int changedFields;
+    // incremented every time a message updates the boat data
+    long version;
+
+    static final long MSEC_PER_DAY = 24L * 60L * 60L * 1000L;
+
     /**
      * Default constructor
      * initialise all variables
@@ -64,6 +99,8 @@ public class BoatData {
         waterTemp = -1.0;
         polarSpeed = -1.0;
         polarEff = -1.0;
+        targetTwa = -1.0;
+        targetVmg = -1.0;
         log = -1.0;
         trip = -1.0;
         position = new PositionData();
@@ -72,13 +109,157 @@ public class BoatData {
         nextWaypoint = new WayPoint();
         gpsTime = new Date(0L);
         xte = -1.0;
-        // init timestamps
-        boatSpeed_t = heading_t = depth_t = trueWind_t = appWind_t = gndWind_t = waterTemp_t = polarSpeed_t = polarEff_t =
-                log_t = trip_t = position_t = sog_t = cog_t = nextWaypoint_t = gpsTime_t = xte_t = new Date(0L);
+        // everything needs to be displayed the first time
+        changedFields = FLD_ALL;
+        version = 0L;
         // init max values class as well
         maxValues = new BoatDataMax();
     }
 
+    /**
+     * copies all the boat data fields and timestamps from another boat data object
+     * used to take a snapshot of the live data for the display
+     * (the max values are copied into the max values object of this snapshot - see BoatDataMax.copyFrom)
+     * @param src       the boat data to copy from
+     */
+    public void copyFrom(BoatData src) {
+        boatSpeed = src.boatSpeed;
+        heading = src.heading;
+        depth = src.depth;
+        trueWind.copyFrom(src.trueWind);
+        appWind.copyFrom(src.appWind);
+        gndWind.copyFrom(src.gndWind);
+        polarSpeed = src.polarSpeed;
+        polarEff = src.polarEff;
+        targetTwa = src.targetTwa;
+        targetVmg = src.targetVmg;
+        waterTemp = src.waterTemp;
+        log = src.log;
+        trip = src.trip;
+        position.copyFrom(src.position);
+        sog = src.sog;
+        cog = src.cog;
+        nextWaypoint.copyFrom(src.nextWaypoint);
+        xte = src.xte;
+        // gps time is updated in place so copy the value
+        gpsTime.setTime(src.gpsTime.getTime());
+        System.arraycopy(src.fieldTime, 0, fieldTime, 0, NUM_FIELDS);
+        if (maxValues != src.maxValues)
+            maxValues.copyFrom(src.maxValues);
+        version = src.version;
+    }
+
+    /**
+     * returns the fields that have changed since the last call and clears the changed fields mask
+     * @return      the changed fields (FLD_xxx bits)
+     */
+    public int takeChanges() {
+        int changed = changedFields;
+        changedFields = 0;
+        return changed;
+    }
+
+    /**
+     * marks fields as changed and updated now - for sentence handlers registered outside this class
+     * @param fields    the changed fields (FLD_xxx bits)
+     */
+    public void markChanged(int fields) {
+        setUpdated(fields);
+        changedFields |= fields;
+    }
+
+    /** sets the update time of the given fields (FLD_xxx bits) to now */
+    private void setUpdated(int fields) {
+        long now = now();
+        for (int f = fields; f != 0; f &= f - 1)
+            fieldTime[Integer.numberOfTrailingZeros(f)] = now;
+    }
+
+    ////////// field timestamps and staleness
+
+    /**
+     * the monotonic clock used for the field timestamps
+     * not affected by changes of the system time - only differences between two values are meaningful
+     * @return      milliseconds since this class was loaded (always > 0)
+     */
+    public static long now() {
+        return (System.nanoTime() - NANO_ORIGIN) / 1000000L + 1L;
+    }
+
+    /**
+     * the time a field was last updated
+     * @param field     the field id (one FLD_xxx bit)
+     * @return          the update time (see now()) or 0 if the field has never been updated
+     */
+    public long fieldTime(int field) {
+        return fieldTime[Integer.numberOfTrailingZeros(field)];
+    }
+
+    /**
+     * the time since a field was last updated
+     * @param field     the field id (one FLD_xxx bit)
+     * @param now       the current time (see now())
+     * @return          the age in milliseconds or -1 if the field has never been updated
+     */
+    public long fieldAge(int field, long now) {
+        long t = fieldTime(field);
+        return (t == 0L) ? -1L : now - t;
+    }
+
+    /**
+     * checks if a field update time is out of date
+     * a field that has never been updated is not out of date (there is nothing to show)
+     * @param fieldTime     the field update time (see now())
+     * @param now           the current time (see now())
+     * @param timeout       the out of date timeout in milliseconds
+     * @return              true if the field is out of date
+     */
+    public static boolean isStale(long fieldTime, long now, long timeout) {
+        return fieldTime > 0L && now - fieldTime > timeout;
+    }
+
+    /**
+     * finds the out of date fields
+     * @param fields    the fields to check (FLD_xxx bits)
+     * @param now       the current time (see now())
+     * @param timeout   the out of date timeout in milliseconds
+     * @return          the out of date fields (FLD_xxx bits)
+     */
+    public int staleFields(int fields, long now, long timeout) {
+        int stale = 0;
+        for (int f = fields & FLD_ALL; f != 0; f &= f - 1) {
+            int i = Integer.numberOfTrailingZeros(f);
+            if (isStale(fieldTime[i], now, timeout))
+                stale |= 1 << i;
+        }
+        return stale;
+    }
+
+    /** the update counter - changes every time a message updates the boat data */
+    public long getVersion() {
+        return version;
+    }
+
+    /** speed over ground (knots - negative if not known) */
+    public double getSog() {
+        return sog;
+    }
+
+    /** course over ground (degrees - negative if not known) */
+    public double getCog() {
+        return cog;
+    }
+
+    /** target true wind angle - best VMG angle on the current tack (degrees - negative if not known) */
+    public double getTargetTwa() {
+        return targetTwa;
+    }
+
+    /** target VMG on the current tack (knots - negative if not known) */
+    public double getTargetVmg() {
+        return targetVmg;
+    }
+
     /**
      * Main method that updates boat data from an incoming NMEA message
      *
@@ -91,185 +272,140 @@ public class BoatData {
         if (msg.status != NMEA_MSG_OK)
             return false;
 
-        // compass heading
-        // $HCHDG,338.9, , ,0.7,W*3D
-        if (msg.talker.equals(MAGNETIC_COMPASS)
-        &&  msg.formatter.equals(HEADING))
-            return updateHeading(msg.fields);
-        else
-        // boat speed
-        // $IIVHW,,T,338.9,M,0,N,0,K*7A
-        if (msg.talker.equals(INTEGRATED_INSTRUMENTATION)
-        &&  msg.formatter.equals(SPEED))
-            return updateBoatSpeed(msg.fields);
-        else
-        // apparent / true wind
-        // $WIMWV,x.x,T,x.x,M,x.x,N,x.x,M*hh
-        if (msg.talker.equals(WIND_INSTRUMENTS)
-        &&  msg.formatter.equals(WIND))
-            return updateWindSpeed(msg.fields);
-        else
-        // ground wind
-        // $--MWD,x.x,T,x.x,M,x.x,N,x.x,M*hh
-        if (// talker = any
-            msg.formatter.equals(GNDWIND))
-            return updateGndWind(msg.fields);
-        else
-        // water Temperature
-        // $IIMTW,xx.x,C*hh
-        if (msg.talker.equals(INTEGRATED_INSTRUMENTATION)
-        &&  msg.formatter.equals(WATERTEMP))
-            return updateWaterTemp(msg.fields);
-        else
-        // depth
-        // $SDDPT,xx.x,x.x,x*hh
-        if (msg.talker.equals(ECHO_SOUNDER)
-        &&  msg.formatter.equals(DEPTH))
-            return updateDepth(msg.fields);
-        else
-        // log - trip
-        // $IIVLW,x.x,A,x.x,A,x.x,A,x.x,A*hh
-        if (msg.talker.equals(INTEGRATED_INSTRUMENTATION)
-        &&  msg.formatter.equals(LOG))
-            return updateLog(msg.fields);
-        else
-        // position
-        // $GPGLL,LLLL.LLL,A,lllll.lll,a,hhmmss,A,A*hh
-        if (msg.talker.equals(GPS)
-        &&  msg.formatter.equals(POSITION))
-            return updatePosition(msg.fields);
-        else
-        // position - SOG - COG
-        // $GPRMC,hhmmss,A,LLLL.LLL,A,lllll.lll,a,X.x,X,ddmmyy,X.x,A,A*hh
-        if (msg.talker.equals(GPS)
-        &&  msg.formatter.equals(POSSOGCOG))
-            return updatePosnTimeSogCog(msg.fields);
-        else
-        // next waypoint
-        // $--BWC,hhmmss.mm,LLLL.LLL,A,lllll.lll,a,X.x,T,X.x,M,X.x,N,sssss,A*hh
-        if ((msg.talker.equals(CHART_SYSTEM) || msg.talker.equals(GPS))
-        &&  msg.formatter.equals(NEXTWP))
-            return updateNextWp(msg.fields);
-        else
-        // GPS date and time
-        // $GPZDA,160853,03,04,2021,,*47
-        if (msg.talker.equals(GPS)
-        &&  msg.formatter.equals(GPSTIME))
-            return updateGPSTime(msg.fields);
-        else
-        // Speed over ground and course over ground
-        // $GPVTG,0.73,T,,M,0.16,N,0.29,K,A*35
-        if (msg.talker.equals(GPS)
-        &&  msg.formatter.equals(SOGCOG))
-            return updateSogCog(msg.fields);
-        else
-        // GPS Fix data
-        // $GPSGNS,134107,3609.3621,N,00521.4806,W,A,10,1,43.5,47.3,,,V*6B
-        if (msg.talker.equals(GPS)
-        &&  msg.formatter.equals(FIXDATA))
-            return updatePositionFixData(msg.fields);
-        else
-        // XTE
-        // $GPXTE,A,A,0,L,N,A*2D
-        if (msg.talker.equals(GPS)
-        &&  msg.formatter.equals(XTE))
-            return updateXTE(msg.fields);
+        if (!dispatch(msg))
+            return false;
+        ++version;
+        return true;
+    }
 
-        return false;
+    /**
+     * calls the update method for the sentence type found by the parser (see NmeaSentenceTable)
+     * @param msg   the incoming NMEA msg (status OK)
+     * @return      true when a field has been updated
+     */
+    private boolean dispatch(NmeaMessage msg) {
+        NmeaSentenceTable.Entry sentence = msg.sentence;
+        switch (sentence.handlerId) {
+            case HDL_HEADING:       // compass heading
+                return updateHeading(msg);
+            case HDL_SPEED:         // boat speed
+                return updateBoatSpeed(msg);
+            case HDL_WIND:          // apparent / true wind
+                return updateWindSpeed(msg);
+            case HDL_GNDWIND:       // ground wind
+                return updateGndWind(msg);
+            case HDL_WATERTEMP:     // water Temperature
+                return updateWaterTemp(msg);
+            case HDL_DEPTH:         // depth
+                return updateDepth(msg);
+            case HDL_LOG:           // log - trip
+                return updateLog(msg);
+            case HDL_POSITION:      // position
+                return updatePosition(msg);
+            case HDL_POSSOGCOG:     // position - SOG - COG
+                return updatePosnTimeSogCog(msg);
+            case HDL_NEXTWP:        // next waypoint
+                return updateNextWp(msg);
+            case HDL_GPSTIME:       // GPS date and time
+                return updateGPSTime(msg);
+            case HDL_SOGCOG:        // Speed over ground and course over ground
+                return updateSogCog(msg);
+            case HDL_FIXDATA:       // GPS Fix data
+                return updatePositionFixData(msg);
+            case HDL_XTE:           // XTE
+                return updateXTE(msg);
+            default:                // registered sentence handler
+                return sentence.handler != null && sentence.handler.update(this, msg);
+        }
     }
 
     ////////////////////////////////////////////////////////////////////////////////
     ////////////////// update relevant boat fields from NMEA message ///////////////
     ////////////////////////////////////////////////////////////////////////////////
+    // the fields are decoded in place from the message buffer (see NmeaFieldDecoder)
+    // an empty or non-numeric field decodes to NaN (or NO_INT) and the update fails
 
     /**
      * updates boat heading in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    private boolean updateHeading(String[] fields) {
+    private boolean updateHeading(NmeaMessage msg) {
         // message fields
         //         0     1 2 3   4
         //	$HCHDG,338.9, , ,0.7,W
-        double magnHeading;
-        double variation;
-        try {
-            magnHeading = Double.parseDouble(fields[0]);
-            variation = Double.parseDouble(fields[3]);
-        } catch (Exception e) {
+        double magnHeading = msg.fieldDouble(0);
+        double variation = msg.fieldDouble(3);
+        if (Double.isNaN(magnHeading) || Double.isNaN(variation))
             return false;
-        }
-        String eastWest = fields[4];
         // variation West - compass Best (i.e. subtract from compass to get true heading)
-        if (eastWest.equals("W"))
+        if (msg.fieldIs(4, 'W'))
             heading = magnHeading - variation;
         // variation East - compass Least (i.e. add to compass to get true heading)
-        else if (eastWest.equals("E"))
+        else if (msg.fieldIs(4, 'E'))
             heading = magnHeading + variation;
         else
             return false;
 
-        heading_t = new Date();
+        setUpdated(FLD_HEADING);
+        changedFields |= FLD_HEADING;
         return true;
     }
 
     /**
      * updates boat speed in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    private boolean updateBoatSpeed(String[] fields) {
+    private boolean updateBoatSpeed(NmeaMessage msg) {
         // message fields
         //         0 1 2     3 4   5 6 7
         //	$IIVHW, ,T,338.9,M,6.8,N,0,K
-        double speed;
-        String knots;
-        try {
-            speed = Double.parseDouble(fields[4]);
-        } catch (Exception e) {
+        double speed = msg.fieldDouble(4);
+        if (Double.isNaN(speed))
             return false;
-        }
-        knots = fields[5];
-        if (!knots.equals("N"))
+        if (!msg.fieldIs(5, 'N'))
             return false;
         boatSpeed = speed;
 
-        // also update polar speed and efficiency
-        if (BoatPolar.polarLoaded) {
-            polarSpeed = BoatPolar.getPolarSpeed(trueWind);
-            polarEff = (polarSpeed == 0.0) ? 0 : (boatSpeed * 100 / polarSpeed);
-            polarSpeed_t = polarEff_t = new Date();
-        }
-        boatSpeed_t = new Date();
+        // also update polar speed, efficiency and targets
+        updatePolarData();
+        setUpdated(FLD_BOAT_SPEED);
+        changedFields |= FLD_BOAT_SPEED;
         return true;
     }
 
+    /**
+     * updates polar speed, efficiency and the VMG targets from the current true wind
+     * (only if a polar has been loaded)
+     */
+    private void updatePolarData() {
+        if (!BoatPolar.polarLoaded)
+            return;
+        polarSpeed = BoatPolar.getPolarSpeed(trueWind);
+        polarEff = (polarSpeed == 0.0) ? 0 : (boatSpeed * 100 / polarSpeed);
+        targetTwa = BoatPolar.getTargetTwa(trueWind);
+        targetVmg = BoatPolar.getTargetVmg(trueWind);
+        setUpdated(FLD_POLAR_SPEED | FLD_POLAR_EFF | FLD_TARGET_TWA | FLD_TARGET_VMG);
+        changedFields |= FLD_POLAR_SPEED | FLD_POLAR_EFF | FLD_TARGET_TWA | FLD_TARGET_VMG;
+    }
+
     /**
      * updates apparent and true speed in boat data
      * (also sets ground wind depending on app config option)
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    private boolean updateWindSpeed(String[] fields) {
+    private boolean updateWindSpeed(NmeaMessage msg) {
         // message fields
         //         0      1 2    3 4
         //	$WIMWV,175.46,R,2.29,N,A
         // 	$WIMWV,175.46,T,2.29,N,A
-        double speed;
-        double angle;
-        String valid;
-        String knots;
-        String trueRel;
         String portStarboard;
-        try {
-            speed = Double.parseDouble(fields[2]);
-            angle = Double.parseDouble(fields[0]);
-        } catch (Exception e) {
+        double speed = msg.fieldDouble(2);
+        double angle = msg.fieldDouble(0);
+        if (Double.isNaN(speed) || Double.isNaN(angle))
             return false;
-        }
-        trueRel = fields[1];
-        knots = fields[3];
-        valid = fields[4];
         if (angle > 360.0)
             return false;
         if (angle <= 180.0) {
@@ -279,43 +415,40 @@ public class BoatData {
             angle = 360 - angle;
             portStarboard = "P";
         }
-        if (valid.equals("A") && knots.equals("N")) {
-            if (trueRel.equals("R")) {
+        if (msg.fieldIs(4, 'A') && msg.fieldIs(3, 'N')) {
+            if (msg.fieldIs(1, 'R')) {
                 // apparent wind
                 appWind.set(speed, angle, portStarboard);
-                appWind_t = new Date();
+                setUpdated(FLD_APP_WIND);
+                changedFields |= FLD_APP_WIND;
                 // if necessary also calculate true wind
                 if (AppConfig.CALCULATE_TRUE_WIND) {
                     BoatWind.calcTrueWind(boatSpeed, appWind, trueWind);
-                    trueWind_t = new Date();
-                    // also update polar speed and efficiency
-                    if (BoatPolar.polarLoaded) {
-                        polarSpeed = BoatPolar.getPolarSpeed(trueWind);
-                        polarEff = (polarSpeed == 0.0) ? 0 : (boatSpeed * 100 / polarSpeed);
-                        polarSpeed_t = polarEff_t = new Date();
-                    }
+                    setUpdated(FLD_TRUE_WIND);
+                    changedFields |= FLD_TRUE_WIND;
+                    // also update polar speed, efficiency and targets
+                    updatePolarData();
                     if (AppConfig.CALCULATE_GND_WIND) {
                         // if necessary also calculate ground wind
                         BoatWind.calcGndWind(heading, trueWind, gndWind);
-                        gndWind_t = new Date();
+                        setUpdated(FLD_GND_WIND);
+                        changedFields |= FLD_GND_WIND;
                     }
                 }
             }
             else
-            if (trueRel.equals("T")) {
+            if (msg.fieldIs(1, 'T')) {
                 // true wind
                 trueWind.set(speed, angle, portStarboard);
-                trueWind_t = new Date();
-                // also update polar speed and efficiency
-                if (BoatPolar.polarLoaded) {
-                    polarSpeed = BoatPolar.getPolarSpeed(trueWind);
-                    polarEff = (polarSpeed == 0.0) ? 0 : (boatSpeed * 100 / polarSpeed);
-                    polarSpeed_t = polarEff_t = new Date();
-                }
+                setUpdated(FLD_TRUE_WIND);
+                changedFields |= FLD_TRUE_WIND;
+                // also update polar speed, efficiency and targets
+                updatePolarData();
                 if (AppConfig.CALCULATE_GND_WIND) {
                     // if necessary also calculate ground wind
                     BoatWind.calcGndWind(heading, trueWind, gndWind);
-                    gndWind_t = new Date();
+                    setUpdated(FLD_GND_WIND);
+                    changedFields |= FLD_GND_WIND;
                 }
             }
             else
@@ -329,528 +462,486 @@ public class BoatData {
 
     /**
      * updates ground wind speed in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    private boolean updateGndWind (String[] fields) {
+    private boolean updateGndWind (NmeaMessage msg) {
         // message fields
         //         0   1 2   3 4   5 6   7
         //	$--MWD,x.x,T,x.x,M,x.x,N,x.x,M
-        double angle;
-        double speed;
-        try {
-            angle = Double.parseDouble(fields[0]);
-            speed = Double.parseDouble(fields[4]);
-        }
-        catch (Exception e) {
+        double angle = msg.fieldDouble(0);
+        double speed = msg.fieldDouble(4);
+        if (Double.isNaN(angle) || Double.isNaN(speed))
             return false;
-        }
 
-        String trueDir = fields[1];
-        String knots = fields[5];
-
-        if (trueDir.equals("T") && knots.equals("N") && angle < 360.0)
+        if (msg.fieldIs(1, 'T') && msg.fieldIs(5, 'N') && angle < 360.0)
             gndWind.set(BoatWind.getBeaufort(speed), BoatWind.getGndWindDir(angle));
         else
             return false;
 
-        gndWind_t = new Date();
+        setUpdated(FLD_GND_WIND);
+        changedFields |= FLD_GND_WIND;
         return true;
     }
 
     /**
      * updates water temperature in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updateWaterTemp(String[] fields) {
+    boolean updateWaterTemp(NmeaMessage msg) {
         // message fields
         //         0    1
         //  $IIMTW,xx.x,C
-        double temp;
-        try {
-            temp = Double.parseDouble(fields[0]);
-        }
-        catch (Exception e) {
+        double temp = msg.fieldDouble(0);
+        if (Double.isNaN(temp))
             return false;
-        }
-        String celcius = fields[1];
-        if (!celcius.equals("C"))
+        if (!msg.fieldIs(1, 'C'))
             return false;
         waterTemp = temp;
 
-        waterTemp_t = new Date();
+        setUpdated(FLD_WATER_TEMP);
+        changedFields |= FLD_WATER_TEMP;
         return true;
     }
 
     /**
      * updates depth in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updateDepth(String[] fields) {
+    boolean updateDepth(NmeaMessage msg) {
         // message fields
         //         0    1   2
         //  $SDDPT,7.36,0.3, *4A
-        double depthData, offset;
-        try {
-            depthData = Double.parseDouble(fields[0]);
-            offset = Double.parseDouble(fields[1]);
-        }
-        catch (Exception e) {
+        double depthData = msg.fieldDouble(0);
+        double offset = msg.fieldDouble(1);
+        if (Double.isNaN(depthData) || Double.isNaN(offset))
             return false;
-        }
         depth = depthData + offset;
 
-        depth_t = new Date();
+        setUpdated(FLD_DEPTH);
+        changedFields |= FLD_DEPTH;
         return true;
     }
 
     /**
      * updates log in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updateLog(String[] fields) {
+    boolean updateLog(NmeaMessage msg) {
         // message fields
         //         0    1 2    3 4 5 6 7
         //  $IIVLW,2310,N,45.1,N, ,N, ,N
-        double totalLog;
-        double tripLog;
-        try {
-            totalLog = Double.parseDouble(fields[0]);
-            tripLog = Double.parseDouble(fields[2]);
-        }
-        catch (Exception e) {
+        double totalLog = msg.fieldDouble(0);
+        double tripLog = msg.fieldDouble(2);
+        if (Double.isNaN(totalLog) || Double.isNaN(tripLog))
             return false;
-        }
-        String nmiles1 = fields[1];
-        String nmiles2 = fields[3];
-        if (nmiles1.equals("N") && nmiles2.equals("N")) {
+        if (msg.fieldIs(1, 'N') && msg.fieldIs(3, 'N')) {
             log = totalLog;
             trip = tripLog;
         }
         else
             return false;
 
-        log_t = trip_t = new Date();
+        setUpdated(FLD_LOG | FLD_TRIP);
+        changedFields |= FLD_LOG | FLD_TRIP;
         return true;
     }
 
     /**
      * updates position in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updatePosition(String[] fields) {
+    boolean updatePosition(NmeaMessage msg) {
         // message fields
         //         0         1 2          3 4      5 6
         //  $GPGLL,5047.7438,N,00107.0246,W,112402,A,A
-        int latDeg;
-        double latMin;
-        int longDeg;
-        double longMin;
-        try {
-            latDeg = Integer.parseInt(fields[0].substring(0,2));
-            latMin = Double.parseDouble(fields[0].substring(2));
-            longDeg = Integer.parseInt(fields[2].substring(0,3));
-            longMin = Double.parseDouble(fields[2].substring(3));
-        }
-        catch (Exception e) {
-            return false;
-        }
-        String nS = fields[1];
-        String eW = fields[3];
-        String valid = fields[6];
-        if (!valid.equals("A"))
+        if (!msg.fieldIs(6, 'A'))
             return false;
-        if (latDeg >= 90 || latMin >= 60.0
-        ||  longDeg >= 180 || longMin >= 60.0)
+        if (!updatePositionData(msg, 0, position))
             return false;
-        if (!nS.equals("N") && !nS.equals("S"))
-            return false;
-        if (!eW.equals("W") && !eW.equals("E"))
-            return false;
-        position.set(latDeg, latMin, nS);
-        position.set(longDeg, longMin, eW);
 
-        position_t = new Date();
+        setUpdated(FLD_POSITION);
+        changedFields |= FLD_POSITION;
         return true;
     }
 
     /**
      * updates position, sog and cog in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updatePosnTimeSogCog(String[] fields) {
+    boolean updatePosnTimeSogCog(NmeaMessage msg) {
         // message fields
         //         0      1 2         3 4          5 6   7 8      9    10 11
         //  $GPRMC,112402,A,5047.7438,N,00107.0246,W,0.1,0,170218,0.73,W, A
-        int latDeg;
-        double latMin;
-        int longDeg;
-        double longMin;
-        double speedOg;
-        double courseOg;
-        try {
-            latDeg = Integer.parseInt(fields[2].substring(0, 2));
-            latMin = Double.parseDouble(fields[2].substring(2));
-            longDeg = Integer.parseInt(fields[4].substring(0,3));
-            longMin = Double.parseDouble(fields[4].substring(3));
-            speedOg = Double.parseDouble(fields[6]);
-            courseOg = Double.parseDouble(fields[7]);
-        }
-        catch (Exception e) {
-            return false;
-        }
-        String nS = fields[3];
-        String eW = fields[5];
-        String valid = fields[1];
-        if (!valid.equals("A"))
+        double speedOg = msg.fieldDouble(6);
+        double courseOg = msg.fieldDouble(7);
+        if (Double.isNaN(speedOg) || Double.isNaN(courseOg))
             return false;
-        if (latDeg >= 90 || latMin >= 60.0
-        ||  longDeg >= 180 || longMin >= 60.0)
+        if (!msg.fieldIs(1, 'A'))
             return false;
-        if (!nS.equals("N") && !nS.equals("S"))
+        if (!updatePositionData(msg, 2, position))
             return false;
-        if (!eW.equals("W") && !eW.equals("E"))
-            return false;
-        position.set(latDeg, latMin, nS);
-        position.set(longDeg, longMin, eW);
         sog = speedOg;
         cog = courseOg;
 
-        try {
-            int hours = Integer.parseInt(fields[0].substring(0,2));
-            int minutes = Integer.parseInt(fields[0].substring(2,4));
-            int seconds = Integer.parseInt(fields[0].substring(4,6));
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(gpsTime);
-            cal.setTimeZone(TimeZone.getTimeZone("GMT"));
-            cal.set(Calendar.HOUR_OF_DAY, hours);
-            cal.set(Calendar.MINUTE, minutes);
-            cal.set(Calendar.SECOND, seconds);
-            cal.set(Calendar.MILLISECOND, 0);
-            gpsTime = cal.getTime();
-        } catch (Exception e) {
+        // gps time (the date is kept from the last ZDA message)
+        int hours = msg.fieldDigits(0, 0, 2);
+        int minutes = msg.fieldDigits(0, 2, 2);
+        int seconds = msg.fieldDigits(0, 4, 2);
+        if (hours == NO_INT || minutes == NO_INT || seconds == NO_INT)
             return false;
-        }
+        long gpsDay = Math.floorDiv(gpsTime.getTime(), MSEC_PER_DAY);
+        gpsTime.setTime(gpsDay * MSEC_PER_DAY + ((hours * 60L + minutes) * 60L + seconds) * 1000L);
 
-        position_t = sog_t = cog_t = new Date();
+        setUpdated(FLD_POSITION | FLD_SOG | FLD_COG);
+        changedFields |= FLD_POSITION | FLD_SOG | FLD_COG | FLD_GPS_TIME;
 
         return true;
     }
 
     /**
      * updates next waypoint name, coordinates, bearing and distance in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updateNextWp(String[] fields) {
+    boolean updateNextWp(NmeaMessage msg) {
         // message fields
         //         0         1        2 3         4 5     6 7     8 9    10 11          12
         //  $GPBWC,112356.00,5045.645,N,00107.027,W,180.0,T,181.0,M,2.10,N, GOTO CURSOR,A
-        double nextWpBrng;
-        double nextWpDist;
 
         // waypoint bearing, distance and name
-        try {
-            nextWpBrng = Double.parseDouble(fields[5]);
-            nextWpDist = Double.parseDouble(fields[9]);
-        }
-        catch (Exception e) {
+        double nextWpBrng = msg.fieldDouble(5);
+        double nextWpDist = msg.fieldDouble(9);
+        if (Double.isNaN(nextWpBrng) || Double.isNaN(nextWpDist))
             return false;
-        }
-        String trueBrng = fields[6];
-        String milesDist = fields[10];
-        String nextWpName = fields[11];
-        // waypoint coordinates
-        int latDeg;
-        double latMin;
-        int longDeg;
-        double longMin;
-        try {
-            latDeg = Integer.parseInt(fields[1].substring(0,2));
-            latMin = Double.parseDouble(fields[1].substring(2));
-            longDeg = Integer.parseInt(fields[3].substring(0,3));
-            longMin = Double.parseDouble(fields[3].substring(3));
-        }
-        catch (Exception e) {
+        if (!msg.fieldIs(12, 'A') || !msg.fieldIs(6, 'T') || !msg.fieldIs(10, 'N'))
             return false;
-        }
-        String nS = fields[2];
-        String eW = fields[4];
-        if (latDeg >= 90 || latMin >= 60.0 || longDeg >= 180 || longMin >= 60.0)
-            return false;
-        if (!nS.equals("N") && !nS.equals("S"))
-            return false;
-        if (!eW.equals("W") && !eW.equals("E"))
+        // waypoint coordinates
+        if (!updatePositionData(msg, 1, nextWaypoint.wpCoord))
             return false;
-        PositionData wpCoord = new PositionData();
-        wpCoord.set(latDeg, latMin, nS);
-        wpCoord.set(longDeg, longMin, eW);
+        // the name String is only created when the waypoint changes
+        String nextWpName = nextWaypoint.name;
+        if (!msg.fieldEquals(11, nextWpName))
+            nextWpName = msg.getField(11);
 
-        String auton = fields[12];
+        nextWaypoint.set(nextWpName, nextWpBrng, nextWpDist, nextWaypoint.wpCoord);
 
-        if (auton.equals("A") && trueBrng.equals("T") && milesDist.equals("N"))
-            nextWaypoint.set(nextWpName, nextWpBrng, nextWpDist, wpCoord);
-        else
-            return false;
-
-        nextWaypoint_t = new Date();
+        setUpdated(FLD_NEXT_WP);
+        changedFields |= FLD_NEXT_WP;
         return true;
     }
 
     /**
      * updates gps date/time in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updateGPSTime(String[] fields) {
+    boolean updateGPSTime(NmeaMessage msg) {
         // message fields
         //         0      1  2  3    4 5
         //  $GPZDA,160853,03,04,2021, , *
-        try {
-            int hours = Integer.parseInt(fields[0].substring(0,2));
-            int minutes = Integer.parseInt(fields[0].substring(2,4));
-            int seconds = Integer.parseInt(fields[0].substring(4,6));
-            int day = Integer.parseInt(fields[1]);
-            int month = Integer.parseInt(fields[2]);
-            int year = Integer.parseInt(fields[3]);
-            Calendar cal = Calendar.getInstance();
-            cal.setTimeZone(TimeZone.getTimeZone("GMT"));
-            cal.set(Calendar.HOUR_OF_DAY, hours);
-            cal.set(Calendar.MINUTE, minutes);
-            cal.set(Calendar.SECOND, seconds);
-            cal.set(Calendar.MILLISECOND, 0);
-            cal.set(Calendar.DAY_OF_MONTH, day);
-            cal.set(Calendar.MONTH, month-1);
-            cal.set(Calendar.YEAR, year);
-            gpsTime = cal.getTime();
-            gpsTime_t = new Date();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        int hours = msg.fieldDigits(0, 0, 2);
+        int minutes = msg.fieldDigits(0, 2, 2);
+        int seconds = msg.fieldDigits(0, 4, 2);
+        int day = msg.fieldInt(1);
+        int month = msg.fieldInt(2);
+        int year = msg.fieldInt(3);
+        if (hours == NO_INT || minutes == NO_INT || seconds == NO_INT
+        ||  day == NO_INT || month == NO_INT || year == NO_INT)
+            return false;
+        if (month < 1 || month > 12 || day < 1 || day > 31)
+            return false;
+        gpsTime.setTime(epochDay(year, month, day) * MSEC_PER_DAY
+                + ((hours * 60L + minutes) * 60L + seconds) * 1000L);
+        setUpdated(FLD_GPS_TIME);
+        changedFields |= FLD_GPS_TIME;
+        return true;
     }
 
     /**
      * updates sog and cog in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updateSogCog(String[] fields) {
+    boolean updateSogCog(NmeaMessage msg) {
         // message fields
         //         0    1 2 3 4    5 6    7 8
         //  $GPVTG,0.73,T, ,M,0.16,N,0.29,K,A*35
-        double speedOg;
-        double courseOg;
-        try {
-            speedOg = Double.parseDouble(fields[4]);
-            courseOg = Double.parseDouble(fields[0]);
-        }
-        catch (Exception e) {
+        double speedOg = msg.fieldDouble(4);
+        double courseOg = msg.fieldDouble(0);
+        if (Double.isNaN(speedOg) || Double.isNaN(courseOg))
             return false;
-        }
-        String valid = fields[8];
-        if (!valid.equals("A"))
+        if (!msg.fieldIs(8, 'A'))
             return false;
         sog = speedOg;
         cog = courseOg;
 
-        sog_t = cog_t = new Date();
+        setUpdated(FLD_SOG | FLD_COG);
+        changedFields |= FLD_SOG | FLD_COG;
 
         return true;
     }
 
     /**
      * updates position from fix data in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    boolean updatePositionFixData(String[] fields) {
+    boolean updatePositionFixData(NmeaMessage msg) {
         // message fields
         //         0      1         2 3          4 5 6  7 8    9    10 11 12
         // $GPSGNS,134107,3609.3621,N,00521.4806,W,A,10,1,43.5,47.3,  ,  ,V *6B
-        int latDeg;
-        double latMin;
-        int longDeg;
-        double longMin;
-        try {
-            latDeg = Integer.parseInt(fields[1].substring(0,2));
-            latMin = Double.parseDouble(fields[1].substring(2));
-            longDeg = Integer.parseInt(fields[3].substring(0,3));
-            longMin = Double.parseDouble(fields[3].substring(3));
-        }
-        catch (Exception e) {
-            return false;
-        }
-        String nS = fields[2];
-        String eW = fields[4];
-        String valid = fields[5];
-        if (!valid.equals("A"))
+        if (!msg.fieldIs(5, 'A'))
             return false;
-        if (latDeg >= 90 || latMin >= 60.0
-                ||  longDeg >= 180 || longMin >= 60.0)
-            return false;
-        if (!nS.equals("N") && !nS.equals("S"))
-            return false;
-        if (!eW.equals("W") && !eW.equals("E"))
+        if (!updatePositionData(msg, 1, position))
             return false;
-        position.set(latDeg, latMin, nS);
-        position.set(longDeg, longMin, eW);
 
-        position_t = new Date();
+        setUpdated(FLD_POSITION);
+        changedFields |= FLD_POSITION;
         return true;
     }
 
     /**
      * updates xte in boat data
-     * @param fields    the NMEA fields
+     * @param msg       the NMEA message
      * @return          true if successful
      */
-    private boolean updateXTE(String[] fields) {
+    private boolean updateXTE(NmeaMessage msg) {
         // message fields
         //         0 1 2   3 4 5
         //  $GPXTE,A,A,0.0,L,N,A*2D
-        double xTrackError;
-        String knots;
-        try {
-            xTrackError = Double.parseDouble(fields[2]);
-        } catch (Exception e) {
+        double xTrackError = msg.fieldDouble(2);
+        if (Double.isNaN(xTrackError))
             return false;
-        }
-        knots = fields[4];
-        String valid = fields[5];
-        if (!knots.equals("N") || !valid.equals("A"))
+        if (!msg.fieldIs(4, 'N') || !msg.fieldIs(5, 'A'))
             return false;
         xte = xTrackError;
-        xte_t = new Date();
+        setUpdated(FLD_XTE);
+        changedFields |= FLD_XTE;
+        return true;
+    }
+
+    /**
+     * decodes the lat/long in 4 consecutive NMEA fields (LLLL.LLL,A,lllll.lll,a)
+     * and updates the position data if valid
+     * @param msg           the NMEA message
+     * @param latField      the index of the latitude field (longitude is latField+2)
+     * @param posData       the position data to update
+     * @return              true if successful
+     */
+    private boolean updatePositionData(NmeaMessage msg, int latField, PositionData posData) {
+        int latDeg = msg.fieldDegrees(latField, 2);
+        double latMin = msg.fieldMinutes(latField, 2);
+        int longDeg = msg.fieldDegrees(latField+2, 3);
+        double longMin = msg.fieldMinutes(latField+2, 3);
+        if (latDeg == NO_INT || Double.isNaN(latMin) || longDeg == NO_INT || Double.isNaN(longMin))
+            return false;
+        if (latDeg >= 90 || latMin >= 60.0
+        ||  longDeg >= 180 || longMin >= 60.0)
+            return false;
+        String nS;
+        if (msg.fieldIs(latField+1, 'N'))
+            nS = "N";
+        else if (msg.fieldIs(latField+1, 'S'))
+            nS = "S";
+        else
+            return false;
+        String eW;
+        if (msg.fieldIs(latField+3, 'W'))
+            eW = "W";
+        else if (msg.fieldIs(latField+3, 'E'))
+            eW = "E";
+        else
+            return false;
+        posData.set(latDeg, latMin, nS);
+        posData.set(longDeg, longMin, eW);
         return true;
     }
 
+    /**
+     * number of days from 1.1.1970 to the given date (proleptic Gregorian calendar)
+     * @param year      the year
+     * @param month     the month (1-12)
+     * @param day       the day of the month (1-31)
+     * @return          the epoch day
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
     /////////////////////////////////////////////////////////////////////////
     // return boat data fields as formatted strings to be displayed on screen
     /////////////////////////////////////////////////////////////////////////
 
+    // formatters for the display (see ReadoutFormatter) - they cache the last string
+    private final ReadoutFormatter boatSpeedFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter headingFmt = ReadoutFormatter.integer(3, ' ', "", "⁰");
+    private final ReadoutFormatter logFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter tripFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter depthFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter waterTempFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter polarSpeedFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter polarEffFmt = ReadoutFormatter.integer(0, ' ', "", "%");
+    private final ReadoutFormatter targetTwaFmt = ReadoutFormatter.integer(3, ' ', "", "⁰");
+    private final ReadoutFormatter targetVmgFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter sogFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter cogFmt = ReadoutFormatter.integer(3, ' ', "", "⁰");
+    private final ReadoutFormatter xteFmt = ReadoutFormatter.decimal(1);
+    // gps date is only formatted when the day changes and gps time when the second changes
+    private SimpleDateFormat gpsDateFormat = null;
+    private long gpsDateKey = Long.MIN_VALUE;
+    private String gpsDateString;
+    private final char[] gpsTimeBuf = new char[12];
+    private long gpsTimeKey = Long.MIN_VALUE;
+    private String gpsTimeString;
+
     /** boat speed formatted string */
-    @SuppressLint("DefaultLocale")
     public String boatSpeedString() {
         if (boatSpeed < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", boatSpeed);
+            return boatSpeedFmt.format(boatSpeed);
     }
 
     /** heading formatted string */
-    @SuppressLint("DefaultLocale")
     public String headingString() {
         if (heading < 0.0)
             return "---" + "⁰";
         else
-            return String.format("%3d", (int)heading)+"⁰";
+            return headingFmt.format(heading);
     }
 
     /** log formatted string */
-    @SuppressLint("DefaultLocale")
     public String logString() {
         if (log < 0.0)
             return "--.-";
         else
-            return String.format("%.1f", log);
+            return logFmt.format(log);
     }
 
     /** trip formatted string */
-    @SuppressLint("DefaultLocale")
     public String tripString() {
         if (trip < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", trip);
+            return tripFmt.format(trip);
     }
 
     /** depth formatted string */
-    @SuppressLint("DefaultLocale")
     public String depthString() {
         if (depth < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", depth);
+            return depthFmt.format(depth);
     }
 
     /** water temperature formatted string */
-    @SuppressLint("DefaultLocale")
     public String waterTempString() {
         if (waterTemp < 0.0)
             return "--.-";
         else
-            return String.format("%.1f", waterTemp);
+            return waterTempFmt.format(waterTemp);
     }
 
     /** polar speed formatted string */
-    @SuppressLint("DefaultLocale")
     public String polarSpeedString() {
         if (polarSpeed < 0.0001)
             return "-.-";
         else
-            return String.format("%.1f", polarSpeed);
+            return polarSpeedFmt.format(polarSpeed);
     }
 
     /** polar efficiency formatted string */
-    @SuppressLint("DefaultLocale")
     public String polarEffString() {
         if (polarEff < 0.0001)
             return "--%";
         else
-            return String.format("%d%%", (int)polarEff);
+            return polarEffFmt.format(polarEff);
+    }
+
+    /** target true wind angle formatted string */
+    public String targetTwaString() {
+        if (targetTwa < 0.0001)
+            return "---" + "⁰";
+        else
+            return targetTwaFmt.format(targetTwa);
+    }
+
+    /** target VMG formatted string */
+    public String targetVmgString() {
+        if (targetVmg < 0.0001)
+            return "-.-";
+        else
+            return targetVmgFmt.format(targetVmg);
     }
 
     /** sog formatted string */
-    @SuppressLint("DefaultLocale")
     public String sogString() {
         if (sog < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", sog);
+            return sogFmt.format(sog);
     }
 
     /** cog formatted string */
-    @SuppressLint("DefaultLocale")
     public String cogString() {
         if (cog < 0.0)
             return "---" + "⁰";
         else
-            return String.format("%3d", (int)cog)+"⁰";
+            return cogFmt.format(cog);
     }
 
     /** gps date */
     public String gpsDate() {
         if (gpsTime.getTime() <= 60L * 60L * 24L * 1000L)
             return ("-- -- ----");
-        @SuppressLint("SimpleDateFormat")
-        SimpleDateFormat df = new SimpleDateFormat("dd-MM-yyyy");
-        df.setTimeZone(TimeZone.getTimeZone("GMT"));
-        return df.format(gpsTime);
+        long day = Math.floorDiv(gpsTime.getTime(), MSEC_PER_DAY);
+        if (day != gpsDateKey) {
+            if (gpsDateFormat == null) {
+                gpsDateFormat = new SimpleDateFormat("dd-MM-yyyy", Locale.US);
+                gpsDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+            }
+            gpsDateString = gpsDateFormat.format(gpsTime);
+            gpsDateKey = day;
+        }
+        return gpsDateString;
     }
 
     /** gps time */
     public String gpsTime() {
         if (gpsTime.getTime() == 0L)
             return ("--:--:-- GMT");
-        @SuppressLint("SimpleDateFormat")
-        SimpleDateFormat df = new SimpleDateFormat("HH:mm:ss z");
-        df.setTimeZone(TimeZone.getTimeZone("GMT"));
-        return df.format(gpsTime);
+        long second = Math.floorDiv(gpsTime.getTime(), 1000L);
+        if (second != gpsTimeKey) {
+            long secOfDay = Math.floorMod(second, 24L * 60L * 60L);
+            int len = ReadoutFormatter.appendDigits(gpsTimeBuf, 0, secOfDay / 3600, 2, '0');
+            gpsTimeBuf[len++] = ':';
+            len = ReadoutFormatter.appendDigits(gpsTimeBuf, len, secOfDay / 60 % 60, 2, '0');
+            gpsTimeBuf[len++] = ':';
+            len = ReadoutFormatter.appendDigits(gpsTimeBuf, len, secOfDay % 60, 2, '0');
+            " GMT".getChars(0, 4, gpsTimeBuf, len);
+            gpsTimeString = new String(gpsTimeBuf, 0, len + 4);
+            gpsTimeKey = second;
+        }
+        return gpsTimeString;
     }
 
     /** xte formatted string */
-    @SuppressLint("DefaultLocale")
     public String xteString() {
         if (xte < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", xte);
+            return xteFmt.format(xte);
     }
 
     /**
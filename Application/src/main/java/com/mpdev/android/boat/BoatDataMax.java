@@ -1,6 +1,5 @@
 package com.mpdev.android.boat;
 
-import android.annotation.SuppressLint;
 import android.os.Build;
 import android.support.annotation.RequiresApi;
 
@@ -8,13 +7,19 @@ import com.mpdev.android.boatinstruments.AppConfig;
 import com.mpdev.android.boatinstruments.MainActivity;
 import com.mpdev.android.logger.Log;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
 
 /**
  * Class BoatDataMax
@@ -32,14 +37,14 @@ public class BoatDataMax {
 
     public static final String TAG = "BoatDataMax";
 
-    ////////// Boat data maximum fields and timestamp for each field
-    double boatSpeedMax; public Date boatSpeedMax_t;
-    public double trueWindMax; public Date trueWindMax_t;
-    public double appWindMax; public Date appWindMax_t;
-    public String gndWindMax; public Date gndWindMax_t;
-    double polarEffMax; public Date polarEffMax_t;
-    double waterTempMax; public Date waterTempMax_t;
-    double sogMax; public Date sogMax_t;
+    ////////// Boat data maximum fields and timestamp for each field (epoch millis - 0 if not set)
+    double boatSpeedMax; public long boatSpeedMax_t;
+    public double trueWindMax; public long trueWindMax_t;
+    public double appWindMax; public long appWindMax_t;
+    public String gndWindMax; public long gndWindMax_t;
+    double polarEffMax; public long polarEffMax_t;
+    double waterTempMax; public long waterTempMax_t;
+    double sogMax; public long sogMax_t;
 
     /**
      * Default constructor
@@ -57,7 +62,7 @@ public class BoatDataMax {
         sogMax = -1.0;
         // init timestamps
         boatSpeedMax_t = trueWindMax_t = appWindMax_t = gndWindMax_t = waterTempMax_t =
-                polarEffMax_t = sogMax_t = new Date(0L);
+                polarEffMax_t = sogMax_t = 0L;
     }
 
     /**
@@ -66,27 +71,29 @@ public class BoatDataMax {
      * @param boatData      the current boat data
      */
     @RequiresApi(api = Build.VERSION_CODES.O)
-    public void updateMaxBoatData(BoatData boatData) {
+    public synchronized void updateMaxBoatData(BoatData boatData) {
         // first check if a request to reset max values has been raised
         if (AppConfig.resetMaxValues) {
             resetMax();
             AppConfig.resetMaxValues = false;
         }
         boolean hasNewMax = false;
+        // the fields have just been updated - the max timestamp is the current wall clock time
+        long now = System.currentTimeMillis();
         // check all values for a new maximum and update accordingly
         if (boatData.boatSpeed > boatSpeedMax + 0.001) {
             boatSpeedMax = boatData.boatSpeed;
-            boatSpeedMax_t = boatData.boatSpeed_t;
+            boatSpeedMax_t = now;
             hasNewMax = true;
         }
         if (boatData.appWind.speed > appWindMax + 0.001) {
             appWindMax = boatData.appWind.speed;
-            appWindMax_t = boatData.appWind_t;
+            appWindMax_t = now;
             hasNewMax = true;
         }
         if (boatData.trueWind.speed > trueWindMax + 0.001) {
             trueWindMax = boatData.trueWind.speed;
-            trueWindMax_t = boatData.trueWind_t;
+            trueWindMax_t = now;
             // if we have a new true wind max then calculate gnd wind max
             gndWindMax = BoatWind.getBeaufort(trueWindMax);
             gndWindMax_t = trueWindMax_t;
@@ -94,22 +101,22 @@ public class BoatDataMax {
         }
         if (boatData.waterTemp > waterTempMax + 0.001) {
             waterTempMax = boatData.waterTemp;
-            waterTempMax_t = boatData.waterTemp_t;
+            waterTempMax_t = now;
             hasNewMax = true;
         }
         if (boatData.polarEff > polarEffMax + 0.001) {
             polarEffMax = boatData.polarEff;
-            polarEffMax_t = boatData.polarEff_t;
+            polarEffMax_t = now;
             hasNewMax = true;
         }
         if (boatData.sog > sogMax + 0.001) {
             sogMax = boatData.sog;
-            sogMax_t = boatData.sog_t;
+            sogMax_t = now;
             hasNewMax = true;
         }
-        // if a new max has been observed then save to file
+        // if a new max has been observed then save to file (in the background)
         if (hasNewMax)
-            saveMaxBoatData();
+            requestSave();
     }
 
     // json file keys for the max values and timestamps
@@ -127,6 +134,8 @@ public class BoatDataMax {
     static final String KEY_MAX_POLAR_EFF_T = "maxPolarEffTime";
     static final String KEY_MAX_SOG = "maxSog";
     static final String KEY_MAX_SOG_T = "maxSogTime";
+    // suffix of the temporary file used while saving
+    static final String TMP_SUFFIX = ".tmp";
 
     /**
      * loads the maximum values from file (from previous run)
@@ -143,38 +152,38 @@ public class BoatDataMax {
 
             boatSpeedMax = jMax.getDouble(KEY_MAX_BOAT_SPEED);
             sb.append("max boat speed: ").append(boatSpeedMax).append(" ");
-            boatSpeedMax_t = new Date (jMax.getLong(KEY_MAX_BOAT_SPEED_T));
-            sb.append(boatSpeedMax_t.toString()).append("\n");
+            boatSpeedMax_t = jMax.getLong(KEY_MAX_BOAT_SPEED_T);
+            sb.append(new Date(boatSpeedMax_t).toString()).append("\n");
 
             appWindMax = jMax.getDouble(KEY_MAX_APP_WIND);
             sb.append("max app wind speed: ").append(appWindMax).append(" ");
-            appWindMax_t = new Date (jMax.getLong(KEY_MAX_APP_WIND_T));
-            sb.append(appWindMax_t.toString()).append("\n");
+            appWindMax_t = jMax.getLong(KEY_MAX_APP_WIND_T);
+            sb.append(new Date(appWindMax_t).toString()).append("\n");
 
             trueWindMax = jMax.getDouble(KEY_MAX_TRUE_WIND);
             sb.append("max true wind speed: ").append(trueWindMax).append(" ");
-            trueWindMax_t = new Date (jMax.getLong(KEY_MAX_TRUE_WIND_T));
-            sb.append(trueWindMax_t.toString()).append("\n");
+            trueWindMax_t = jMax.getLong(KEY_MAX_TRUE_WIND_T);
+            sb.append(new Date(trueWindMax_t).toString()).append("\n");
 
             gndWindMax = jMax.getString(KEY_MAX_GND_WIND);
             sb.append("max gnd wind force: ").append(gndWindMax).append(" ");
-            gndWindMax_t = new Date (jMax.getLong(KEY_MAX_GND_WIND_T));
-            sb.append(gndWindMax_t.toString()).append("\n");
+            gndWindMax_t = jMax.getLong(KEY_MAX_GND_WIND_T);
+            sb.append(new Date(gndWindMax_t).toString()).append("\n");
 
             waterTempMax = jMax.getDouble(KEY_MAX_WATER_TEMP);
             sb.append("max water temperature: ").append(waterTempMax).append(" ");
-            waterTempMax_t = new Date (jMax.getLong(KEY_MAX_WATER_TEMP_T));
-            sb.append(waterTempMax_t.toString()).append("\n");
+            waterTempMax_t = jMax.getLong(KEY_MAX_WATER_TEMP_T);
+            sb.append(new Date(waterTempMax_t).toString()).append("\n");
 
             polarEffMax = jMax.getDouble(KEY_MAX_POLAR_EFF);
             sb.append("max polar efficiency: ").append(polarEffMax).append(" ");
-            polarEffMax_t = new Date (jMax.getLong(KEY_MAX_POLAR_EFF_T));
-            sb.append(polarEffMax_t.toString()).append("\n");
+            polarEffMax_t = jMax.getLong(KEY_MAX_POLAR_EFF_T);
+            sb.append(new Date(polarEffMax_t).toString()).append("\n");
 
             sogMax = jMax.getDouble(KEY_MAX_SOG);
             sb.append("max sog: ").append(sogMax).append(" ");
-            sogMax_t = new Date (jMax.getLong(KEY_MAX_SOG_T));
-            sb.append(sogMax_t.toString()).append("\n");
+            sogMax_t = jMax.getLong(KEY_MAX_SOG_T);
+            sb.append(new Date(sogMax_t).toString()).append("\n");
 
             Log.i(TAG, sb.toString());
 
@@ -183,52 +192,140 @@ public class BoatDataMax {
         }
     }
 
+    ////////// background save of the max values
+    // the new max values are saved by the writer thread at most once every AppConfig.MAX_VALUES_SAVE_INTERVAL
+    // so that a building breeze does not rewrite the file on every message
+    private static Timer saveTimer = null;
+    // true when the values in memory have not been saved yet (guarded by this)
+    private boolean unsaved = false;
+    // true when a save task is waiting in the timer (guarded by this)
+    private boolean saveScheduled = false;
+    // time of the last save (see BoatData.now()) (guarded by this)
+    private long lastSaveTime = 0L;
+    // serialises the file writes (taken before this)
+    private final Object fileLock = new Object();
+
+    /** the save task - runs in the writer thread */
+    private class SaveTask extends TimerTask {
+        @Override
+        @RequiresApi(api = Build.VERSION_CODES.O)
+        public void run() {
+            saveMaxBoatData();
+        }
+    }
+
+    /**
+     * marks the values as not saved and schedules a save if one is not already pending
+     * all the changes until the save runs are written together
+     */
+    private synchronized void requestSave() {
+        unsaved = true;
+        if (saveScheduled)
+            return;
+        saveScheduled = true;
+        // the first save is immediate
+        long delay = (lastSaveTime == 0L) ? 0L
+                : Math.max(0L, lastSaveTime + AppConfig.MAX_VALUES_SAVE_INTERVAL - BoatData.now());
+        writerTimer().schedule(new SaveTask(), delay);
+    }
+
+    /** the writer thread (shared by all the instances) */
+    private static synchronized Timer writerTimer() {
+        if (saveTimer == null)
+            saveTimer = new Timer("BoatDataMaxWriter", true);
+        return saveTimer;
+    }
+
     /**
      * saves the maximum values together with the timestamp in a file
      * so that they can be retrieved after a restart
+     * the file is written to a temporary file first and then renamed so that it is never left half written
+     * nothing is written if there are no new values since the last save
+     * normally called by the writer thread - also called directly to flush the values when the display is paused
      */
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public void saveMaxBoatData() {
 
         String fileName = MainActivity.appFilePath + AppConfig.MAX_VALUES_FILENAME;
-        try {
-            PrintWriter conf = new PrintWriter(fileName);
-
-            JSONObject jMax = new JSONObject()
-                    .put(KEY_MAX_BOAT_SPEED, boatSpeedMax)
-                    .put(KEY_MAX_BOAT_SPEED_T, boatSpeedMax_t.getTime())
-                    .put(KEY_MAX_APP_WIND, appWindMax)
-                    .put(KEY_MAX_APP_WIND_T, appWindMax_t.getTime())
-                    .put(KEY_MAX_TRUE_WIND, trueWindMax)
-                    .put(KEY_MAX_TRUE_WIND_T, trueWindMax_t.getTime())
-                    .put(KEY_MAX_GND_WIND, gndWindMax)
-                    .put(KEY_MAX_GND_WIND_T, gndWindMax_t.getTime())
-                    .put(KEY_MAX_WATER_TEMP, waterTempMax)
-                    .put(KEY_MAX_WATER_TEMP_T, waterTempMax_t.getTime())
-                    .put(KEY_MAX_POLAR_EFF, polarEffMax)
-                    .put(KEY_MAX_POLAR_EFF_T, polarEffMax_t.getTime())
-                    .put(KEY_MAX_SOG, sogMax)
-                    .put(KEY_MAX_SOG_T, sogMax_t.getTime());
-
-            String maxData = jMax.toString(2);
-            conf.println(maxData);
-            conf.close();
-            Log.i(TAG, "maximum data values saved to file: "+fileName);
-            Log.i(TAG, maxData);
-        } catch (Exception e) {
-            Log.e(TAG, "could not write max data; file: " + e.toString());
+        synchronized (fileLock) {
+            String maxData;
+            // take a snapshot of the values
+            synchronized (this) {
+                saveScheduled = false;
+                if (!unsaved)
+                    return;
+                unsaved = false;
+                lastSaveTime = BoatData.now();
+                try {
+                    maxData = toJson().toString(2);
+                } catch (Exception e) {
+                    Log.e(TAG, "could not write max data; json: " + e.toString());
+                    return;
+                }
+            }
+            try {
+                Path file = Paths.get(fileName);
+                Path tmpFile = Paths.get(fileName + TMP_SUFFIX);
+                Files.write(tmpFile, (maxData + "\n").getBytes(StandardCharsets.UTF_8));
+                Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+                Log.i(TAG, "maximum data values saved to file: " + fileName);
+                Log.i(TAG, maxData);
+            } catch (Exception e) {
+                Log.e(TAG, "could not write max data; file: " + e.toString());
+            }
         }
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.O)
-    public void resetMax() {
-        Log.d(TAG, "entering resetMax");
-        // remove max values file
-        String fileName = MainActivity.appFilePath + AppConfig.MAX_VALUES_FILENAME;
-        try {
-            Files.delete(Paths.get(fileName));
-        } catch (Exception e) {
-            Log.e(TAG, "could not delete max data; file: " + e.toString());
+    /** the max values and timestamps as a json object */
+    private JSONObject toJson() throws JSONException {
+        return new JSONObject()
+                .put(KEY_MAX_BOAT_SPEED, boatSpeedMax)
+                .put(KEY_MAX_BOAT_SPEED_T, boatSpeedMax_t)
+                .put(KEY_MAX_APP_WIND, appWindMax)
+                .put(KEY_MAX_APP_WIND_T, appWindMax_t)
+                .put(KEY_MAX_TRUE_WIND, trueWindMax)
+                .put(KEY_MAX_TRUE_WIND_T, trueWindMax_t)
+                .put(KEY_MAX_GND_WIND, gndWindMax)
+                .put(KEY_MAX_GND_WIND_T, gndWindMax_t)
+                .put(KEY_MAX_WATER_TEMP, waterTempMax)
+                .put(KEY_MAX_WATER_TEMP_T, waterTempMax_t)
+                .put(KEY_MAX_POLAR_EFF, polarEffMax)
+                .put(KEY_MAX_POLAR_EFF_T, polarEffMax_t)
+                .put(KEY_MAX_SOG, sogMax)
+                .put(KEY_MAX_SOG_T, sogMax_t);
+    }
+
+    /**
+     * copies the max values and their timestamps from another max values object
+     * used for the display snapshot - the values are read under the lock of the source
+     * so each value and its timestamp are taken together
+     * @param src       the max values to copy from
+     */
+    public void copyFrom(BoatDataMax src) {
+        synchronized (src) {
+            boatSpeedMax = src.boatSpeedMax;
+            boatSpeedMax_t = src.boatSpeedMax_t;
+            trueWindMax = src.trueWindMax;
+            trueWindMax_t = src.trueWindMax_t;
+            appWindMax = src.appWindMax;
+            appWindMax_t = src.appWindMax_t;
+            gndWindMax = src.gndWindMax;
+            gndWindMax_t = src.gndWindMax_t;
+            polarEffMax = src.polarEffMax;
+            polarEffMax_t = src.polarEffMax_t;
+            waterTempMax = src.waterTempMax;
+            waterTempMax_t = src.waterTempMax_t;
+            sogMax = src.sogMax;
+            sogMax_t = src.sogMax_t;
         }
+    }
+
+    /**
+     * resets the max values
+     * the reset values are saved to the file by the writer thread
+     */
+    public synchronized void resetMax() {
+        Log.d(TAG, "entering resetMax");
         // init data in memory
         boatSpeedMax = -1.0;
         trueWindMax = -1.0;
@@ -239,77 +336,84 @@ public class BoatDataMax {
         sogMax = -1.0;
         // init timestamps
         boatSpeedMax_t = trueWindMax_t = appWindMax_t = gndWindMax_t = waterTempMax_t =
-                polarEffMax_t = sogMax_t = new Date(0L);
+                polarEffMax_t = sogMax_t = 0L;
+        // overwrite the values in the file
+        requestSave();
     }
 
     /////////////////////////////////////////////////////////////////////////
     // return max data values as formatted strings to be displayed on screen
     /////////////////////////////////////////////////////////////////////////
 
+    // formatters for the display (see ReadoutFormatter)
+    private final ReadoutFormatter boatSpeedMaxFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter appWindMaxFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter waterTempMaxFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter trueWindMaxFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter polarEffMaxFmt = ReadoutFormatter.decimal(1);
+    private final ReadoutFormatter sogMaxFmt = ReadoutFormatter.decimal(1);
+    private static final String TIME_FORMAT = "yyyyMMdd\nHH:mm:ss ";
+    private SimpleDateFormat timeFormat = null;
+    private final Date timeDate = new Date(0L);
+
     /** max boat speed formatted string */
-    @SuppressLint("DefaultLocale")
     public String boatSpeedMaxString() {
         if (boatSpeedMax < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", boatSpeedMax);
+            return boatSpeedMaxFmt.format(boatSpeedMax);
     }
 
     /** max app wind speed formatted string */
-    @SuppressLint("DefaultLocale")
     public String appWindSpeedMaxString() {
         if (appWindMax < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", appWindMax);
+            return appWindMaxFmt.format(appWindMax);
     }
 
     /** max ground wind formatted string */
-    @SuppressLint("DefaultLocale")
     public String gndWindForceMaxString() {
         return gndWindMax;
     }
 
     /** max water temperature formatted string */
-    @SuppressLint("DefaultLocale")
     public String waterTempMaxString() {
         if (waterTempMax < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", waterTempMax);
+            return waterTempMaxFmt.format(waterTempMax);
     }
 
     /** max true wind speed formatted string */
-    @SuppressLint("DefaultLocale")
     public String trueWindSpeedMaxString() {
         if (trueWindMax < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", trueWindMax);
+            return trueWindMaxFmt.format(trueWindMax);
     }
 
     /** max polar efficiency formatted string */
-    @SuppressLint("DefaultLocale")
     public String polarEffMaxString() {
         if (polarEffMax < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", polarEffMax);
+            return polarEffMaxFmt.format(polarEffMax);
     }
 
     /** max sog formatted string */
-    @SuppressLint("DefaultLocale")
     public String sogMaxString() {
         if (sogMax < 0.0)
             return "-.-";
         else
-            return String.format("%.1f", sogMax);
+            return sogMaxFmt.format(sogMax);
     }
 
     /** max value timestamp formatted string */
-    public String maxValueTimeString(Date timeStamp) {
-        final String TIME_FORMAT = "yyyyMMdd\nHH:mm:ss ";
-        @SuppressLint("SimpleDateFormat") SimpleDateFormat dF = new SimpleDateFormat(TIME_FORMAT);
-        return dF.format(timeStamp);
+    public String maxValueTimeString(long timeStamp) {
+        if (timeFormat == null)
+            timeFormat = new SimpleDateFormat(TIME_FORMAT, Locale.US);
+        timeDate.setTime(timeStamp);
+        return timeFormat.format(timeDate);
     }
 }
@@ -18,6 +18,12 @@ import java.nio.file.Paths;
  * holds the data from the boat's polars
  * and calculates the maximum achievable speed for specific wind speed/angle
  *
+ * When the polar is loaded the table is resampled into a dense grid (GRID_ANGLE_STEP x GRID_SPEED_STEP)
+ * kept in a single float array, so a lookup is only index arithmetic and a bilinear interpolation
+ * between the 4 grid points around the wind - winds outside the table are clamped to its edges
+ * The last result is cached (the wind is quantised to 1/GRID_QUANTUM of a grid step)
+ * The best upwind and downwind VMG and their angles are also worked out for each wind speed in the grid
+ * so the targets are a lookup in a one-dimensional table
  */
 public class BoatPolar {
 
@@ -32,6 +38,44 @@ public class BoatPolar {
     static double[] windSpeedPolar;
     static double[][] polarSpeed;
 
+    // dense grid steps (degrees, knots) and highest wind speed in the grid
+    static final double GRID_ANGLE_STEP = 1.0;
+    static final double GRID_SPEED_STEP = 0.5;
+    static final double GRID_MAX_SPEED = 60.0;
+    // fraction of a grid step the cached wind is quantised to
+    private static final int GRID_QUANTUM = 16;
+    private static final double MAX_ANGLE = 180.0;
+
+    // the dense grid - row by wind speed, column by wind angle
+    private static volatile PolarGrid grid = null;
+    // last lookup: quantised wind (high 32 bits) and the polar speed (float bits) - -1 if none
+    // (the lookups are made by the read thread only - see BoatData)
+    private static long lastLookup = -1L;
+
+    /** the dense polar grid - not changed after it is built */
+    private static class PolarGrid {
+        final int numAngles;
+        final int numSpeeds;
+        final double maxSpeed;
+        final float[] speed;
+        // best upwind and downwind VMG and their wind angles for each wind speed (grid row)
+        final float[] upwindAngle;
+        final float[] upwindVmg;
+        final float[] downwindAngle;
+        final float[] downwindVmg;
+
+        PolarGrid(int numAngles, int numSpeeds) {
+            this.numAngles = numAngles;
+            this.numSpeeds = numSpeeds;
+            this.maxSpeed = (numSpeeds - 1) * GRID_SPEED_STEP;
+            this.speed = new float[numAngles * numSpeeds];
+            this.upwindAngle = new float[numSpeeds];
+            this.upwindVmg = new float[numSpeeds];
+            this.downwindAngle = new float[numSpeeds];
+            this.downwindVmg = new float[numSpeeds];
+        }
+    }
+
     /**
      * Constructor
      */
@@ -43,15 +87,81 @@ public class BoatPolar {
      * @return               ideal boat speed for this wind
      */
     static double getPolarSpeed(WindData trueWind) {
+        PolarGrid g = grid;
+        if (g == null || !(trueWind.angle > 0.0001) || !(trueWind.speed > 0.0001))
+            return 0.0;
 
-        int x, y;
-        double s, s1_1, s1_2, s2_1, s2_2, s1, s2;
+        // grid position in 1/GRID_QUANTUM steps (clamped to the grid)
+        int qx = (int) (Math.min(trueWind.angle, MAX_ANGLE) * (GRID_QUANTUM / GRID_ANGLE_STEP));
+        int qy = (int) (Math.min(trueWind.speed, g.maxSpeed) * (GRID_QUANTUM / GRID_SPEED_STEP));
+        int key = (qx << 16) | qy;
+        long last = lastLookup;
+        if ((int) (last >>> 32) == key)
+            return Float.intBitsToFloat((int) last);
+
+        int x = qx / GRID_QUANTUM;
+        int y = qy / GRID_QUANTUM;
+        int x1 = Math.min(x + 1, g.numAngles - 1);
+        int y1 = Math.min(y + 1, g.numSpeeds - 1);
+        float fx = (float) (qx - x * GRID_QUANTUM) / GRID_QUANTUM;
+        float fy = (float) (qy - y * GRID_QUANTUM) / GRID_QUANTUM;
+        float[] speed = g.speed;
+        int row = y * g.numAngles;
+        int row1 = y1 * g.numAngles;
+        float s1 = speed[row + x] + (speed[row + x1] - speed[row + x]) * fx;
+        float s2 = speed[row1 + x] + (speed[row1 + x1] - speed[row1 + x]) * fx;
+        float s = s1 + (s2 - s1) * fy;
+
+        lastLookup = ((long) key << 32) | (Float.floatToRawIntBits(s) & 0xFFFFFFFFL);
+        return s;
+    }
+
+    /**
+     * target true wind angle - the angle of the best VMG on the current tack (upwind or downwind)
+     * @param trueWind       true wind object
+     * @return               the target angle (degrees - 0 if not known)
+     */
+    static double getTargetTwa(WindData trueWind) {
+        PolarGrid g = grid;
+        if (g == null || !(trueWind.angle > 0.0001) || !(trueWind.speed > 0.0001))
+            return 0.0;
+        return vmgLookup(trueWind.angle < 90.0 ? g.upwindAngle : g.downwindAngle, trueWind.speed, g);
+    }
 
-        if (trueWind.angle <= 0.0001 || trueWind.speed == 0.0001)
+    /**
+     * target VMG - the best VMG on the current tack (towards the wind upwind, away from it downwind)
+     * @param trueWind       true wind object
+     * @return               the target VMG (knots - 0 if not known)
+     */
+    static double getTargetVmg(WindData trueWind) {
+        PolarGrid g = grid;
+        if (g == null || !(trueWind.angle > 0.0001) || !(trueWind.speed > 0.0001))
             return 0.0;
+        return vmgLookup(trueWind.angle < 90.0 ? g.upwindVmg : g.downwindVmg, trueWind.speed, g);
+    }
 
-        for (x=0; x < maxX && trueWind.angle > windAnglePolar[x]; ++x);
-        for (y=0; y < maxY && trueWind.speed > windSpeedPolar[y]; ++y);
+    /** interpolates a VMG table between the two wind speeds around the wind (clamped to the grid) */
+    private static double vmgLookup(float[] table, double windSpeed, PolarGrid g) {
+        double fy = Math.min(windSpeed, g.maxSpeed) / GRID_SPEED_STEP;
+        int y = (int) fy;
+        int y1 = Math.min(y + 1, g.numSpeeds - 1);
+        return table[y] + (table[y1] - table[y]) * (fy - y);
+    }
+
+    /**
+     * calculates ideal boat speed from the polar table (used to build the dense grid)
+     * the angle and speed are clamped to the table edges
+     * @param angle          true wind angle (degrees)
+     * @param speed          true wind speed (knots)
+     * @return               ideal boat speed for this wind
+     */
+    static double getTableSpeed(double angle, double speed) {
+
+        int x, y;
+        double s, s1_1, s1_2, s2_1, s2_2, s1, s2, fx, fy;
+
+        for (x=1; x < maxX-1 && angle > windAnglePolar[x]; ++x);
+        for (y=1; y < maxY-1 && speed > windSpeedPolar[y]; ++y);
 
         s1_1 = polarSpeed[y-1][x-1];
         s1_2 = polarSpeed[y][x-1];
@@ -59,14 +169,52 @@ public class BoatPolar {
         s2_1 = polarSpeed[y-1][x];
         s2_2 = polarSpeed[y][x];
 
-        s1 = s1_1 + (s1_2 - s1_1) * (trueWind.angle - windAnglePolar[x-1]) / (windAnglePolar[x] - windAnglePolar[x-1]);
-        s2 = s2_1 + (s2_2 - s2_1) * (trueWind.angle - windAnglePolar[x-1]) / (windAnglePolar[x] - windAnglePolar[x-1]);
+        fx = clamp((angle - windAnglePolar[x-1]) / (windAnglePolar[x] - windAnglePolar[x-1]));
+        fy = clamp((speed - windSpeedPolar[y-1]) / (windSpeedPolar[y] - windSpeedPolar[y-1]));
 
-        s = s1 + (s2 - s1) * (trueWind.speed - windSpeedPolar[y-1]) / (windSpeedPolar[y] - windSpeedPolar[y-1]);
+        s1 = s1_1 + (s2_1 - s1_1) * fx;
+        s2 = s1_2 + (s2_2 - s1_2) * fx;
+
+        s = s1 + (s2 - s1) * fy;
 
         return s;
     }
 
+    private static double clamp(double f) {
+        return (f < 0.0) ? 0.0 : (f > 1.0) ? 1.0 : f;
+    }
+
+    /** resamples the polar table into the dense grid and finds the best VMG angles for each wind speed */
+    private static PolarGrid buildGrid() {
+        double maxSpeed = Math.min(windSpeedPolar[maxY-1], GRID_MAX_SPEED);
+        PolarGrid g = new PolarGrid((int) (MAX_ANGLE / GRID_ANGLE_STEP) + 1, (int) (maxSpeed / GRID_SPEED_STEP) + 1);
+        for (int j=0; j < g.numSpeeds; ++j) {
+            for (int i=0; i < g.numAngles; ++i)
+                g.speed[j * g.numAngles + i] = (float) getTableSpeed(i * GRID_ANGLE_STEP, j * GRID_SPEED_STEP);
+            // VMG = boat speed x cos(angle) - positive towards the wind, negative away from it
+            for (int i=0; i < g.numAngles; ++i) {
+                double angle = i * GRID_ANGLE_STEP;
+                double vmg = g.speed[j * g.numAngles + i] * Math.cos(Math.toRadians(angle));
+                if (angle < 90.0 && vmg > g.upwindVmg[j]) {
+                    g.upwindVmg[j] = (float) vmg;
+                    g.upwindAngle[j] = (float) angle;
+                }
+                if (angle > 90.0 && -vmg > g.downwindVmg[j]) {
+                    g.downwindVmg[j] = (float) -vmg;
+                    g.downwindAngle[j] = (float) angle;
+                }
+            }
+        }
+        // no VMG in the lightest winds - take the angles of the next wind speed with a VMG
+        for (int j=g.numSpeeds-2; j >= 0; --j) {
+            if (g.upwindVmg[j] == 0.0f)
+                g.upwindAngle[j] = g.upwindAngle[j+1];
+            if (g.downwindVmg[j] == 0.0f)
+                g.downwindAngle[j] = g.downwindAngle[j+1];
+        }
+        return g;
+    }
+
     /**
      * loads the polar curve from the input file
      */
@@ -114,10 +262,18 @@ public class BoatPolar {
                 for (int i=0; i < maxX; ++i)
                     polarSpeed[j][i] = jbSpeed.getDouble(i);
             }
+            if (maxX < 2 || maxY < 2)
+                throw new IllegalArgumentException("the polar needs at least 2 wind angles and 2 wind speeds");
         } catch (Exception e) {
             sb.append("ERROR in reading the json polar file: ").append(e.toString());
+            return sb.toString();
         }
 
+        // resample into the dense grid
+        grid = buildGrid();
+        lastLookup = -1L;
+        sb.append("polar grid: ").append(grid.numAngles).append(" x ").append(grid.numSpeeds).append("\n");
+
         // set the flag for the polar curve to success
         polarLoaded = true;
 
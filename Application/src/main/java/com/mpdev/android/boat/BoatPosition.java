@@ -1,7 +1,7 @@
 package com.mpdev.android.boat;
 
-import android.annotation.SuppressLint;
-
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 
 public class BoatPosition {
@@ -46,6 +46,34 @@ public class BoatPosition {
             }
         }
 
+        /**
+         * copy lat and long from another position
+         */
+        void copyFrom(PositionData src) {
+            latDeg = src.latDeg;
+            latMin = src.latMin;
+            latNs = src.latNs;
+            longDeg = src.longDeg;
+            longMin = src.longMin;
+            longEw = src.longEw;
+        }
+
+        /** the latitude in degrees (+ve North) - NaN if not known */
+        public double latitude() {
+            if (latDeg < 0)
+                return Double.NaN;
+            double lat = latDeg + latMin / 60.0;
+            return latNs.equals("S") ? -lat : lat;
+        }
+
+        /** the longitude in degrees (+ve East) - NaN if not known */
+        public double longitude() {
+            if (longDeg < 0)
+                return Double.NaN;
+            double lon = longDeg + longMin / 60.0;
+            return longEw.equals("W") ? -lon : lon;
+        }
+
         /**
          * convert position data to string
          */
@@ -65,20 +93,54 @@ public class BoatPosition {
             if (latLong.equals("long") && longDeg < 0)
                 return "---" + "⁰" + "--.---" + "'";
 
-            String s = "";
-            DecimalFormat dfDegLat = new DecimalFormat("00");
-            DecimalFormat dfDegLong = new DecimalFormat("000");
-            DecimalFormat dfMin = new DecimalFormat("00.000");
             if (latLong.equals("lat")) {
-                s = dfDegLat.format(latDeg)+"⁰"+dfMin.format(latMin)+"'";
-                s = s + latNs;
+                // build the string only when the displayed value changes
+                long key = positionKey(latDeg, latMin);
+                if (key != latKey || latString == null || !latNs.equals(latLast)) {
+                    latString = format(latDeg, 2, key, latNs);
+                    latKey = key;
+                    latLast = latNs;
+                }
+                return latString;
             }
             else
             if (latLong.equals("long")) {
-                s = dfDegLong.format(longDeg)+"⁰"+dfMin.format(longMin)+"'";
-                s = s + longEw;
+                long key = positionKey(longDeg, longMin);
+                if (key != longKey || longString == null || !longEw.equals(longLast)) {
+                    longString = format(longDeg, 3, key, longEw);
+                    longKey = key;
+                    longLast = longEw;
+                }
+                return longString;
             }
-            return s;
+            return "";
+        }
+
+        // cached lat and long strings and the values they were created from
+        private String latString = null, longString = null;
+        private long latKey, longKey;
+        private String latLast, longLast;
+        private final char[] buf = new char[16];
+
+        /** degrees and minutes (rounded half even to 3 decimals as DecimalFormat does) packed in one number */
+        private static long positionKey(int degrees, double minutes) {
+            double scaled = minutes * 1000.0;
+            long min = Math.round(scaled);
+            if (Math.abs(Math.abs(scaled - min) - 0.5) < 1e-6)
+                min = new BigDecimal(minutes).setScale(3, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+            return (long) degrees * 100000L + min;
+        }
+
+        /** formats degrees and minutes as dd⁰mm.mmm'N */
+        private String format(int degrees, int degWidth, long key, String nSeW) {
+            long min = key % 100000L;
+            int len = ReadoutFormatter.appendDigits(buf, 0, degrees, degWidth, '0');
+            buf[len++] = '⁰';
+            len = ReadoutFormatter.appendDigits(buf, len, min / 1000, 2, '0');
+            buf[len++] = '.';
+            len = ReadoutFormatter.appendDigits(buf, len, min % 1000, 3, '0');
+            buf[len++] = '\'';
+            return new String(buf, 0, len) + nSeW;
         }
     } // Class PositionData
 
@@ -109,25 +171,38 @@ public class BoatPosition {
             this.distance = distance;
             this.wpCoord = wpCoord;
         }
+        /**
+         * copy all the values from another waypoint (the coordinates are copied in place)
+         */
+        void copyFrom(WayPoint src) {
+            name = src.name;
+            bearing = src.bearing;
+            distance = src.distance;
+            wpCoord.copyFrom(src.wpCoord);
+        }
+
+        // formatters for the display (see ReadoutFormatter)
+        private final ReadoutFormatter distFmt1 = ReadoutFormatter.decimal(1);
+        private final ReadoutFormatter distFmt2 = ReadoutFormatter.decimal(2);
+        private final ReadoutFormatter bearingFmt = ReadoutFormatter.integer(3, '0', "", "⁰");
+
         /** waypoint distance formatted to string */
-        @SuppressLint("DefaultLocale")
         public String distString() {
             if (distance < 0.0)
                 return "-.-";
 
             if (distance > 10.0)
-                return String.format("%.1f", distance);
+                return distFmt1.format(distance);
             else
-                return String.format("%.2f", distance);
+                return distFmt2.format(distance);
         }
 
         /** bearing formatted string */
-        @SuppressLint("DefaultLocale")
         public String bearingString() {
             if (bearing < 0.0)
                 return "---" + "⁰";
             else
-                return String.format("%03d", (int)bearing) + "⁰";
+                return bearingFmt.format(bearing);
         }
 
         /**
@@ -1,7 +1,5 @@
 package com.mpdev.android.boat;
 
-import android.annotation.SuppressLint;
-
 import java.lang.Math;
 import java.text.DecimalFormat;
 
@@ -58,26 +56,43 @@ public class BoatWind {
             this.direction = direction;
         }
 
+        /**
+         * copy all the values from another wind data object
+         */
+        void copyFrom(WindData src) {
+            speed = src.speed;
+            angle = src.angle;
+            pSb = src.pSb;
+            direction = src.direction;
+            force = src.force;
+            flag = src.flag;
+        }
+
+        // formatters for the display (see ReadoutFormatter) - they cache the last string
+        private final ReadoutFormatter speedFmt = ReadoutFormatter.decimal(1);
+        private final ReadoutFormatter anglePortFmt = ReadoutFormatter.integer(3, ' ', ">", "⁰");
+        private final ReadoutFormatter angleStbdFmt = ReadoutFormatter.integer(3, ' ', "", "⁰<");
+        // ground wind string - force and direction come from constant tables so they are compared by reference
+        private String gndWindString = null;
+        private String gndWindForce = null, gndWindDirection = null;
+
         /** wind speed formatted string */
-        @SuppressLint("DefaultLocale")
         public String speedString() {
             if (speed < 0.0)
                 return "-.-";
             else
-                return String.format("%.1f", speed);
+                return speedFmt.format(speed);
         }
 
         /** wind angle formatted string */
-        @SuppressLint("DefaultLocale")
         public String angleString() {
             if (angle < 0.0)
                 return "---" + "⁰";
 
-            String s = String.format("%3d", (int)angle) + "⁰";
             if (pSb.equals("P"))
-                return ">"+s;
+                return anglePortFmt.format(angle);
             else
-                return s+"<";
+                return angleStbdFmt.format(angle);
         }
 
         /**
@@ -94,7 +109,13 @@ public class BoatWind {
                 s = s + " " + pSb;
             }
             else if (flag.equals("G")) {
-                s = force + "  " + direction;
+                // only build the string when force or direction change
+                if (force != gndWindForce || direction != gndWindDirection) {
+                    gndWindString = force + "  " + direction;
+                    gndWindForce = force;
+                    gndWindDirection = direction;
+                }
+                s = gndWindString;
             }
             return s;
         }
@@ -159,7 +180,17 @@ public class BoatWind {
      * @return              the Beaufort force
      */
     static String getBeaufort (double windSpeed) {
-        double[] beaufortScale = {
+        int i;
+        // scan the scale and return the F-number
+        for (i = 0; i < 12; ++i) {
+            if (windSpeed < beaufortScale[i])
+                break;
+        }
+        return beaufortForce[i];
+    }
+
+    // upper limit of each Beaufort force
+    private static final double[] beaufortScale = {
                 1.0,   /* F0 */
                 3.9,   /* F1 */
                 6.9,   /* F2 */
@@ -173,15 +204,9 @@ public class BoatWind {
                 55.0,  /* F10 */
                 63.0   /* F11 */
              /* 63.0+     F12 */
-        };
-        int i;
-        // scan the scale and return the F-number
-        for (i = 0; i < 12; ++i) {
-            if (windSpeed < beaufortScale[i])
-                break;
-        }
-        return "F" + i;
-    }
+    };
+    private static final String[] beaufortForce =
+            { "F0", "F1", "F2", "F3", "F4", "F5", "F6", "F7", "F8", "F9", "F10", "F11", "F12" };
 
     /**
      * converts ground wind angle to ground wind direction (compass points)
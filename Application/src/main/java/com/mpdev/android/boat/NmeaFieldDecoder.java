@@ -0,0 +1,150 @@
+package com.mpdev.android.boat;
+
+/**
+ * Class NmeaFieldDecoder
+ * Decodes numeric NMEA fields directly from the characters of the message buffer
+ * so that no intermediate Strings are created (replaces substring / parseDouble / parseInt)
+ *
+ * Decimal numbers are accumulated as a fixed-point long mantissa and a number of decimals
+ * and are converted to double once at the end
+ * Invalid or empty fields return NaN (decimals) or NO_INT (integers)
+ */
+public class NmeaFieldDecoder {
+
+    // returned when an integer field is empty or not numeric
+    public static final int NO_INT = Integer.MIN_VALUE;
+
+    // max number of significant digits that fit in the long mantissa
+    private static final int MAX_DIGITS = 18;
+
+    // powers of 10 for the fixed-point to double conversion
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    /**
+     * Constructor - static methods only
+     */
+    private NmeaFieldDecoder() { }
+
+    /**
+     * decodes a decimal number ([+-]ddd.ddd)
+     * @param buf       the message buffer
+     * @param start     offset of the field in the buffer
+     * @param len       length of the field
+     * @return          the number or NaN if the field is empty or not a valid number
+     */
+    public static double decimal(byte[] buf, int start, int len) {
+        if (len <= 0)
+            return Double.NaN;
+        int end = start + len;
+        int i = start;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = (buf[i] == '-');
+            if (++i == end)
+                return Double.NaN;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; ++i) {
+            int c = buf[i];
+            if (c >= '0' && c <= '9') {
+                // ignore any digits beyond the precision of the mantissa
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    ++digits;
+                    if (decimals >= 0)
+                        ++decimals;
+                }
+            }
+            else if (c == '.' && decimals < 0)
+                decimals = 0;
+            else
+                return Double.NaN;
+        }
+        // at least one digit is required
+        if (digits == 0)
+            return Double.NaN;
+        double value = (decimals > 0) ? mantissa / POW10[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * decodes an integer number ([+-]ddd)
+     * @param buf       the message buffer
+     * @param start     offset of the field in the buffer
+     * @param len       length of the field
+     * @return          the number or NO_INT if the field is empty or not a valid integer
+     */
+    public static int integer(byte[] buf, int start, int len) {
+        if (len <= 0 || len > 10)
+            return NO_INT;
+        int end = start + len;
+        int i = start;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = (buf[i] == '-');
+            if (++i == end)
+                return NO_INT;
+        }
+        long value = 0;
+        for (; i < end; ++i) {
+            int c = buf[i];
+            if (c < '0' || c > '9')
+                return NO_INT;
+            value = value * 10 + (c - '0');
+        }
+        if (value > Integer.MAX_VALUE)
+            return NO_INT;
+        return negative ? (int) -value : (int) value;
+    }
+
+    /**
+     * decodes a fixed number of digits (e.g. hh, mm or ss in a hhmmss field)
+     * @param buf       the message buffer
+     * @param start     offset of the first digit in the buffer
+     * @param n         number of digits
+     * @return          the number or NO_INT if any of the characters is not a digit
+     */
+    public static int digits(byte[] buf, int start, int n) {
+        int value = 0;
+        for (int i = start; i < start + n; ++i) {
+            int c = buf[i];
+            if (c < '0' || c > '9')
+                return NO_INT;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * decodes the degrees of a latitude (DDMM.mmmm) or longitude (DDDMM.mmmm) field
+     * @param buf           the message buffer
+     * @param start         offset of the field in the buffer
+     * @param len           length of the field
+     * @param degDigits     number of degree digits (2 for latitude, 3 for longitude)
+     * @return              the degrees or NO_INT if not valid
+     */
+    public static int degrees(byte[] buf, int start, int len, int degDigits) {
+        if (len <= degDigits)
+            return NO_INT;
+        return digits(buf, start, degDigits);
+    }
+
+    /**
+     * decodes the minutes of a latitude (DDMM.mmmm) or longitude (DDDMM.mmmm) field
+     * @param buf           the message buffer
+     * @param start         offset of the field in the buffer
+     * @param len           length of the field
+     * @param degDigits     number of degree digits (2 for latitude, 3 for longitude)
+     * @return              the minutes or NaN if not valid
+     */
+    public static double minutes(byte[] buf, int start, int len, int degDigits) {
+        if (len <= degDigits)
+            return Double.NaN;
+        return decimal(buf, start + degDigits, len - degDigits);
+    }
+}
@@ -40,36 +40,27 @@ public class NmeaFormatterString {
     static final String  XTE = "XTE";  // Cross track error
     static final int     XTE_NUMFIELDS = 6;
 
-    static final String[] msgFmt = {
-            HEADING,
-            SPEED,
-            WIND,
-            GNDWIND,
-            WATERTEMP,
-            DEPTH,
-            LOG,
-            POSITION,
-            POSSOGCOG,
-            NEXTWP,
-            GPSTIME,
-            SOGCOG,
-            FIXDATA,
-            XTE
-    };
-    static final int[] numFlds = {
-            HEADING_NUMFIELDS,
-            SPEED_NUMFIELDS,
-            WIND_NUMFIELDS,
-            GNDWIND_NUMFIELDS,
-            WATERTEMP_NUMFIELDS,
-            DEPTH_NUMFIELDS,
-            LOG_NUMFIELDS,
-            POSITION_NUMFIELDS,
-            POSSOGCOG_NUMFIELDS,
-            NEXTWP_NUMFIELDS,
-            GPSTIME_NUMFIELDS,
-            SOGCOG_NUMFIELDS,
-            FIXDATA_NUMFIELDS,
-            XTE_NUMFIELDS
-    };
+    /**
+     * adds one character to a packed talker/formatter code
+     * each character takes 6 bits (printable ASCII 0x20-0x5F), so a 2-char talker
+     * and a 3-char formatter fit together in one int
+     * @param code      the code so far
+     * @param c         the next character
+     * @return          the new code
+     */
+    static int packChar(int code, int c) {
+        return (code << 6) | ((c - 0x20) & 0x3f);
+    }
+
+    /**
+     * packed code of a talker or formatter string
+     * @param s         the talker or formatter string
+     * @return          the packed code
+     */
+    static int code(CharSequence s) {
+        int code = 0;
+        for (int i = 0; i < s.length(); ++i)
+            code = packChar(code, s.charAt(i));
+        return code;
+    }
 }
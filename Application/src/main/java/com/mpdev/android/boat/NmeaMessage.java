@@ -1,7 +1,5 @@
 package com.mpdev.android.boat;
 
-import java.util.Arrays;
-
 /**
  *
  * Class NmeaMessage
@@ -36,6 +34,12 @@ import java.util.Arrays;
  * Fix data:            $GPSGNS,134107,3609.3621,N,00521.4806,W,A,10,1,43.5,47.3,,,V*6B
  * XTE:                 $GPXTE,A,A,0,L,N,A*2D
  *
+ * Two parsing modes are supported:
+ * - from a String: talker, formatter and fields are also returned as Strings (as before)
+ * - from a byte[] or CharSequence range: the sentence is parsed in place and only the
+ *   offset and length of each field are recorded, so that a valid sentence is decoded
+ *   without creating any objects (the fields are then read via the field* methods)
+ *
  * @author marinos pappas 07 June 2020
  * 
  */
@@ -49,6 +53,8 @@ public class NmeaMessage {
 	
 	// maximum/minimum limits
 	private static final int MIN_MSG_SIZE = 1 + LEN_TALKER + LEN_FORMATTER + 1 + 1 + LEN_CHKSUM;
+	// max number of data fields that can be held in the field offsets tables
+	static final int MAX_FIELDS = 40;
 	
 	// error codes
 	enum MsgStatus {
@@ -73,6 +79,20 @@ public class NmeaMessage {
 	String statusMsg;
 	///////// end of message fields
 
+	///////// raw message buffer and field positions (populated in both parsing modes)
+	byte[] buffer;				// the buffer that holds the message
+	int msgStart;				// offset of the '$' in the buffer
+	int msgEnd;					// offset after the last character of the message
+	int talkerCode;				// talker packed in an int (see NmeaFormatterString.packChar)
+	int formatterCode;			// formatter packed in an int
+	int numFields;				// number of data fields
+	NmeaSentenceTable.Entry sentence;	// dispatch table entry for talker/formatter (null if not supported)
+	final int[] fieldStart = new int[MAX_FIELDS];	// offset of each data field in the buffer
+	final int[] fieldLen = new int[MAX_FIELDS];		// length of each data field
+	// internal buffer that CharSequence messages are copied into (grows if needed)
+	private byte[] workBuffer = new byte[128];
+	///////// end of raw message buffer
+
 	/**
 	 * Default Constructor
 	 */
@@ -121,98 +141,179 @@ public class NmeaMessage {
 	}
 
 	/**
-	 * parse the message and populate the message variables
+	 * set the NMEA values from a message held in a byte buffer - no objects are created
+	 * the buffer is referenced (not copied) so it must not be changed while the fields are used
+	 * @param buffer			the buffer that contains the message
+	 * @param offset			offset of the message in the buffer
+	 * @param length			length of the message (any trailing CR/LF is ignored)
+	 * @param validateChecksum	if false don't look for or check the checksum
+	 */
+	public void set(byte[] buffer, int offset, int length, boolean validateChecksum) {
+		parseBuffer(buffer, offset, offset + length, validateChecksum);
+	}
+
+	/**
+	 * set the NMEA values from a message held in a char sequence - no objects are created
+	 * the characters are copied into an internal buffer that is reused for every message
+	 * @param message			the char sequence that contains the message
+	 * @param start				index of the first character of the message
+	 * @param end				index after the last character of the message
+	 * @param validateChecksum	if false don't look for or check the checksum
+	 */
+	public void set(CharSequence message, int start, int end, boolean validateChecksum) {
+		if (message == null) {
+			parseBuffer(null, 0, 0, validateChecksum);
+			return;
+		}
+		int length = end - start;
+		if (workBuffer.length < length)
+			workBuffer = new byte[Math.max(length, 2 * workBuffer.length)];
+		for (int i = 0; i < length; ++i)
+			workBuffer[i] = (byte) message.charAt(start + i);
+		parseBuffer(workBuffer, 0, length, validateChecksum);
+	}
+
+	/**
+	 * parse the message string and populate the message variables
+	 * the talker, formatter and fields are also returned as strings
 	 * @param message			the NMEA message string to be processed
 	 * @param validateChecksum	if false don't look for or check the checksum
 	 */
 	private void parseMessage(String message, boolean validateChecksum) {
-		
+
+		// parse the message in the internal buffer
+		set(message, 0, (message == null) ? 0 : message.length(), validateChecksum);
+
+		// the message structure was ok - build the string fields
+		if (status == MsgStatus.NMEA_MSG_OK
+		||  status == MsgStatus.NMEA_MSG_ERR_MSGNOTSUPPORTED
+		||  status == MsgStatus.NMEA_MSG_ERR_NUMFLDS) {
+			talker = message.substring(1, LEN_TALKER+1);
+			formatter = message.substring(LEN_TALKER+1, LEN_TALKER+1+LEN_FORMATTER);
+			fields = new String[numFields];
+			for (int i = 0; i < numFields; ++i)
+				fields[i] = getField(i);
+		}
+
+		// and the detailed status message
+		if (status != MsgStatus.NMEA_MSG_OK)
+			statusMsg = statusDetail(message, validateChecksum);
+	}
+
+	/**
+	 * parse the message in the buffer and populate the message variables
+	 * no objects are created here - the status message is one of the constant strings
+	 * @param buf				the buffer that contains the message
+	 * @param start				offset of the message in the buffer
+	 * @param end				offset after the last character of the message
+	 * @param validateChecksum	if false don't look for or check the checksum
+	 */
+	private void parseBuffer(byte[] buf, int start, int end, boolean validateChecksum) {
+
 		// initialise fields
 		talker = null;
 		formatter = null;
 		fields = null;
 		chkSum = -1;
-		status = MsgStatus.NMEA_MSG_OK;
-		statusMsg = "OK";
-		
+		talkerCode = -1;
+		formatterCode = -1;
+		numFields = 0;
+		sentence = null;
+		buffer = buf;
+		msgStart = start;
+		// ignore trailing CR/LF
+		while (buf != null && end > start && (buf[end-1] == '\n' || buf[end-1] == '\r'))
+			--end;
+		msgEnd = end;
+
 		// first check basic structure / format of the message
-		if (checkMsgOk(message, validateChecksum)) {
-
-			StringBuilder sb = new StringBuilder(message);
-			int msgLen = sb.length();
-
-			// get talker
-			talker = sb.substring(1, LEN_TALKER+1);
-
-			// get formatter
-			formatter = sb.substring(LEN_TALKER+1, LEN_TALKER+1+LEN_FORMATTER);
-
-			// get data fields
-			int dataStart = LEN_TALKER+1+LEN_FORMATTER+1;
-			int dataEnd;
-			if (sb.charAt(msgLen-LEN_CHKSUM-1) == '*')
-				dataEnd = message.length() - LEN_CHKSUM-1;
-			else
-				dataEnd = message.length();
-			String dataStr = message.substring(dataStart, dataEnd);
-			fields = dataStr.split(",", -1);
-
-			// finally check the formatter string and number of fields
-			int index = Arrays.asList(NmeaFormatterString.msgFmt).indexOf(formatter);
-			if (index < 0) {
-				status = MsgStatus.NMEA_MSG_ERR_MSGNOTSUPPORTED;
-				statusMsg = "NMEA message [" + message + "] formatter [" + formatter + "] not supported";
-			}
-			else
-			if (NmeaFormatterString.numFlds[index] != fields.length) {
-				status = MsgStatus.NMEA_MSG_ERR_NUMFLDS;
-				statusMsg = "NMEA message [" + message + "] number of fields different to what expected (" + NmeaFormatterString.numFlds[index] + " expected)";
+		if (!checkMsgOk(validateChecksum))
+			return;
+
+		// get talker and formatter
+		talkerCode = NmeaFormatterString.packChar(NmeaFormatterString.packChar(0, buf[start+1]), buf[start+2]);
+		int fmtCode = 0;
+		for (int i = start+LEN_TALKER+1; i < start+LEN_TALKER+1+LEN_FORMATTER; ++i)
+			fmtCode = NmeaFormatterString.packChar(fmtCode, buf[i]);
+		formatterCode = fmtCode;
+
+		// get data fields - positions only
+		int dataStart = start+LEN_TALKER+1+LEN_FORMATTER+1;
+		int dataEnd;
+		if (buf[end-LEN_CHKSUM-1] == '*')
+			dataEnd = end-LEN_CHKSUM-1;
+		else
+			dataEnd = end;
+		int fldStart = dataStart;
+		for (int i = dataStart; i <= dataEnd; ++i) {
+			if (i == dataEnd || buf[i] == ',') {
+				if (numFields == MAX_FIELDS) {
+					status = MsgStatus.NMEA_MSG_ERR_NUMFLDS;
+					statusMsg = "NMEA message too many fields";
+					return;
+				}
+				fieldStart[numFields] = fldStart;
+				fieldLen[numFields] = i - fldStart;
+				++numFields;
+				fldStart = i + 1;
 			}
 		}
+
+		// finally check the talker/formatter and number of fields against the dispatch table
+		sentence = NmeaSentenceTable.lookup(talkerCode, formatterCode);
+		if (sentence == null) {
+			status = MsgStatus.NMEA_MSG_ERR_MSGNOTSUPPORTED;
+			statusMsg = "NMEA message formatter not supported";
+		}
+		else
+		if (sentence.numFields != numFields) {
+			status = MsgStatus.NMEA_MSG_ERR_NUMFLDS;
+			statusMsg = "NMEA message number of fields different to what expected";
+		}
 	}
-		
+
 	/**
 	 * checks message structure and format 
 	 * and sets the status variable to OK if all Ok or to an error value accordingly
 	 * also sets the statusMsg string to the appropriate error message or OK
-	 * @param message		the NMEA message string to be processed
 	 * @param verifyChkSum	if false don't look for or check the checksum
 	 * @return				true if message format ok
 	 */
-	private boolean checkMsgOk(String message, boolean verifyChkSum) {
+	private boolean checkMsgOk(boolean verifyChkSum) {
 		
 		status = MsgStatus.NMEA_MSG_OK;
+		statusMsg = "OK";
 
 		// null check
-		if (message == null) {
+		if (buffer == null) {
 			status = MsgStatus.NMEA_MSG_ERR_NULL;
 			statusMsg = "NMEA message [null]";
 			return false;
 		}
 
 		// message size
-		int msgLen = message.length();
+		int msgLen = msgEnd - msgStart;
 		int minSize = MIN_MSG_SIZE;
 		if (!verifyChkSum) {
 			minSize = MIN_MSG_SIZE - LEN_CHKSUM - 1;
 		}
 		if (msgLen < minSize) {
 			status = MsgStatus.NMEA_MSG_ERR_MSGSHORT;
-			statusMsg = "NMEA message [" + message + "] too short (min " + minSize + ") required";
+			statusMsg = "NMEA message too short";
 			return false;
 		}
 
 		// '$' in the beginning
-		if (!message.startsWith("$")) {
+		if (buffer[msgStart] != '$') {
 			status = MsgStatus.NMEA_MSG_ERR_NODOLLAR;
-			statusMsg = "NMEA message [" + message + "] no start delimiter ('$' expected)";
+			statusMsg = "NMEA message no start delimiter ('$' expected)";
 			return false;
 		}
 	
 		// ',' after the formatter
-		if (!message.startsWith(",", LEN_TALKER+LEN_FORMATTER+1)) {
+		if (buffer[msgStart+LEN_TALKER+LEN_FORMATTER+1] != ',') {
 			status = MsgStatus.NMEA_MSG_ERR_NOCOMMA;
-			statusMsg = "NMEA message [" + message + "] no field delimiter (',' expected)";
+			statusMsg = "NMEA message no field delimiter (',' expected)";
 			return false;
 		}
 			
@@ -220,39 +321,82 @@ public class NmeaMessage {
 
 		boolean chksumFound = false;
 		// '*' before checksum
-		if (message.startsWith("*", msgLen-LEN_CHKSUM-1))
+		if (buffer[msgEnd-LEN_CHKSUM-1] == '*')
 			chksumFound = true;
 
 		if (verifyChkSum && ! chksumFound) {
 			status = MsgStatus.NMEA_MSG_ERR_NOSTAR;
-			statusMsg = "NMEA message [" + message + "] no checksum delimiter ('*' expected)";
+			statusMsg = "NMEA message no checksum delimiter ('*' expected)";
 			return false;
 		}
 
-		String chksumStr = message.substring(msgLen-LEN_CHKSUM, msgLen);
 		// checksum numeric
-		try {
-			chkSum = Integer.parseInt(chksumStr, 16);
-		}
-		catch (Exception e) {
-			if (verifyChkSum) {
-				status = MsgStatus.NMEA_MSG_ERR_CHKSUMNAN;
-				statusMsg = "NMEA message [" + message + "] checksum not numeric (hex number expected)";
-				return false;
-			}
+		int hi = hexValue(buffer[msgEnd-2]);
+		int lo = hexValue(buffer[msgEnd-1]);
+		if (hi >= 0 && lo >= 0)
+			chkSum = hi * 16 + lo;
+		else
+		if (verifyChkSum) {
+			status = MsgStatus.NMEA_MSG_ERR_CHKSUMNAN;
+			statusMsg = "NMEA message checksum not numeric (hex number expected)";
+			return false;
 		}
 
 		// checksum value
-		if (verifyChkSum && checkSum(message) != chkSum) {
+		if (verifyChkSum && checkSum(buffer, msgStart, msgEnd) != chkSum) {
 			status = MsgStatus.NMEA_MSG_ERR_WRONGCHKSUM;
-			statusMsg = "NMEA message [" + message + "] checksum mismatch (" + checkSum(message) + " expected)";
+			statusMsg = "NMEA message checksum mismatch";
 			return false;
 		}
 
 		// return OK
 		return true;
 	}
-		
+
+	/**
+	 * detailed status message including the message text (String parsing mode only)
+	 * @param message		the NMEA message string
+	 * @param verifyChkSum	if false the checksum was not looked for or checked
+	 * @return				the status message
+	 */
+	private String statusDetail(String message, boolean verifyChkSum) {
+		switch (status) {
+			case NMEA_MSG_ERR_NULL:
+				return "NMEA message [null]";
+			case NMEA_MSG_ERR_MSGSHORT:
+				return "NMEA message [" + message + "] too short (min " +
+						(verifyChkSum ? MIN_MSG_SIZE : MIN_MSG_SIZE - LEN_CHKSUM - 1) + ") required";
+			case NMEA_MSG_ERR_NODOLLAR:
+				return "NMEA message [" + message + "] no start delimiter ('$' expected)";
+			case NMEA_MSG_ERR_NOCOMMA:
+				return "NMEA message [" + message + "] no field delimiter (',' expected)";
+			case NMEA_MSG_ERR_NOSTAR:
+				return "NMEA message [" + message + "] no checksum delimiter ('*' expected)";
+			case NMEA_MSG_ERR_CHKSUMNAN:
+				return "NMEA message [" + message + "] checksum not numeric (hex number expected)";
+			case NMEA_MSG_ERR_WRONGCHKSUM:
+				return "NMEA message [" + message + "] checksum mismatch (" + checkSum(message) + " expected)";
+			case NMEA_MSG_ERR_MSGNOTSUPPORTED:
+				return "NMEA message [" + message + "] sentence [" + talker + formatter + "] not supported";
+			case NMEA_MSG_ERR_NUMFLDS:
+				return "NMEA message [" + message + "] number of fields different to what expected (" +
+						((sentence == null) ? MAX_FIELDS : sentence.numFields) + " expected)";
+			default:
+				return statusMsg;
+		}
+	}
+
+	/** value of a hex digit or -1 if not a hex digit */
+	private static int hexValue(int c) {
+		if (c >= '0' && c <= '9')
+			return c - '0';
+		if (c >= 'A' && c <= 'F')
+			return c - 'A' + 10;
+		if (c >= 'a' && c <= 'f')
+			return c - 'a' + 10;
+		return -1;
+	}
+
 	/**
 	 * NMEA Checksum of message
 	 * The checksum at the end of each sentence is the XOR of all of the bytes in the sentence, 
@@ -267,18 +411,160 @@ public class NmeaMessage {
 			return -1;
 		
 		int chcksum = 0;
-		char[] cArr = message.toCharArray();
 		
 		// skip the '$' in the beginning and the actual checksum '*hh' at the end
-		for (int i = 1; i < cArr.length-3; ++i) {
+		for (int i = 1; i < message.length()-3; ++i) {
 			// XOR all the characters of the message
-			chcksum ^= cArr[i];
+			chcksum ^= message.charAt(i);
 			// ensure only one byte is actually calculated
 			chcksum &= 0xff;
 		}
 		return chcksum;
 	}
-			
+
+	/**
+	 * NMEA Checksum of message held in a byte buffer
+	 * @param buf			the buffer that contains the message
+	 * @param start			offset of the '$' in the buffer
+	 * @param end			offset after the last character of the message ('*hh' included)
+	 * @return				the checksum of the message (0x00-0xff)
+	 */
+	public static int checkSum(byte[] buf, int start, int end) {
+
+		if (buf == null)
+			return -1;
+
+		int chcksum = 0;
+
+		// skip the '$' in the beginning and the actual checksum '*hh' at the end
+		for (int i = start+1; i < end-3; ++i)
+			chcksum ^= buf[i];
+		return chcksum & 0xff;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////
+	/////////// access to the data fields (in place - no objects created) //////////
+	////////////////////////////////////////////////////////////////////////////////
+
+	/** true if the message structure is ok and the sentence is supported */
+	public boolean isOk() {
+		return status == MsgStatus.NMEA_MSG_OK;
+	}
+
+	/** true if the message was rejected because of a wrong checksum */
+	public boolean isChecksumError() {
+		return status == MsgStatus.NMEA_MSG_ERR_WRONGCHKSUM;
+	}
+
+	/** the formatter packed in an int (-1 if the message structure is not valid) */
+	public int getFormatterCode() {
+		return formatterCode;
+	}
+
+	/** the formatter as a new String ("???" if the message structure is not valid) */
+	public String formatterName() {
+		if (formatterCode < 0)
+			return "???";
+		char[] c = new char[LEN_FORMATTER];
+		for (int i = 0; i < LEN_FORMATTER; ++i)
+			c[i] = (char) (buffer[msgStart + LEN_TALKER + 1 + i] & 0xff);
+		return new String(c);
+	}
+
+	/** number of data fields in the message */
+	public int getNumFields() {
+		return numFields;
+	}
+
+	/** offset of data field i in the buffer */
+	public int fieldStart(int i) {
+		return fieldStart[i];
+	}
+
+	/** length of data field i */
+	public int fieldLength(int i) {
+		return fieldLen[i];
+	}
+
+	/** the buffer that holds the message (use with fieldStart and fieldLength) */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/** true if the message talker is t (compared in place) */
+	public boolean isTalker(String t) {
+		return talkerCode == NmeaFormatterString.code(t);
+	}
+
+	/** true if the message formatter is f (compared in place) */
+	public boolean isFormatter(String f) {
+		return formatterCode == NmeaFormatterString.code(f);
+	}
+
+	/** true if data field i is empty */
+	public boolean fieldIsEmpty(int i) {
+		return fieldLen[i] == 0;
+	}
+
+	/** true if data field i consists of the single character c */
+	public boolean fieldIs(int i, char c) {
+		return fieldLen[i] == 1 && buffer[fieldStart[i]] == c;
+	}
+
+	/** character at position pos of data field i (0 if out of the field) */
+	public char fieldCharAt(int i, int pos) {
+		if (pos < 0 || pos >= fieldLen[i])
+			return 0;
+		return (char) buffer[fieldStart[i] + pos];
+	}
+
+	/** true if data field i has the same characters as string s */
+	public boolean fieldEquals(int i, String s) {
+		if (s == null || fieldLen[i] != s.length())
+			return false;
+		for (int j = 0; j < fieldLen[i]; ++j)
+			if (buffer[fieldStart[i] + j] != s.charAt(j))
+				return false;
+		return true;
+	}
+
+	/** data field i as decimal number (NaN if empty or not numeric) */
+	public double fieldDouble(int i) {
+		return NmeaFieldDecoder.decimal(buffer, fieldStart[i], fieldLen[i]);
+	}
+
+	/** data field i as integer number (NmeaFieldDecoder.NO_INT if empty or not numeric) */
+	public int fieldInt(int i) {
+		return NmeaFieldDecoder.integer(buffer, fieldStart[i], fieldLen[i]);
+	}
+
+	/** n digits starting at position pos of data field i (e.g. the hh in hhmmss) */
+	public int fieldDigits(int i, int pos, int n) {
+		if (pos + n > fieldLen[i])
+			return NmeaFieldDecoder.NO_INT;
+		return NmeaFieldDecoder.digits(buffer, fieldStart[i] + pos, n);
+	}
+
+	/** degrees of lat (degDigits = 2) or long (degDigits = 3) data field i */
+	public int fieldDegrees(int i, int degDigits) {
+		return NmeaFieldDecoder.degrees(buffer, fieldStart[i], fieldLen[i], degDigits);
+	}
+
+	/** minutes of lat (degDigits = 2) or long (degDigits = 3) data field i */
+	public double fieldMinutes(int i, int degDigits) {
+		return NmeaFieldDecoder.minutes(buffer, fieldStart[i], fieldLen[i], degDigits);
+	}
+
+	/** data field i as a new String (allocates - use for non-numeric fields only) */
+	public String getField(int i) {
+		if (i < 0 || i >= numFields)
+			return null;
+		char[] c = new char[fieldLen[i]];
+		for (int j = 0; j < c.length; ++j)
+			c[j] = (char) (buffer[fieldStart[i] + j] & 0xff);
+		return new String(c);
+	}
+
 	/**
 	 * convert NMEA message object back to string
 	 */
@@ -286,8 +572,15 @@ public class NmeaMessage {
 	public String toString() {
 		StringBuilder sb;
 		
-		if (talker == null & formatter == null && fields == null)
-			return null;
+		if (talker == null & formatter == null && fields == null) {
+			// buffer parsing mode - return the raw message
+			if (buffer == null || numFields == 0)
+				return null;
+			sb = new StringBuilder(msgEnd - msgStart);
+			for (int i = msgStart; i < msgEnd; ++i)
+				sb.append((char) (buffer[i] & 0xff));
+			return sb.toString();
+		}
 		
 		sb = new StringBuilder("$");
 		sb.append(talker);
@@ -0,0 +1,201 @@
+package com.mpdev.android.boat;
+
+import static com.mpdev.android.boat.NmeaFormatterString.*;
+
+/**
+ * Class NmeaSentenceTable
+ * Dispatch table for the supported NMEA sentences
+ * Maps the talker and formatter of a message (packed in one int - see NmeaFormatterString.packChar)
+ * to the handler that updates the boat data and the expected number of fields
+ *
+ * The built-in sentences are handled by BoatData (switch on the handler id)
+ * New sentence types can be added by registering a SentenceHandler
+ * Registration is expected at start-up - lookups are lock-free
+ */
+public class NmeaSentenceTable {
+
+    /** handler for a sentence type that is not built into BoatData */
+    public interface SentenceHandler {
+        /**
+         * updates the boat data from the message
+         * @param boatData      the boat data
+         * @param msg           the NMEA message (status is OK and number of fields as registered)
+         * @return              true when a field has been updated
+         */
+        boolean update(BoatData boatData, NmeaMessage msg);
+    }
+
+    /** one entry of the table */
+    public static class Entry {
+        final int key;
+        final int numFields;
+        final int handlerId;
+        final SentenceHandler handler;
+        /** Constructor */
+        Entry(int key, int numFields, int handlerId, SentenceHandler handler) {
+            this.key = key;
+            this.numFields = numFields;
+            this.handlerId = handlerId;
+            this.handler = handler;
+        }
+        /** expected number of fields */
+        public int getNumFields() {
+            return numFields;
+        }
+    }
+
+    // handler ids for the sentences built into BoatData
+    static final int HDL_CUSTOM = 0;
+    static final int HDL_HEADING = 1;
+    static final int HDL_SPEED = 2;
+    static final int HDL_WIND = 3;
+    static final int HDL_GNDWIND = 4;
+    static final int HDL_WATERTEMP = 5;
+    static final int HDL_DEPTH = 6;
+    static final int HDL_LOG = 7;
+    static final int HDL_POSITION = 8;
+    static final int HDL_POSSOGCOG = 9;
+    static final int HDL_NEXTWP = 10;
+    static final int HDL_GPSTIME = 11;
+    static final int HDL_SOGCOG = 12;
+    static final int HDL_FIXDATA = 13;
+    static final int HDL_XTE = 14;
+
+    // talker code used for the sentences that are accepted from any talker
+    private static final int ANY_TALKER = 0;
+    // formatter code takes 3 x 6 bits
+    private static final int FORMATTER_BITS = 18;
+    // empty slot in the keys table (valid keys are positive 30-bit numbers)
+    private static final int EMPTY = -1;
+
+    /** the open-addressing hash table - replaced as a whole on every registration */
+    private static class Table {
+        final int[] keys;
+        final Entry[] entries;
+        final int mask;
+        int size;
+        Table(int capacity) {
+            keys = new int[capacity];
+            entries = new Entry[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; ++i)
+                keys[i] = EMPTY;
+        }
+    }
+
+    private static volatile Table table = new Table(32);
+
+    // the built-in sentences
+    static {
+        // $HCHDG,338.9, , ,0.7,W*3D
+        register(MAGNETIC_COMPASS, HEADING, HEADING_NUMFIELDS, HDL_HEADING, null);
+        // $IIVHW,,T,338.9,M,0,N,0,K*7A
+        register(INTEGRATED_INSTRUMENTATION, SPEED, SPEED_NUMFIELDS, HDL_SPEED, null);
+        // $WIMWV,x.x,T,x.x,M,x.x,N,x.x,M*hh
+        register(WIND_INSTRUMENTS, WIND, WIND_NUMFIELDS, HDL_WIND, null);
+        // $--MWD,x.x,T,x.x,M,x.x,N,x.x,M*hh (any talker)
+        register(null, GNDWIND, GNDWIND_NUMFIELDS, HDL_GNDWIND, null);
+        // $IIMTW,xx.x,C*hh
+        register(INTEGRATED_INSTRUMENTATION, WATERTEMP, WATERTEMP_NUMFIELDS, HDL_WATERTEMP, null);
+        // $SDDPT,xx.x,x.x,x*hh
+        register(ECHO_SOUNDER, DEPTH, DEPTH_NUMFIELDS, HDL_DEPTH, null);
+        // $IIVLW,x.x,A,x.x,A,x.x,A,x.x,A*hh
+        register(INTEGRATED_INSTRUMENTATION, LOG, LOG_NUMFIELDS, HDL_LOG, null);
+        // $GPGLL,LLLL.LLL,A,lllll.lll,a,hhmmss,A,A*hh
+        register(GPS, POSITION, POSITION_NUMFIELDS, HDL_POSITION, null);
+        // $GPRMC,hhmmss,A,LLLL.LLL,A,lllll.lll,a,X.x,X,ddmmyy,X.x,A,A*hh
+        register(GPS, POSSOGCOG, POSSOGCOG_NUMFIELDS, HDL_POSSOGCOG, null);
+        // $--BWC,hhmmss.mm,LLLL.LLL,A,lllll.lll,a,X.x,T,X.x,M,X.x,N,sssss,A*hh
+        register(CHART_SYSTEM, NEXTWP, NEXTWP_NUMFIELDS, HDL_NEXTWP, null);
+        register(GPS, NEXTWP, NEXTWP_NUMFIELDS, HDL_NEXTWP, null);
+        // $GPZDA,160853,03,04,2021,,*47
+        register(GPS, GPSTIME, GPSTIME_NUMFIELDS, HDL_GPSTIME, null);
+        // $GPVTG,0.73,T,,M,0.16,N,0.29,K,A*35
+        register(GPS, SOGCOG, SOGCOG_NUMFIELDS, HDL_SOGCOG, null);
+        // $GPGNS,134107,3609.3621,N,00521.4806,W,A,10,1,43.5,47.3,,,V*6B
+        register(GPS, FIXDATA, FIXDATA_NUMFIELDS, HDL_FIXDATA, null);
+        // $GPXTE,A,A,0,L,N,A*2D
+        register(GPS, XTE, XTE_NUMFIELDS, HDL_XTE, null);
+    }
+
+    /**
+     * Constructor - static methods only
+     */
+    private NmeaSentenceTable() { }
+
+    /**
+     * registers a new sentence type (or replaces an existing one)
+     * @param talker        the talker (2 chars) or null for any talker
+     * @param formatter     the formatter (3 chars)
+     * @param numFields     the expected number of fields
+     * @param handler       the handler that will update the boat data
+     */
+    public static void register(String talker, String formatter, int numFields, SentenceHandler handler) {
+        register(talker, formatter, numFields, HDL_CUSTOM, handler);
+    }
+
+    /** registers a built-in or custom handler */
+    private static synchronized void register(String talker, String formatter, int numFields,
+                                              int handlerId, SentenceHandler handler) {
+        int key = key((talker == null) ? ANY_TALKER : code(talker), code(formatter));
+        Table oldTable = table;
+        // copy the table (doubling the size if more than half full) and insert the new entry
+        int capacity = oldTable.keys.length;
+        if (2 * (oldTable.size + 1) > capacity)
+            capacity *= 2;
+        Table newTable = new Table(capacity);
+        for (int i = 0; i < oldTable.keys.length; ++i)
+            if (oldTable.keys[i] != EMPTY && oldTable.keys[i] != key)
+                insert(newTable, oldTable.entries[i]);
+        insert(newTable, new Entry(key, numFields, handlerId, handler));
+        table = newTable;
+    }
+
+    /** inserts an entry in the table (linear probing) */
+    private static void insert(Table t, Entry entry) {
+        int i = hash(entry.key) & t.mask;
+        while (t.keys[i] != EMPTY)
+            i = (i + 1) & t.mask;
+        t.keys[i] = entry.key;
+        t.entries[i] = entry;
+        ++t.size;
+    }
+
+    /**
+     * finds the entry for a talker/formatter
+     * an entry registered for the specific talker takes precedence over an any-talker entry
+     * @param talkerCode        the packed talker
+     * @param formatterCode     the packed formatter
+     * @return                  the table entry or null if the sentence is not supported
+     */
+    static Entry lookup(int talkerCode, int formatterCode) {
+        Table t = table;
+        Entry entry = find(t, key(talkerCode, formatterCode));
+        if (entry == null)
+            entry = find(t, key(ANY_TALKER, formatterCode));
+        return entry;
+    }
+
+    /** finds the entry for a key */
+    private static Entry find(Table t, int key) {
+        int i = hash(key) & t.mask;
+        int k;
+        while ((k = t.keys[i]) != EMPTY) {
+            if (k == key)
+                return t.entries[i];
+            i = (i + 1) & t.mask;
+        }
+        return null;
+    }
+
+    /** the table key for a talker/formatter */
+    private static int key(int talkerCode, int formatterCode) {
+        return (talkerCode << FORMATTER_BITS) | formatterCode;
+    }
+
+    /** spreads the key bits over the table index */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
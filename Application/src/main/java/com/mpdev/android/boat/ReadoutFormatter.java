@@ -0,0 +1,128 @@
+package com.mpdev.android.boat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Class ReadoutFormatter
+ * Formats one instrument readout (fixed number of decimals or truncated integer)
+ * into a reusable char buffer instead of using String.format
+ * The last String is cached together with the quantised value it was created from,
+ * so a reading that has not changed on the display returns the same String without any work
+ *
+ * One formatter is used per displayed field - not thread safe (used by the UI thread)
+ */
+public class ReadoutFormatter {
+
+    // powers of 10 for the quantisation
+    private static final long[] POW10 = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L };
+    // distance from .5 that is treated as a possible tie when rounding
+    private static final double TIE_TOLERANCE = 1e-6;
+
+    private final int decimals;     // number of decimals (rounded) - 0 for integer (truncated)
+    private final int width;        // min number of integer digits
+    private final char pad;         // padding character for the integer digits (' ' or '0')
+    private final String prefix;
+    private final String suffix;
+
+    private final char[] buf = new char[40];
+    private long lastKey = Long.MIN_VALUE;
+    private String lastString = null;
+
+    /** Constructor */
+    private ReadoutFormatter(int decimals, int width, char pad, String prefix, String suffix) {
+        this.decimals = decimals;
+        this.width = width;
+        this.pad = pad;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * formatter for a decimal number with fixed decimals - equivalent to %.nf
+     * @param decimals      number of decimals (1 - 6)
+     * @return              the formatter
+     */
+    public static ReadoutFormatter decimal(int decimals) {
+        return new ReadoutFormatter(decimals, 1, ' ', "", "");
+    }
+
+    /**
+     * formatter for the integer part of a number - equivalent to %nd / %0nd of (int)value
+     * @param width         min number of digits (0 for no padding)
+     * @param pad           padding character (' ' or '0')
+     * @param prefix        text added before the number
+     * @param suffix        text added after the number
+     * @return              the formatter
+     */
+    public static ReadoutFormatter integer(int width, char pad, String prefix, String suffix) {
+        return new ReadoutFormatter(0, width, pad, prefix, suffix);
+    }
+
+    /**
+     * formats a value - if the quantised value has not changed the previous String is returned
+     * @param value     the value
+     * @return          the formatted value
+     */
+    public String format(double value) {
+        long key = (decimals == 0) ? (long) (int) value : round(value, decimals);
+        if (key == lastKey && lastString != null)
+            return lastString;
+        lastKey = key;
+        int len = 0;
+        for (int i = 0; i < prefix.length(); ++i)
+            buf[len++] = prefix.charAt(i);
+        if (key < 0) {
+            buf[len++] = '-';
+            key = -key;
+        }
+        len = appendDigits(buf, len, key / POW10[decimals], width, pad);
+        if (decimals > 0) {
+            buf[len++] = '.';
+            len = appendDigits(buf, len, key % POW10[decimals], decimals, '0');
+        }
+        for (int i = 0; i < suffix.length(); ++i)
+            buf[len++] = suffix.charAt(i);
+        lastString = new String(buf, 0, len);
+        return lastString;
+    }
+
+    /**
+     * rounds a value to a number of decimals (half up, same as %.nf) and returns it scaled by 10^decimals
+     * when the scaled value is (nearly) on .5 the multiplication may have moved it to the other side,
+     * so only in that case the value is rounded again from its decimal representation
+     * @param value         the value
+     * @param decimals      number of decimals
+     * @return              the rounded value x 10^decimals
+     */
+    static long round(double value, int decimals) {
+        double scaled = value * POW10[decimals];
+        long key = Math.round(scaled);
+        if (Math.abs(Math.abs(scaled - key) - 0.5) < TIE_TOLERANCE)
+            key = BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).unscaledValue().longValue();
+        return key;
+    }
+
+    /**
+     * writes a non-negative number in a char buffer
+     * @param buf       the buffer
+     * @param pos       where to start writing
+     * @param value     the number (>= 0)
+     * @param width     min number of digits
+     * @param pad       padding character up to the min number of digits
+     * @return          the position after the last digit
+     */
+    static int appendDigits(char[] buf, int pos, long value, int width, char pad) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10)
+            ++digits;
+        for (int i = digits; i < width; ++i)
+            buf[pos++] = pad;
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; --i) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+}
@@ -5,6 +5,7 @@ import android.support.annotation.RequiresApi;
 
 import com.mpdev.android.logger.Log;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -30,6 +31,50 @@ public class AppConfig {
         SWIPE_PAGE
     }
 
+    // one of the gateways read at the same time when NMEA_SOURCE is "multi" (see NmeaFanInSource)
+    static class Gateway {
+        final String name;
+        final String type;          // tcp, udp or generator
+        final String host;
+        final int port;
+        final int priority;         // 0 is the best
+        final String prefer;        // sentence types always taken first from this gateway (e.g. "GPRMC,VDM" - no talker = any)
+        private final long[] preferTypes;
+
+        /** Constructor */
+        Gateway(String name, String type, String host, int port, int priority, String prefer) {
+            this.name = name;
+            this.type = type;
+            this.host = host;
+            this.port = port;
+            this.priority = Math.max(priority, 0);
+            this.prefer = prefer;
+            String[] types = prefer.isEmpty() ? new String[0] : prefer.split(",");
+            preferTypes = new long[types.length];
+            for (int i = 0; i < types.length; ++i)
+                preferTypes[i] = NmeaFanInSource.sentenceType(types[i].trim());
+        }
+
+        /** the priority of this gateway for a sentence type (see NmeaFanInSource.sentenceType) - lower is better */
+        int priority(long sentenceType) {
+            for (long t : preferTypes)
+                if (NmeaFanInSource.typeMatches(t, sentenceType))
+                    return -1;
+            return priority;
+        }
+
+        /** the gateway as json */
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put(KEY_GATEWAY_NAME, name)
+                    .put(KEY_GATEWAY_TYPE, type)
+                    .put(KEY_GATEWAY_HOST, host)
+                    .put(KEY_GATEWAY_PORT, port)
+                    .put(KEY_GATEWAY_PRIORITY, priority)
+                    .put(KEY_GATEWAY_PREFER, prefer);
+        }
+    }
+
     //////////// application config variables /////////
 
     // config file name
@@ -42,23 +87,56 @@ public class AppConfig {
 
     // Network
     static final String KEY_NETWORK = "network";
+    static final String KEY_NMEA_SOURCE = "nmeaSource";
+    static String NMEA_SOURCE = NmeaSource.TCP;
     static final String KEY_NMEA_GW_IP = "nmeaGwIp";
     static String NMEA_GW_IP = "192.168.1.111";
     static final String KEY_NMEA_GW_PORT = "nmeaGwPort";
     static int NMEA_GW_PORT = 8888;
+    static final String KEY_NMEA_UDP_PORT = "nmeaUdpPort";
+    static int NMEA_UDP_PORT = 10110;
     static final String KEY_SOCKET_TIMEOUT = "socketTimeout";
     static int NMEA_GW_TIMEOUT = 200;
+    static final String KEY_RECONNECT_DELAY_MIN = "reconnectDelayMin";
+    static int RECONNECT_DELAY_MIN = 1000;
+    static final String KEY_RECONNECT_DELAY_MAX = "reconnectDelayMax";
+    static int RECONNECT_DELAY_MAX = 30000;
+    static final String KEY_CONNECT_RETRIES = "connectRetries";
+    static int CONNECT_RETRIES = 3;
     static final String KEY_NMEA_CHECKSUM = "validateChksum";
     static boolean NMEA_VALIDATE_CHKSUM = true;
     static final String KEY_DEMO_MODE = "demoMode";
     static boolean DEMO_MODE = true;
     static final String KEY_DEMO_FILE = "demoFile";
     static String DEMO_FILE = "boatInstrumentsDemo.txt";
+    static final String KEY_REPLAY_SPEED = "replaySpeed";
+    static double REPLAY_SPEED = 1.0;
+    static final String KEY_REPLAY_LOOP = "replayLoop";
+    static boolean REPLAY_LOOP = false;
+    static final String KEY_REPLAY_START = "replayStart";
+    static int REPLAY_START = 0;
+    static final String KEY_GENERATOR_INTERVAL = "generatorInterval";
+    static int GENERATOR_INTERVAL = 1000;
+    static final String KEY_GATEWAYS = "gateways";
+    static final String KEY_GATEWAY_NAME = "name";
+    static final String KEY_GATEWAY_TYPE = "type";
+    static final String KEY_GATEWAY_HOST = "host";
+    static final String KEY_GATEWAY_PORT = "port";
+    static final String KEY_GATEWAY_PRIORITY = "priority";
+    static final String KEY_GATEWAY_PREFER = "prefer";
+    static Gateway[] GATEWAYS = {
+            new Gateway("instruments", NmeaSource.TCP, NMEA_GW_IP, NMEA_GW_PORT, 0, ""),
+            new Gateway("gps-ais", NmeaSource.UDP, "", NMEA_UDP_PORT, 1, "RMC,GGA,GLL,ZDA,VDM,VDO")
+    };
 
     // Timers
     static final String KEY_TIMERS = "timers";
     static final String KEY_TIMEOUT_OUT_OF_DATE = "timeoutOutOfDate";
     public static int TIMEOUT_OUT_OF_DATE = 9000;
+    static final String KEY_DISPLAY_REFRESH_PERIOD = "displayRefreshPeriod";
+    public static int DISPLAY_REFRESH_PERIOD = 125;
+    static final String KEY_MAX_VALUES_SAVE_INTERVAL = "maxValuesSaveInterval";
+    public static int MAX_VALUES_SAVE_INTERVAL = 30000;
 
     // Wind
     static final String KEY_WIND = "wind";
@@ -102,6 +180,35 @@ public class AppConfig {
     // flag to trigger reset of max values
     public static boolean resetMaxValues = false;
 
+    // NMEA recorder
+    static final String KEY_RECORDER = "recorder";
+    static final String KEY_RECORD_NMEA = "recordNmea";
+    static boolean RECORD_NMEA = false;
+    static final String KEY_RECORD_DIR = "recordDir";
+    static String RECORD_DIR = "nmeaRecordings";
+    static final String KEY_RECORD_SEGMENT_SIZE = "recordSegmentSize";
+    static int RECORD_SEGMENT_SIZE = 4 * 1024 * 1024;
+    static final String KEY_RECORD_MAX_SEGMENTS = "recordMaxSegments";
+    static int RECORD_MAX_SEGMENTS = 16;
+
+    // AIS
+    static final String KEY_AIS = "ais";
+    static final String KEY_AIS_DECODE = "aisDecode";
+    static boolean AIS_DECODE = true;
+    static final String KEY_AIS_TARGET_TIMEOUT = "aisTargetTimeout";
+    static long AIS_TARGET_TIMEOUT = 10 * 60 * 1000;
+    static final String KEY_AIS_CPA_ALARM = "aisCpaAlarm";
+    static double AIS_CPA_ALARM = 0.5;
+    static final String KEY_AIS_TCPA_ALARM = "aisTcpaAlarm";
+    static double AIS_TCPA_ALARM = 15.0;
+
+    // Log
+    static final String KEY_LOG = "log";
+    static final String KEY_LOG_CAPACITY = "logCapacity";
+    public static int LOG_CAPACITY = 32768;
+    static final String KEY_METRICS_FILE = "metricsFile";
+    static String METRICS_FILE = "boatInstrumentsMetrics.txt";
+
     /** reads config from json file - default file used */
     @RequiresApi(api = Build.VERSION_CODES.O)
     static String readConfig() {
@@ -142,6 +249,12 @@ public class AppConfig {
             try {
                 JSONObject jNet = jConfig.getJSONObject(KEY_NETWORK);
 
+                // NMEA source (tcp, udp, multi, generator)
+                try {
+                    String configSource = jNet.getString(KEY_NMEA_SOURCE);
+                    NMEA_SOURCE = configSource;
+                    sb.append("NMEA_SOURCE: ").append(NMEA_SOURCE).append("\n");
+                } catch (JSONException ignored) {}
                 // NMEA GW IP address
                 try {
                     String configGwIp = jNet.getString(KEY_NMEA_GW_IP);
@@ -154,12 +267,36 @@ public class AppConfig {
                     NMEA_GW_PORT = configGwPort;
                     sb.append("NMEA_GW_PORT: ").append(NMEA_GW_PORT).append("\n");
                 } catch (JSONException ignored) {}
+                // NMEA UDP broadcast port number
+                try {
+                    int configUdpPort = jNet.getInt(KEY_NMEA_UDP_PORT);
+                    NMEA_UDP_PORT = configUdpPort;
+                    sb.append("NMEA_UDP_PORT: ").append(NMEA_UDP_PORT).append("\n");
+                } catch (JSONException ignored) {}
                 // NMEA GW read timeout
                 try {
                     int configReadTimeout = jNet.getInt(KEY_SOCKET_TIMEOUT);
                     NMEA_GW_TIMEOUT = configReadTimeout;
                     sb.append("NMEA_GW_TIMEOUT: ").append(NMEA_GW_TIMEOUT).append("\n");
                 } catch (JSONException ignored) {}
+                // reconnect delay after the first failure
+                try {
+                    int configDelayMin = jNet.getInt(KEY_RECONNECT_DELAY_MIN);
+                    RECONNECT_DELAY_MIN = configDelayMin;
+                    sb.append("RECONNECT_DELAY_MIN: ").append(RECONNECT_DELAY_MIN).append("\n");
+                } catch (JSONException ignored) {}
+                // max reconnect delay
+                try {
+                    int configDelayMax = jNet.getInt(KEY_RECONNECT_DELAY_MAX);
+                    RECONNECT_DELAY_MAX = configDelayMax;
+                    sb.append("RECONNECT_DELAY_MAX: ").append(RECONNECT_DELAY_MAX).append("\n");
+                } catch (JSONException ignored) {}
+                // connect attempts at start-up before switching to demo (0 for never)
+                try {
+                    int configRetries = jNet.getInt(KEY_CONNECT_RETRIES);
+                    CONNECT_RETRIES = configRetries;
+                    sb.append("CONNECT_RETRIES: ").append(CONNECT_RETRIES).append("\n");
+                } catch (JSONException ignored) {}
                 // validate nmea checksum
                 try {
                     boolean configNmeaChecksum = jNet.getBoolean(KEY_NMEA_CHECKSUM);
@@ -178,6 +315,49 @@ public class AppConfig {
                     DEMO_FILE = demoFile;
                     sb.append("DEMO_FILE: ").append(DEMO_FILE).append("\n");
                 } catch (JSONException ignored) {}
+                // Demo file replay speed (0 = as fast as possible)
+                try {
+                    double replaySpeed = jNet.getDouble(KEY_REPLAY_SPEED);
+                    REPLAY_SPEED = replaySpeed;
+                    sb.append("REPLAY_SPEED: ").append(REPLAY_SPEED).append("\n");
+                } catch (JSONException ignored) {}
+                // Demo file replay loop
+                try {
+                    boolean replayLoop = jNet.getBoolean(KEY_REPLAY_LOOP);
+                    REPLAY_LOOP = replayLoop;
+                    sb.append("REPLAY_LOOP: ").append(REPLAY_LOOP).append("\n");
+                } catch (JSONException ignored) {}
+                // Demo file replay start point (seconds from the start of the file)
+                try {
+                    int replayStart = jNet.getInt(KEY_REPLAY_START);
+                    REPLAY_START = replayStart;
+                    sb.append("REPLAY_START: ").append(REPLAY_START).append("\n");
+                } catch (JSONException ignored) {}
+                // generator interval
+                try {
+                    int configGeneratorInterval = jNet.getInt(KEY_GENERATOR_INTERVAL);
+                    GENERATOR_INTERVAL = configGeneratorInterval;
+                    sb.append("GENERATOR_INTERVAL: ").append(GENERATOR_INTERVAL).append("\n");
+                } catch (JSONException ignored) {}
+                // gateways read at the same time
+                try {
+                    JSONArray jGateways = jNet.getJSONArray(KEY_GATEWAYS);
+                    Gateway[] gateways = new Gateway[jGateways.length()];
+                    for (int i = 0; i < gateways.length; ++i) {
+                        JSONObject jGw = jGateways.getJSONObject(i);
+                        gateways[i] = new Gateway(jGw.getString(KEY_GATEWAY_NAME),
+                                jGw.getString(KEY_GATEWAY_TYPE),
+                                jGw.optString(KEY_GATEWAY_HOST, ""),
+                                jGw.getInt(KEY_GATEWAY_PORT),
+                                jGw.optInt(KEY_GATEWAY_PRIORITY, i),
+                                jGw.optString(KEY_GATEWAY_PREFER, ""));
+                        sb.append("GATEWAY: ").append(gateways[i].name).append(" ").append(gateways[i].type)
+                                .append(" ").append(gateways[i].host).append(":").append(gateways[i].port)
+                                .append(" priority ").append(gateways[i].priority)
+                                .append(" prefer ").append(gateways[i].prefer).append("\n");
+                    }
+                    GATEWAYS = gateways;
+                } catch (JSONException ignored) {}
             } catch (JSONException ignored) {}
 
             ////// display
@@ -268,6 +448,18 @@ public class AppConfig {
                     TIMEOUT_OUT_OF_DATE = configOutOfDate;
                     sb.append("TIMEOUT_OUT_OF_DATE: ").append(TIMEOUT_OUT_OF_DATE).append("\n");
                 } catch (JSONException ignored) {}
+                // display refresh period
+                try {
+                    int configRefreshPeriod = jTimers.getInt(KEY_DISPLAY_REFRESH_PERIOD);
+                    DISPLAY_REFRESH_PERIOD = configRefreshPeriod;
+                    sb.append("DISPLAY_REFRESH_PERIOD: ").append(DISPLAY_REFRESH_PERIOD).append("\n");
+                } catch (JSONException ignored) {}
+                // max values save interval
+                try {
+                    int configSaveInterval = jTimers.getInt(KEY_MAX_VALUES_SAVE_INTERVAL);
+                    MAX_VALUES_SAVE_INTERVAL = configSaveInterval;
+                    sb.append("MAX_VALUES_SAVE_INTERVAL: ").append(MAX_VALUES_SAVE_INTERVAL).append("\n");
+                } catch (JSONException ignored) {}
             } catch (JSONException ignored) {}
 
             ////// wind
@@ -294,6 +486,84 @@ public class AppConfig {
                 } catch (JSONException ignored) {}
             } catch (JSONException ignored) {}
 
+            ////// nmea recorder
+            try {
+                JSONObject jRecorder = jConfig.getJSONObject(KEY_RECORDER);
+
+                // record the received sentences flag
+                try {
+                    boolean configRecordNmea = jRecorder.getBoolean(KEY_RECORD_NMEA);
+                    RECORD_NMEA = configRecordNmea;
+                    sb.append("RECORD_NMEA: ").append(RECORD_NMEA).append("\n");
+                } catch (JSONException ignored) {}
+                // recordings directory
+                try {
+                    String configRecordDir = jRecorder.getString(KEY_RECORD_DIR);
+                    RECORD_DIR = configRecordDir;
+                    sb.append("RECORD_DIR: ").append(RECORD_DIR).append("\n");
+                } catch (JSONException ignored) {}
+                // segment file size
+                try {
+                    int configSegmentSize = jRecorder.getInt(KEY_RECORD_SEGMENT_SIZE);
+                    RECORD_SEGMENT_SIZE = configSegmentSize;
+                    sb.append("RECORD_SEGMENT_SIZE: ").append(RECORD_SEGMENT_SIZE).append("\n");
+                } catch (JSONException ignored) {}
+                // max number of segment files
+                try {
+                    int configMaxSegments = jRecorder.getInt(KEY_RECORD_MAX_SEGMENTS);
+                    RECORD_MAX_SEGMENTS = configMaxSegments;
+                    sb.append("RECORD_MAX_SEGMENTS: ").append(RECORD_MAX_SEGMENTS).append("\n");
+                } catch (JSONException ignored) {}
+            } catch (JSONException ignored) {}
+
+            ////// ais
+            try {
+                JSONObject jAis = jConfig.getJSONObject(KEY_AIS);
+
+                // decode the AIS sentences flag
+                try {
+                    boolean configAisDecode = jAis.getBoolean(KEY_AIS_DECODE);
+                    AIS_DECODE = configAisDecode;
+                    sb.append("AIS_DECODE: ").append(AIS_DECODE).append("\n");
+                } catch (JSONException ignored) {}
+                // targets not heard for this long are removed (msec)
+                try {
+                    long configAisTargetTimeout = jAis.getLong(KEY_AIS_TARGET_TIMEOUT);
+                    AIS_TARGET_TIMEOUT = configAisTargetTimeout;
+                    sb.append("AIS_TARGET_TIMEOUT: ").append(AIS_TARGET_TIMEOUT).append("\n");
+                } catch (JSONException ignored) {}
+                // collision alarm when the CPA is less than this (nm)...
+                try {
+                    double configAisCpaAlarm = jAis.getDouble(KEY_AIS_CPA_ALARM);
+                    AIS_CPA_ALARM = configAisCpaAlarm;
+                    sb.append("AIS_CPA_ALARM: ").append(AIS_CPA_ALARM).append("\n");
+                } catch (JSONException ignored) {}
+                // ...and the CPA is within this time (minutes)
+                try {
+                    double configAisTcpaAlarm = jAis.getDouble(KEY_AIS_TCPA_ALARM);
+                    AIS_TCPA_ALARM = configAisTcpaAlarm;
+                    sb.append("AIS_TCPA_ALARM: ").append(AIS_TCPA_ALARM).append("\n");
+                } catch (JSONException ignored) {}
+            } catch (JSONException ignored) {}
+
+            ////// log
+            try {
+                JSONObject jLog = jConfig.getJSONObject(KEY_LOG);
+
+                // number of log entries kept in memory
+                try {
+                    int configLogCapacity = jLog.getInt(KEY_LOG_CAPACITY);
+                    LOG_CAPACITY = configLogCapacity;
+                    sb.append("LOG_CAPACITY: ").append(LOG_CAPACITY).append("\n");
+                } catch (JSONException ignored) {}
+                // metrics dump file
+                try {
+                    String configMetricsFile = jLog.getString(KEY_METRICS_FILE);
+                    METRICS_FILE = configMetricsFile;
+                    sb.append("METRICS_FILE: ").append(METRICS_FILE).append("\n");
+                } catch (JSONException ignored) {}
+            } catch (JSONException ignored) {}
+
             sb.append("completed reading config");
 
         } catch (Exception e) {
@@ -318,12 +588,25 @@ public class AppConfig {
             PrintWriter conf = new PrintWriter(fileName);
 
             JSONObject jNetwork = new JSONObject()
+                    .put(KEY_NMEA_SOURCE, NMEA_SOURCE)
                     .put(KEY_NMEA_GW_IP, NMEA_GW_IP)
                     .put(KEY_NMEA_GW_PORT, NMEA_GW_PORT)
+                    .put(KEY_NMEA_UDP_PORT, NMEA_UDP_PORT)
                     .put(KEY_SOCKET_TIMEOUT, NMEA_GW_TIMEOUT)
+                    .put(KEY_RECONNECT_DELAY_MIN, RECONNECT_DELAY_MIN)
+                    .put(KEY_RECONNECT_DELAY_MAX, RECONNECT_DELAY_MAX)
+                    .put(KEY_CONNECT_RETRIES, CONNECT_RETRIES)
                     .put(KEY_NMEA_CHECKSUM, NMEA_VALIDATE_CHKSUM)
                     .put(KEY_DEMO_MODE, DEMO_MODE)
-                    .put(KEY_DEMO_FILE, DEMO_FILE);
+                    .put(KEY_DEMO_FILE, DEMO_FILE)
+                    .put(KEY_REPLAY_SPEED, REPLAY_SPEED)
+                    .put(KEY_REPLAY_LOOP, REPLAY_LOOP)
+                    .put(KEY_REPLAY_START, REPLAY_START)
+                    .put(KEY_GENERATOR_INTERVAL, GENERATOR_INTERVAL);
+            JSONArray jGateways = new JSONArray();
+            for (Gateway gateway : GATEWAYS)
+                jGateways.put(gateway.toJson());
+            jNetwork.put(KEY_GATEWAYS, jGateways);
 
             JSONObject jDisplay = new JSONObject()
                     .put(KEY_DISPLAY_MODE, DISPLAY_MODE.toString())
@@ -340,19 +623,40 @@ public class AppConfig {
                     .put(KEY_MAX_VALUES_FILENAME, MAX_VALUES_FILENAME);
 
             JSONObject jTimers = new JSONObject()
-                    .put(KEY_TIMEOUT_OUT_OF_DATE, TIMEOUT_OUT_OF_DATE);
+                    .put(KEY_TIMEOUT_OUT_OF_DATE, TIMEOUT_OUT_OF_DATE)
+                    .put(KEY_DISPLAY_REFRESH_PERIOD, DISPLAY_REFRESH_PERIOD)
+                    .put(KEY_MAX_VALUES_SAVE_INTERVAL, MAX_VALUES_SAVE_INTERVAL);
 
             JSONObject jWind = new JSONObject()
                     .put(KEY_CALC_TRUE_WIND, CALCULATE_TRUE_WIND)
                     .put(KEY_CALC_GND_WIND, CALCULATE_GND_WIND)
                     .put(KEY_POLAR, POLAR_FILE);
 
+            JSONObject jRecorder = new JSONObject()
+                    .put(KEY_RECORD_NMEA, RECORD_NMEA)
+                    .put(KEY_RECORD_DIR, RECORD_DIR)
+                    .put(KEY_RECORD_SEGMENT_SIZE, RECORD_SEGMENT_SIZE)
+                    .put(KEY_RECORD_MAX_SEGMENTS, RECORD_MAX_SEGMENTS);
+
+            JSONObject jAis = new JSONObject()
+                    .put(KEY_AIS_DECODE, AIS_DECODE)
+                    .put(KEY_AIS_TARGET_TIMEOUT, AIS_TARGET_TIMEOUT)
+                    .put(KEY_AIS_CPA_ALARM, AIS_CPA_ALARM)
+                    .put(KEY_AIS_TCPA_ALARM, AIS_TCPA_ALARM);
+
+            JSONObject jLog = new JSONObject()
+                    .put(KEY_LOG_CAPACITY, LOG_CAPACITY)
+                    .put(KEY_METRICS_FILE, METRICS_FILE);
+
             JSONObject jConf = new JSONObject()
                     .put(KEY_CONFIG_VERSION, (new Date()).toString())
                     .put(KEY_NETWORK, jNetwork)
                     .put(KEY_DISPLAY, jDisplay)
                     .put(KEY_TIMERS, jTimers)
-                    .put(KEY_WIND, jWind);
+                    .put(KEY_WIND, jWind)
+                    .put(KEY_RECORDER, jRecorder)
+                    .put(KEY_AIS, jAis)
+                    .put(KEY_LOG, jLog);
 
             String configData = jConf.toString(2);
             conf.println(configData);
@@ -0,0 +1,64 @@
+package com.mpdev.android.boatinstruments;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Backoff class
+ * Delay between reconnection attempts - doubles with every failed attempt up to a max
+ * with random jitter so that several readers do not retry in step
+ * Used by one thread only
+ */
+class Backoff {
+
+    private final long minDelay;
+    private final long maxDelay;
+    private final Random random = new Random();
+    // number of failed attempts since the last success
+    private int attempts = 0;
+
+    /**
+     * Constructor
+     * @param minDelay  the delay after the first failure (msec)
+     * @param maxDelay  the max delay (msec)
+     */
+    Backoff(long minDelay, long maxDelay) {
+        this.minDelay = Math.max(minDelay, 1L);
+        this.maxDelay = Math.max(maxDelay, this.minDelay);
+    }
+
+    /** the number of failed attempts since the last success */
+    int attempts() {
+        return attempts;
+    }
+
+    /** clears the failed attempts after a success */
+    void reset() {
+        attempts = 0;
+    }
+
+    /**
+     * counts a failed attempt and returns the delay before the next one
+     * the delay is min x 2^(attempts-1) up to max, less a random jitter of up to a half
+     * @return      the delay (msec)
+     */
+    long next() {
+        int shift = Math.min(attempts++, 30);
+        long delay = Math.min(maxDelay, minDelay << shift);
+        return delay - (long) (random.nextDouble() * delay / 2);
+    }
+
+    /**
+     * waits for the next delay - returns early if the running flag is cleared
+     * @param running   the thread running flag
+     * @return          the delay (msec)
+     */
+    long sleep(AtomicBoolean running) {
+        long delay = next();
+        long end = System.currentTimeMillis() + delay;
+        long wait;
+        while (running.get() && (wait = end - System.currentTimeMillis()) > 0)
+            try { Thread.sleep(Math.min(wait, 250L)); } catch (InterruptedException ignored) {}
+        return delay;
+    }
+}
@@ -93,6 +93,7 @@ public class DisplayActivity extends FragmentActivity implements SensorEventList
         Log.d(TAG,"onResume: finished");
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.O)
     @Override
     protected void onPause() {
         Log.d(TAG,"onPause: started");
@@ -0,0 +1,24 @@
+package com.mpdev.android.boatinstruments;
+
+import java.util.TimerTask;
+
+/**
+ * Timer Task extension that refreshes the display at a fixed rate
+ * The NMEA messages update the boat data in the background read thread
+ * and the display is only refreshed here if any data has changed since the last refresh
+ */
+class DisplayRefreshTask extends TimerTask {
+
+    InstrumentsDisplayFragment displayFragment;
+
+    /** Constructor */
+    DisplayRefreshTask(InstrumentsDisplayFragment displayFragment) {
+        this.displayFragment = displayFragment;
+    }
+
+    /** the periodic task */
+    @Override
+    public void run() {
+        displayFragment.scheduleRefresh();
+    }
+}
@@ -27,15 +27,20 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.mpdev.android.ais.AisTargetStore;
+import com.mpdev.android.ais.CpaEngine;
 import com.mpdev.android.boat.BoatData;
 import com.mpdev.android.boat.BoatDataMax;
 import com.mpdev.android.boat.BoatPolar;
 import com.mpdev.android.boat.NmeaMessage;
 
 import java.util.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.mpdev.android.logger.Log;
 import com.mpdev.android.display.*;
+import com.mpdev.android.metrics.Histogram;
+import com.mpdev.android.metrics.Metrics;
 
 /**
  * InstrumentsTransitionFragment
@@ -48,6 +53,9 @@ public class InstrumentsDisplayFragment extends Fragment {
     /** Tag for the logger */
     private static final String TAG = "InstrDisplayFrgmnt";
 
+    // fastest display refresh allowed (msec)
+    private static final int MIN_REFRESH_PERIOD = 50;
+
     // display objects
     InstrDisplay display;
     Page1 page1;
@@ -56,12 +64,27 @@ public class InstrumentsDisplayFragment extends Fragment {
 
     // boat / nmea objects
     NmeaGw nmeaGw = null;
+    // live boat data - updated by the background read thread (access under dataLock)
     BoatData boatData;
+    // snapshot of the boat data - used by the UI thread only
+    BoatData displayData;
     BoatDataMax maxData;
-    NmeaMessage nmeaMessage;
+    final Object dataLock = new Object();
+    // AIS targets - updated by the background read thread
+    AisTargetStore aisTargets;
+    // set when the live data has changed since the last snapshot
+    final AtomicBoolean dataUpdated = new AtomicBoolean(false);
+    // set while a display refresh is queued in the UI thread
+    final AtomicBoolean refreshPending = new AtomicBoolean(false);
+    // when the oldest update not displayed yet was made (nanoTime, 0 if none - access under dataLock)
+    private long updatePending = 0L;
+    // time from the boat data update to the end of the display update
+    private static final Histogram RENDER_LATENCY = Metrics.histogram("latency.parseToRender", "usec");
 
     // the timer that checks for outdated data
     Timer outdatedTimer;
+    // the timer that refreshes the display
+    Timer refreshTimer;
 
     // keep the activity object for this activity here
     Activity activity;
@@ -109,15 +132,18 @@ public class InstrumentsDisplayFragment extends Fragment {
         if (null != savedInstanceState)
             display.setCurPage(savedInstanceState.getInt(STATE_CURRENT_PAGE));
 
-        // initialise the boat, nmea message and nmea gateway objects
+        // initialise the boat and nmea gateway objects
+        aisTargets = new AisTargetStore(AppConfig.AIS_TARGET_TIMEOUT);
         nmeaGw = new NmeaGw(activity, this);
-        nmeaMessage = new NmeaMessage();
         boatData = new BoatData();
+        displayData = new BoatData();
         // setup the max values structure
         maxData = new BoatDataMax();
         boatData.maxValues = maxData;
         // get previously observed max values from file
         maxData.loadMaxBoatData();
+        // the display snapshot has its own copy of the max values (see BoatData.copyFrom)
+        displayData.copyFrom(boatData);
 
         // load polar
         String polarFile = MainActivity.appFilePath + AppConfig.POLAR_FILE;
@@ -129,7 +155,7 @@ public class InstrumentsDisplayFragment extends Fragment {
             Log.i(TAG, "loaded polar\n" + BoatPolar.polarToString());
 
         // setup the button listener
-        display.setOnClickListener(new ButtonClickListener(activity, display, boatData));
+        display.setOnClickListener(new ButtonClickListener(activity, display, displayData));
 
         // start the background read thread
         nmeaGw.start();
@@ -138,11 +164,15 @@ public class InstrumentsDisplayFragment extends Fragment {
         outdatedTimer = new Timer();
         outdatedTimer.schedule(new OutdatedTimerTask(activity, display),
                 AppConfig.TIMEOUT_OUT_OF_DATE, AppConfig.TIMEOUT_OUT_OF_DATE);
+        // setup the timer that refreshes the display with the latest data
+        int refreshPeriod = Math.max(AppConfig.DISPLAY_REFRESH_PERIOD, MIN_REFRESH_PERIOD);
+        refreshTimer = new Timer();
+        refreshTimer.schedule(new DisplayRefreshTask(this), refreshPeriod, refreshPeriod);
 
         // display the view
-        display.thisPage(boatData);
+        display.thisPage(displayData);
         // display the fields (most likely all 0's at this stage)
-        display.thisPage(boatData);
+        display.thisPage(displayData);
         Log.d(TAG, "onViewCreated finished");
     }
 
@@ -152,7 +182,7 @@ public class InstrumentsDisplayFragment extends Fragment {
         super.onViewStateRestored(savedInstanceState);
         if (null != savedInstanceState)
             display.setCurPage(savedInstanceState.getInt(STATE_CURRENT_PAGE));
-        display.thisPage(boatData);
+        display.thisPage(displayData);
     }
 
     @Override
@@ -162,12 +192,31 @@ public class InstrumentsDisplayFragment extends Fragment {
         outState.putInt(STATE_CURRENT_PAGE, display.getCurPage());
     }
 
+    @Override
+    public void onDestroyView() {
+        Log.d(TAG, "onDestroyView called");
+        // stop the timers - onViewCreated starts new ones if the view is created again
+        if (outdatedTimer != null) {
+            outdatedTimer.cancel();
+            outdatedTimer = null;
+        }
+        if (refreshTimer != null) {
+            refreshTimer.cancel();
+            refreshTimer = null;
+        }
+        super.onDestroyView();
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public void pauseRead() {
         Log.i(TAG, "stopping background read thread");
         if (nmeaGw != null) {
             nmeaGw.stop();
             nmeaGw = null;
         }
+        // save any max values still waiting for the background writer
+        if (maxData != null)
+            maxData.saveMaxBoatData();
     }
 
     @RequiresApi(api = Build.VERSION_CODES.O)
@@ -175,26 +224,87 @@ public class InstrumentsDisplayFragment extends Fragment {
         if (nmeaGw == null) {
             Log.i(TAG, "starting new background read thread");
             nmeaGw = new NmeaGw(activity, this);
-            boatData = new BoatData();
-            // retain the max values already recorded
-            boatData.maxValues = maxData;
+            synchronized (dataLock) {
+                boatData = new BoatData();
+                // retain the max values already recorded
+                boatData.maxValues = maxData;
+            }
+            dataUpdated.set(true);
             nmeaGw.start();
         }
     }
 
-    /** process an incoming nmea message and update the display */
+    /**
+     * update the live boat data from an incoming nmea message
+     * called in the background read thread - the display is refreshed by the refresh timer
+     * @param nmeaMessage   the parsed nmea message
+     * @return              true if the message updated the boat data
+     */
     @RequiresApi(api = Build.VERSION_CODES.O)
-    void processMessage(String nmeaMsgStr) {
-        // build the nmea message object
-        nmeaMessage.set(nmeaMsgStr, AppConfig.NMEA_VALIDATE_CHKSUM);
-        if (boatData.updateBoatData(nmeaMessage)) {
-            // if message processed then display values
-            display.thisPage(boatData);
-            // also update maximum values (if necessary)
-            boatData.maxValues.updateMaxBoatData(boatData);
+    boolean updateBoatData(NmeaMessage nmeaMessage) {
+        synchronized (dataLock) {
+            if (boatData.updateBoatData(nmeaMessage)) {
+                // also update maximum values (if necessary)
+                boatData.maxValues.updateMaxBoatData(boatData);
+                dataUpdated.set(true);
+                if (updatePending == 0L)
+                    updatePending = System.nanoTime();
+                return true;
+            }
+            else {
+                Log.i(TAG, "message not recognised");
+                return false;
+            }
         }
-        else
-            Log.i(TAG, "message not recognised");
     }
 
+    /**
+     * passes the own vessel position, speed and course to the CPA engine
+     * called in the background read thread - the position is not known if it is out of date
+     * @param cpaEngine     the CPA engine
+     * @param now           the current time (msec - same clock as the AIS targets)
+     */
+    void ownShip(CpaEngine cpaEngine, long now) {
+        synchronized (dataLock) {
+            long posTime = boatData.fieldTime(BoatData.FLD_POSITION);
+            if (posTime == 0L || BoatData.isStale(posTime, BoatData.now(), AppConfig.TIMEOUT_OUT_OF_DATE))
+                cpaEngine.setOwnShip(Double.NaN, Double.NaN, 0.0, 0.0, now);
+            else
+                cpaEngine.setOwnShip(boatData.position.latitude(), boatData.position.longitude(),
+                        boatData.getSog(), boatData.getCog(), now);
+        }
+    }
+
+    /**
+     * called by the refresh timer - if the data has changed since the last refresh
+     * queue one display update in the UI thread (never more than one at a time)
+     */
+    void scheduleRefresh() {
+        if (!dataUpdated.get() || !refreshPending.compareAndSet(false, true))
+            return;
+        activity.runOnUiThread(refreshDisplay);
+    }
+
+    /** takes a snapshot of the live data and displays the changes - runs in the UI thread */
+    private final Runnable refreshDisplay = new Runnable() {
+        @Override
+        public void run() {
+            refreshPending.set(false);
+            if (!dataUpdated.getAndSet(false))
+                return;
+            int changed;
+            long updateTime;
+            synchronized (dataLock) {
+                displayData.copyFrom(boatData);
+                changed = boatData.takeChanges();
+                updateTime = updatePending;
+                updatePending = 0L;
+            }
+            // only the views of the changed fields are updated
+            display.updatePage(displayData, changed);
+            if (updateTime != 0L)
+                RENDER_LATENCY.record((System.nanoTime() - updateTime) / 1000L);
+        }
+    };
+
 }
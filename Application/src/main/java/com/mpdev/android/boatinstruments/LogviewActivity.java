@@ -3,23 +3,25 @@ package com.mpdev.android.boatinstruments;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Typeface;
-import android.os.Build;
 import android.os.Bundle;
-import android.support.annotation.RequiresApi;
 import android.support.v7.app.AppCompatActivity;
 import android.widget.TextView;
 
 import com.mpdev.android.logger.Log;
+import com.mpdev.android.logger.LogQuery;
 
 /**
  * Diplays the application log on the screen
- * the log is fetched from the local list maintained in com.mpdev.android.logger.Log
- * that keeps a copy of all log entires that are written tt he system log from this application run
+ * the log is fetched from the local store maintained in com.mpdev.android.logger.Log
+ * that keeps a copy of the most recent log entires that are written tt he system log from this application run
  */
 public class LogviewActivity extends AppCompatActivity {
 
     private final String TAG = "LogviewActivity";
 
+    // number of log lines added to the view at a time
+    static final int LINES_PER_PAGE = 500;
+
     // display fields //
     TextView logContainer;
     ////////////////////
@@ -56,27 +58,44 @@ public class LogviewActivity extends AppCompatActivity {
         Log.d(TAG,"onCreate - completed");
     }
 
-    /** class that prepares the log in background */
+    /** class that prepares the log in background and passes it to the view in pages */
     class GetLog implements Runnable {
-        String logText;
         String[] params;
         GetLog(String[] params) {this.params = params;}
         @Override
         public void run() {
             Log.d(TAG, "get log started in new thread");
             try {Thread.sleep(500);} catch (Exception ignored){}
-            logText = Log.log2String(params);
-            // display the result on the screen
+            LogQuery query = new LogQuery(params);
+            final String criteria = query.criteria();
+            Log.i(TAG, "logreader parameters: " + criteria);
+            // the criteria replace the "preparing log" message
             logContainer.post(new Runnable() {
-                @RequiresApi(api = Build.VERSION_CODES.O)
                 @Override
                 public void run() {
-                    int numLines = logText.length() - logText.replace("\n", "").length();
-                    Log.i(TAG, "log entries posted to the view - " + numLines + " lines");
-                    logContainer.setText(logText);
+                    logContainer.setText(criteria + "\n");
                     logContainer.setTypeface(Typeface.MONOSPACE);
                 }
             });
+            // each page of the log is appended to the view as soon as it is ready
+            final int numLines = query.run(LINES_PER_PAGE, new LogQuery.PageHandler() {
+                @Override
+                public void onPage(final String page) {
+                    logContainer.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            logContainer.append(page);
+                        }
+                    });
+                }
+            });
+            logContainer.post(new Runnable() {
+                @Override
+                public void run() {
+                    logContainer.append(numLines + " lines matching the criteria\n");
+                    Log.i(TAG, "log entries posted to the view - " + numLines + " lines");
+                }
+            });
         }
     }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@ import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
+import com.mpdev.android.display.DisplayTheme;
 import com.mpdev.android.logger.Log;
 
 /**
@@ -176,6 +177,10 @@ public class MainActivity extends AppCompatActivity {
         Log.i(TAG, "data dir: " + appFilePath);
         String confInfo = AppConfig.readConfig();
         Log.i(TAG, "read config: " + confInfo);
+        // parse the display colours
+        DisplayTheme.load();
+        // resize the in-memory log
+        Log.setCapacity(AppConfig.LOG_CAPACITY);
 
         // set introductory screen fields
         ((TextView)findViewById(R.id.main_app_name)).setText(getString(R.string.app_name));
@@ -0,0 +1,349 @@
+package com.mpdev.android.boatinstruments;
+
+import com.mpdev.android.logger.Log;
+import com.mpdev.android.metrics.Counter;
+import com.mpdev.android.metrics.Histogram;
+import com.mpdev.android.metrics.Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * NmeaFanInSource class
+ * Reads from several gateways at the same time and merges their sentences into one stream
+ *
+ * Each gateway is read by its own thread (reconnecting after an error - see Backoff) and the sentences are
+ * passed through two filters before they are queued for the main read thread:
+ *  - priority: each sentence type (talker + formatter, e.g. GPRMC, IIHDG, AIVDM) is taken from the best gateway
+ *    that currently sends it - a lower priority gateway is used only when the better ones have not sent
+ *    that type for PRIORITY_TIMEOUT
+ *    the talker is part of the type because the boat data takes some formatters only from one talker
+ *    (see NmeaSentenceTable) - $IIHDG from one gateway must not hold back $HCHDG from another
+ *    a gateway can prefer a type from one talker ("GPRMC") or from any talker ("RMC")
+ *  - duplicates: a sentence that is identical to one received from another gateway within DEDUP_WINDOW is dropped
+ *    (a gateway repeating the same reading is not a duplicate)
+ * The accepted sentences are copied into a fixed ring of slots (no allocation) - if the main thread
+ * falls behind and the ring is full the new sentences are dropped
+ */
+class NmeaFanInSource implements NmeaSource {
+
+    private static final String TAG = "NmeaFanInSource";
+
+    // a type not sent by a better gateway for this long is taken from the next one (msec)
+    static final long PRIORITY_TIMEOUT = 5000;
+    // identical sentences received within this time are duplicates (msec)
+    static final long DEDUP_WINDOW = 1000;
+    // gateway read timeout (msec) - the reader threads check their running flag at this rate
+    private static final long READER_TIMEOUT = 1000;
+
+    // ring of sentences for the main read thread
+    private static final int RING_SIZE = 512;
+    private final byte[][] ring = new byte[RING_SIZE][NmeaLineFramer.MAX_LINE];
+    private final int[] ringLength = new int[RING_SIZE];
+    // next slot to be read / written (count of sentences, slot = count % RING_SIZE)
+    private long head = 0, tail = 0;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    // duplicate filter: recent sentence hashes and receive times (direct mapped)
+    private static final int DEDUP_SIZE = 4096;
+    private final long[] dedupHash = new long[DEDUP_SIZE];
+    private final long[] dedupTime = new long[DEDUP_SIZE];
+    private final AppConfig.Gateway[] dedupGateway = new AppConfig.Gateway[DEDUP_SIZE];
+
+    // priority filter: per sentence type the priority of the gateway it is taken from and when it was last seen
+    private static final int TYPES_SIZE = 256;
+    private final long[] typeKey = new long[TYPES_SIZE];
+    private final int[] typePriority = new int[TYPES_SIZE];
+    private final long[] typeTime = new long[TYPES_SIZE];
+
+    // the gateways
+    private final Reader[] readers;
+
+    // metrics
+    private static final Counter ACCEPTED = Metrics.counter("fanin.accepted");
+    private static final Counter DUPLICATES = Metrics.counter("fanin.duplicates");
+    private static final Counter LOWER_PRIORITY = Metrics.counter("fanin.lowerPriority");
+    private static final Counter DROPPED = Metrics.counter("fanin.dropped");
+    // number of sentences waiting in the ring when the main thread reads them
+    private static final Histogram QUEUE_DEPTH = Metrics.histogram("fanin.queueDepth", "sentences");
+
+    /**
+     * Constructor
+     * @param gateways  the gateways (see AppConfig.GATEWAYS)
+     */
+    NmeaFanInSource(AppConfig.Gateway[] gateways) {
+        readers = new Reader[gateways.length];
+        for (int i = 0; i < gateways.length; ++i)
+            readers[i] = new Reader(gateways[i]);
+    }
+
+    @Override
+    public void open() throws Exception {
+        if (readers.length == 0)
+            throw new Exception("no gateways configured");
+        lock.lock();
+        try {
+            head = tail = 0;
+            for (int i = 0; i < TYPES_SIZE; ++i)
+                typeKey[i] = 0;
+            for (int i = 0; i < DEDUP_SIZE; ++i)
+                dedupTime[i] = 0L;
+        } finally {
+            lock.unlock();
+        }
+        for (Reader r : readers)
+            r.start();
+        Log.i(TAG, "reading from " + name());
+    }
+
+    @Override
+    public int read(long timeout, NmeaLineFramer.LineHandler handler) throws InterruptedException {
+        long from, to;
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (head == tail && nanos > 0)
+                nanos = notEmpty.awaitNanos(nanos);
+            from = head;
+            to = tail;
+        } finally {
+            lock.unlock();
+        }
+        if (to > from)
+            QUEUE_DEPTH.record(to - from);
+        // the slots between head and tail are not written until head moves on
+        for (long i = from; i < to; ++i) {
+            int slot = (int) (i % RING_SIZE);
+            handler.onLine(ring[slot], 0, ringLength[slot]);
+        }
+        lock.lock();
+        try {
+            head = to;
+        } finally {
+            lock.unlock();
+        }
+        return (int) (to - from);
+    }
+
+    @Override
+    public void close() {
+        for (Reader r : readers)
+            r.stop();
+        Log.i(TAG, "accepted " + ACCEPTED.get() + " duplicates " + DUPLICATES.get()
+                + " lower priority " + LOWER_PRIORITY.get() + " dropped " + DROPPED.get());
+    }
+
+    @Override
+    public boolean isLive() {
+        return true;
+    }
+
+    @Override
+    public long dataTimeout() {
+        // each gateway is reconnected by its reader
+        return 0L;
+    }
+
+    @Override
+    public String name() {
+        StringBuilder sb = new StringBuilder("fan-in");
+        for (Reader r : readers)
+            sb.append(" [").append(r.gateway.name).append(": ").append(r.source.name()).append("]");
+        return sb.toString();
+    }
+
+    /**
+     * filters a sentence from a gateway and queues it if accepted - called by the reader threads
+     * @param gateway   the gateway the sentence came from
+     * @param buf       the buffer that holds the sentence
+     * @param start     offset of the sentence in the buffer
+     * @param length    length of the sentence
+     */
+    private void offer(AppConfig.Gateway gateway, byte[] buf, int start, int length) {
+        long now = System.currentTimeMillis();
+        long type = sentenceType(buf, start, length);
+        int priority = gateway.priority(type);
+        long hash = hash(buf, start, length);
+        lock.lock();
+        try {
+            if (!bestSource(type, priority, now)) {
+                LOWER_PRIORITY.inc();
+                return;
+            }
+            int d = (int) (hash ^ (hash >>> 32)) & (DEDUP_SIZE - 1);
+            if (dedupHash[d] == hash && dedupGateway[d] != gateway && now - dedupTime[d] < DEDUP_WINDOW) {
+                DUPLICATES.inc();
+                return;
+            }
+            dedupHash[d] = hash;
+            dedupTime[d] = now;
+            dedupGateway[d] = gateway;
+            if (tail - head >= RING_SIZE) {
+                DROPPED.inc();
+                return;
+            }
+            int slot = (int) (tail % RING_SIZE);
+            System.arraycopy(buf, start, ring[slot], 0, length);
+            ringLength[slot] = length;
+            ++tail;
+            ACCEPTED.inc();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * checks (and updates) the gateway a sentence type is taken from - called with the lock held
+     * @return      true if the gateway is the best one currently sending this type
+     */
+    private boolean bestSource(long type, int priority, long now) {
+        int i = (int) ((type ^ (type >>> 24)) * 31) & (TYPES_SIZE - 1);
+        while (typeKey[i] != 0 && typeKey[i] != type)
+            i = (i + 1) & (TYPES_SIZE - 1);
+        if (typeKey[i] == 0) {
+            // first time this type is seen
+            typeKey[i] = type;
+            typePriority[i] = priority;
+            typeTime[i] = now;
+            return true;
+        }
+        if (priority > typePriority[i] && now - typeTime[i] < PRIORITY_TIMEOUT)
+            return false;
+        // same or better gateway or the better one has gone quiet
+        typePriority[i] = priority;
+        typeTime[i] = now;
+        return true;
+    }
+
+    // sentence type bits: talker (2 characters) and formatter (3 characters)
+    private static final long FORMATTER_MASK = 0xFFFFFFL;
+    private static final long TALKER_MASK = 0xFFFFL << 24;
+    private static final long TYPE_SET = 1L << 40;
+
+    /**
+     * the sentence type - the talker id and the 3 formatter characters ($GPRMC -> GPRMC, !AIVDM -> AIVDM)
+     * packed in a long (never 0)
+     */
+    static long sentenceType(byte[] buf, int start, int length) {
+        if (length < 6)
+            return TYPE_SET;
+        return TYPE_SET | ((long) (buf[start + 1] & 0xFF) << 32) | ((long) (buf[start + 2] & 0xFF) << 24)
+                | ((buf[start + 3] & 0xFF) << 16) | ((buf[start + 4] & 0xFF) << 8) | (buf[start + 5] & 0xFF);
+    }
+
+    /**
+     * the sentence type of a gateway prefer entry - see sentenceType(byte[], int, int)
+     * @param type      talker + formatter (e.g. "GPRMC") or only the formatter for any talker (e.g. "RMC")
+     */
+    static long sentenceType(String type) {
+        if (type.length() == 3) {
+            byte[] b = ("$XX" + type).getBytes();
+            return sentenceType(b, 0, b.length) & ~TALKER_MASK;
+        }
+        byte[] b = ("$" + type).getBytes();
+        return sentenceType(b, 0, b.length);
+    }
+
+    /**
+     * checks a sentence type against a prefer entry
+     * @param prefer    the prefer entry (see sentenceType(String) - no talker matches any talker)
+     * @param type      the sentence type
+     * @return          true if the type matches
+     */
+    static boolean typeMatches(long prefer, long type) {
+        if ((prefer & TALKER_MASK) == 0)
+            return (prefer & FORMATTER_MASK) == (type & FORMATTER_MASK);
+        return prefer == type;
+    }
+
+    /** creates the source for a gateway (tcp, udp or generator) */
+    private static NmeaSource createSource(AppConfig.Gateway gateway) {
+        switch (gateway.type) {
+            case UDP:
+                return new NmeaUdpSource(gateway.port);
+            case GENERATOR:
+                return NmeaMemorySource.generator(AppConfig.GENERATOR_INTERVAL);
+            case TCP:
+            default:
+                return new NmeaTcpSource(gateway.host, gateway.port);
+        }
+    }
+
+    /** 64 bit FNV-1a hash of a sentence */
+    private static long hash(byte[] buf, int start, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < start + length; ++i) {
+            h ^= buf[i] & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** reads one gateway in its own thread */
+    private class Reader implements Runnable, NmeaLineFramer.LineHandler {
+
+        final AppConfig.Gateway gateway;
+        final NmeaSource source;
+        final AtomicBoolean running = new AtomicBoolean(false);
+        private Thread thread;
+
+        Reader(AppConfig.Gateway gateway) {
+            this.gateway = gateway;
+            this.source = createSource(gateway);
+        }
+
+        void start() {
+            // the previous thread (if reopened) must have finished with the source
+            if (thread != null)
+                try { thread.join(); } catch (InterruptedException ignored) {}
+            running.set(true);
+            thread = new Thread(this, "NmeaFanIn-" + gateway.name);
+            thread.start();
+        }
+
+        void stop() {
+            running.set(false);
+        }
+
+        @Override
+        public void run() {
+            Backoff backoff = new Backoff(AppConfig.RECONNECT_DELAY_MIN, AppConfig.RECONNECT_DELAY_MAX);
+            while (running.get()) {
+                try {
+                    source.open();
+                    backoff.reset();
+                    Log.i(TAG, gateway.name + " connected: " + source.name());
+                    long timeout = source.dataTimeout();
+                    long lastData = System.currentTimeMillis();
+                    int n;
+                    while (running.get() && (n = source.read(timeout > 0 ? timeout : READER_TIMEOUT, this)) >= 0) {
+                        if (n > 0)
+                            lastData = System.currentTimeMillis();
+                        else
+                        if (timeout > 0 && System.currentTimeMillis() - lastData >= timeout) {
+                            Log.i(TAG, gateway.name + " no data for " + timeout + "msec");
+                            break;
+                        }
+                    }
+                    if (running.get())
+                        Log.i(TAG, gateway.name + " disconnected");
+                } catch (Exception e) {
+                    Log.e(TAG, gateway.name + " read error: " + e.getMessage());
+                }
+                source.close();
+                // wait before reconnecting
+                backoff.sleep(running);
+            }
+            Log.i(TAG, gateway.name + " reader terminating");
+        }
+
+        @Override
+        public void onLine(byte[] buf, int start, int length) {
+            offer(gateway, buf, start, length);
+        }
+    }
+}
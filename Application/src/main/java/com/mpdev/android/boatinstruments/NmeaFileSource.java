@@ -0,0 +1,70 @@
+package com.mpdev.android.boatinstruments;
+
+import com.mpdev.android.logger.Log;
+
+/**
+ * NmeaFileSource class
+ * Replays the NMEA sentences from a text file or a recording with their original timing (see NmeaReplay)
+ */
+class NmeaFileSource implements NmeaSource {
+
+    private static final String TAG = "NmeaFileSource";
+
+    private final String fileName;
+    private final double speed;
+    private final boolean loop;
+    private final long startTime;
+
+    private NmeaReplay replay = null;
+
+    /**
+     * Constructor
+     * @param fileName  the text file, recording segment or recording directory
+     * @param speed     the speed factor (1 = real time) - 0 for no delay
+     * @param loop      true to start again after the end of the file
+     * @param startTime where the replay starts (msec from the start of the file - a loop starts again from 0)
+     */
+    NmeaFileSource(String fileName, double speed, boolean loop, long startTime) {
+        this.fileName = fileName;
+        this.speed = speed;
+        this.loop = loop;
+        this.startTime = startTime;
+    }
+
+    @Override
+    public void open() throws Exception {
+        // the file is loaded once - opening again restarts the replay
+        if (replay == null)
+            replay = NmeaReplay.load(fileName);
+        if (replay == null)
+            throw new Exception("could not load " + fileName);
+        replay.start(speed, loop);
+        if (startTime > 0)
+            replay.seek(startTime);
+        Log.i(TAG, "replaying " + name() + " speed x" + speed + (loop ? " loop" : "")
+                + ((startTime > 0) ? " from " + startTime / 1000 + "sec" : ""));
+    }
+
+    @Override
+    public int read(long timeout, NmeaLineFramer.LineHandler handler) {
+        return replay.next(timeout, handler);
+    }
+
+    @Override
+    public void close() { }
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    @Override
+    public long dataTimeout() {
+        return 0L;
+    }
+
+    @Override
+    public String name() {
+        return "file " + fileName;
+    }
+}
@@ -3,32 +3,38 @@ package com.mpdev.android.boatinstruments;
 import android.app.Activity;
 import android.view.View;
 import android.widget.ImageView;
+import android.widget.Toast;
 
+import com.mpdev.android.ais.AisDecoder;
+import com.mpdev.android.ais.AisTarget;
+import com.mpdev.android.ais.CpaEngine;
+import com.mpdev.android.boat.NmeaMessage;
 import com.mpdev.android.logger.Log;
+import com.mpdev.android.metrics.Counter;
+import com.mpdev.android.metrics.CounterGroup;
+import com.mpdev.android.metrics.Gauge;
+import com.mpdev.android.metrics.Histogram;
+import com.mpdev.android.metrics.Metrics;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.net.SocketTimeoutException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
  * NmeaGw class
  * Interfaces to the NMEA Gateway and passes on the incoming messages to the application
- * Reads from the specified IP address and port
- * or if DEMO_MODE is set from text file
+ * Reads from the source selected in AppConfig (TCP gateway, UDP broadcast, several gateways or generator - see NmeaSource)
+ * or if DEMO_MODE is set replays a text file or a recording with its original timing
  *
  * Version 3
  * Written as a background thread
  * Can implement blocking read or can sleep if needed without causing issue to the main app
- * When data is available it calls processMessage in the UI thread to update and display the data
+ * When data is available it parses the messages and updates the boat data in this thread
+ * (the display is refreshed separately at a fixed rate - see DisplayRefreshTask)
  * The background thread is terminated by means of the Atomic Boolean "running"
+ * A lost connection is re-established in a loop with increasing delays (see run() and Backoff)
+ * The source delivers the data in bulk already split into sentences (see NmeaLineFramer)
+ * The raw sentences from a gateway can be recorded to file as they are received (see NmeaRecorder)
  */
 public class NmeaGw implements Runnable {
 
@@ -37,14 +43,48 @@ public class NmeaGw implements Runnable {
     // the running flag for this thread
     final AtomicBoolean running = new AtomicBoolean(false);
 
-    // network error count
+    // connection states
+    enum State { CONNECTING, CONNECTED, BACKOFF, STOPPED }
+    private volatile State state = State.STOPPED;
+    // connection health (fraction of the time connected) and when the state last changed
+    private double health = 0.0;
+    private long stateTime = 0L;
+    // time constant of the connection health (msec)
+    private static final long HEALTH_WINDOW = 5 * 60 * 1000;
+
+    // number of times the connection was lost
     int networkError = 0;
 
-    // input stream for demo mode
-    BufferedReader fileInput = null;
+    // the source of the sentences
+    NmeaSource source = null;
+    // how long a file or generator read waits for data (msec) - short so that the running flag is checked often
+    private static final long DEMO_READ_TIMEOUT = 250;
+
+    // records the raw sentences (null if recording is off)
+    private NmeaRecorder recorder = null;
+    // receive time of the current chunk (0 until the first sentence of the chunk)
+    private long chunkTime;
+    private long chunkNanos;
+
+    // metrics
+    private static final Counter RECEIVED = Metrics.counter("nmea.received");
+    private static final Counter CHECKSUM_ERRORS = Metrics.counter("nmea.checksumErrors");
+    private static final CounterGroup RECEIVED_BY_TYPE = Metrics.counterGroup("nmea.received");
+    private static final CounterGroup PARSED_BY_TYPE = Metrics.counterGroup("nmea.parsed");
+    private static final CounterGroup REJECTED_BY_TYPE = Metrics.counterGroup("nmea.rejected");
+    private static final Counter RECONNECTS = Metrics.counter("net.reconnects");
+    private static final Counter AIS_RECEIVED = Metrics.counter("ais.received");
+    private static final Counter AIS_DECODED = Metrics.counter("ais.decoded");
+    private static final Counter AIS_ERRORS = Metrics.counter("ais.errors");
+    // time from receiving the chunk to the end of the boat data update for each sentence
+    private static final Histogram PARSE_LATENCY = Metrics.histogram("latency.receiveToParse", "usec");
 
-    // input stream for reading from network
-    InputStream netInput = null;
+    // the nmea message (reused for every sentence)
+    private final NmeaMessage nmeaMessage = new NmeaMessage();
+    // the AIS sentences decoder - feeds the AIS target table
+    private final AisDecoder aisDecoder;
+    // the CPA / TCPA of the AIS targets and the collision alarms
+    private final CpaEngine cpaEngine;
 
     // the activity that calls this class
     Activity activity;
@@ -62,6 +102,38 @@ public class NmeaGw implements Runnable {
         this.displayFragment = displayFragment;
 
         this.imageStatus = displayFragment.display.getImageStatus();
+        this.aisDecoder = new AisDecoder(displayFragment.aisTargets);
+        // connection state and health in the metrics (the latest gateway object replaces the previous one)
+        Metrics.gauge(new Gauge("net.health") {
+            @Override
+            public long get() {
+                return health();
+            }
+        });
+        Metrics.gauge(new Gauge("net.state") {
+            @Override
+            public long get() {
+                return state.ordinal();
+            }
+            @Override
+            public String format() {
+                return state.name();
+            }
+        });
+        this.cpaEngine = new CpaEngine(displayFragment.aisTargets, AppConfig.AIS_CPA_ALARM, AppConfig.AIS_TCPA_ALARM,
+                new CpaEngine.Listener() {
+                    @Override
+                    public void onAlarm(AisTarget target, double cpa, double tcpa) {
+                        final String text = String.format("AIS target %s: CPA %.2fnm in %.1fmin",
+                                target.getName() != null ? target.getName() : String.valueOf(target.getMmsi()), cpa, tcpa);
+                        Log.w(TAG, text);
+                        showAlarm(text);
+                    }
+                    @Override
+                    public void onAlarmCleared(int mmsi) {
+                        Log.i(TAG, "AIS target " + mmsi + " CPA alarm cleared");
+                    }
+                });
     }
 
     /** start reading in a new thread */
@@ -76,182 +148,289 @@ public class NmeaGw implements Runnable {
         running.set(false);
     }
 
-    /** read NMEA messages */
+    /**
+     * read NMEA messages
+     * connection state machine: CONNECTING -> CONNECTED -> (connection lost) BACKOFF -> CONNECTING ...
+     * a failed connection is retried after an increasing delay (see Backoff) for as long as the thread runs
+     * only if the gateway cannot be reached at all at start-up the demo file is played instead
+     */
     @Override
     public void run() {
-        Log.i(TAG, "new background read called");
-        int res;
+        Log.i(TAG, "background read thread started");
         running.set(true);
-        // file (demo data)
-        if (AppConfig.DEMO_MODE) {
-            // set DEMO status on screen
-            setImageStatus("demo", 0);
-            // start the read loop from file
-            fileRead();
-        }
-        // network (real data)
-        else {
-            // start the read loop from network
-            res = netReadTCP();
-            if (res < 0) {
-                // if we cannot connect to network at all re-run this method in Demo mode
-                AppConfig.DEMO_MODE = true;
-                this.run();
-            }
-            if (res == 0) {
-                // if we have network time out then reconnect
-                netInput = null;
-                this.run();
+        boolean demo = AppConfig.DEMO_MODE;
+        boolean everConnected = false;
+        Backoff backoff = new Backoff(AppConfig.RECONNECT_DELAY_MIN, AppConfig.RECONNECT_DELAY_MAX);
+        while (running.get()) {
+            if (source == null)
+                source = createSource(demo ? NmeaSource.FILE : AppConfig.NMEA_SOURCE);
+            if (source.isLive() && AppConfig.RECORD_NMEA && recorder == null)
+                recorder = new NmeaRecorder(MainActivity.appFilePath + AppConfig.RECORD_DIR,
+                        AppConfig.RECORD_SEGMENT_SIZE, AppConfig.RECORD_MAX_SEGMENTS);
+            setState(State.CONNECTING);
+            if (!openSource()) {
+                if (!source.isLive())
+                    break;
+                setState(State.BACKOFF);
+                if (!everConnected && AppConfig.CONNECT_RETRIES > 0 && backoff.attempts() + 1 >= AppConfig.CONNECT_RETRIES) {
+                    // the gateway cannot be reached at all - play the demo file instead
+                    Log.i(TAG, "could not connect after " + AppConfig.CONNECT_RETRIES + " attempts - switching to demo");
+                    closeRecorder();
+                    demo = true;
+                    source = null;
+                    continue;
+                }
+                long delay = backoff.sleep(running);
+                Log.i(TAG, "connect attempt " + backoff.attempts() + " failed - retrying after waiting " + delay + "msec");
+                continue;
             }
+            setState(State.CONNECTED);
+            everConnected |= source.isLive();
+            backoff.reset();
+            // read until the connection is lost or the thread is stopped
+            boolean lost = readSource();
+            closeSource();
+            if (!lost)
+                break;
+            ++networkError;
+            RECONNECTS.inc();
+            setState(State.BACKOFF);
+            long delay = backoff.sleep(running);
+            Log.i(TAG, "connection lost - reconnecting after waiting " + delay + "msec (health " + health() + "%)");
         }
+        // close any open resources before closing this thread
+        closeSource();
+        closeRecorder();
+        setState(State.STOPPED);
+        Log.i(TAG, "read thread terminating");
     }
 
-    /** open the demo file and read the NMEA messages
-     * returns -1: switch to demo from file, 0: reconnect to network, 1: abort
+    /**
+     * creates the source of the sentences
+     * @param type      the source type (see NmeaSource)
+     * @return          the source (TCP if the type is not known)
      */
-    private void fileRead() {
-        Log.d(TAG, "background thread for file read started");
-        if (fileInput == null) {
-            Log.a(TAG, "DEMO mode activated");
-            Log.a(TAG, "ignoring NMEA checksum");
-            AppConfig.NMEA_VALIDATE_CHKSUM = false;
-            String fileName = MainActivity.appFilePath + AppConfig.DEMO_FILE;
-            try {
-                fileInput = new BufferedReader(new FileReader(fileName));
-                Log.i(TAG, "reading NMEA messages from file: " + fileName);
-            } catch (Exception e) {
-                Log.e(TAG, "could not open demo file: " + e.getMessage());
-                return;
-            }
-        }
-        // endless loop in the background thread (controlled by the 'running' flag)
-        while (running.get()) {
-            // read just one line from the demo file
-            try {
-                String line = fileInput.readLine();
-                if (line != null) {
-                    // process the line read from file
-                    final String finalLine = line;
-                    Log.d(TAG, "received line from file: " + finalLine);
-                    activity.runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            displayFragment.processMessage(finalLine);
-                        }
-                    });
-                } else
-                    // if eof terminate background thread
-                    return;
-            } catch (Exception e) {
-                Log.e(TAG, "could not read from input file: " + e.getMessage() + " - thread exiting");
-                return;
-            }
-            // sleep for a short while until next line is read
-            try {Thread.sleep(500);} catch (Exception ignored) {}
+    private static NmeaSource createSource(String type) {
+        switch (type) {
+            case NmeaSource.UDP:
+                return new NmeaUdpSource(AppConfig.NMEA_UDP_PORT);
+            case NmeaSource.FILE:
+                return new NmeaFileSource(MainActivity.appFilePath + AppConfig.DEMO_FILE,
+                        AppConfig.REPLAY_SPEED, AppConfig.REPLAY_LOOP, AppConfig.REPLAY_START * 1000L);
+            case NmeaSource.GENERATOR:
+                return NmeaMemorySource.generator(AppConfig.GENERATOR_INTERVAL);
+            case NmeaSource.MULTI:
+                return new NmeaFanInSource(AppConfig.GATEWAYS);
+            case NmeaSource.TCP:
+            default:
+                return new NmeaTcpSource(AppConfig.NMEA_GW_IP, AppConfig.NMEA_GW_PORT);
         }
     }
 
     /**
-     * connect to the server and read the NMEA messages
-     * TCP protocol
-     * @return   -1 if it cannot connect to network (the caller will switch to demo)
-     *           0  if it cannot read from network (the caller will reconnect)
-     *           1  if too many network errors (the caller will abort)
+     * opens the source (connects to the gateway or loads the demo file)
+     * @return      true if the source is open
      */
-    private int netReadTCP() {
-        Log.d(TAG, "background thread for network read started");
-        Socket clientSocket = new Socket();
-        // if the input stream is null then we need to connect to the server first
-        if (netInput == null) {
+    private boolean openSource() {
+        if (source.isLive()) {
             // first set the wifi image on
             setImageStatus("wifiok", 0);
             // but while trying to connect set temporarily no wifi
             setImageStatus("nowifi", 200);
-            try {
-                // set receive buffer size
-                // clientSocket.setReceiveBufferSize(256);
-                Log.i(TAG, "receive buffer size: " + clientSocket.getReceiveBufferSize());
-                // connect to server
-                clientSocket.connect(new InetSocketAddress(AppConfig.NMEA_GW_IP, AppConfig.NMEA_GW_PORT), 3000);
-                clientSocket.setKeepAlive(true);
-                // get the input stream
-                netInput = clientSocket.getInputStream();
-                Log.i(TAG, "connected to " + AppConfig.NMEA_GW_IP + ":" + AppConfig.NMEA_GW_PORT);
-                if (AppConfig.NMEA_GW_TIMEOUT > 0) {
-                    clientSocket.setSoTimeout(AppConfig.NMEA_GW_TIMEOUT);
-                    Log.d(TAG, "socket timeout set to " + AppConfig.NMEA_GW_TIMEOUT + "msec");
-                }
+        }
+        else {
+            // set DEMO status on screen
+            setImageStatus("demo", 0);
+            Log.a(TAG, "DEMO mode activated");
+            Log.a(TAG, "ignoring NMEA checksum");
+            AppConfig.NMEA_VALIDATE_CHKSUM = false;
+        }
+        try {
+            source.open();
+            if (source.isLive()) {
+                if (source.dataTimeout() > 0)
+                    Log.d(TAG, "socket timeout set to " + source.dataTimeout() + "msec");
                 // set wifi status on
-                setImageStatus("wifiok", 50  );
-            } catch (Exception e) {
-                // could not connect to server
-                Log.e(TAG, "could not connect to server: " + e.getMessage());
-                // set status to no wifi
-                setImageStatus("nowifi", 0);
-                // switch to demo
-                AppConfig.DEMO_MODE = true;
-                // and stop this thread (return -1 for error)
-                return -1;
+                setImageStatus("wifiok", 50);
             }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "could not open " + source.name() + ": " + e.getMessage());
+            closeSource();
+            // could not connect to server - set status to no wifi
+            if (source.isLive())
+                setImageStatus("nowifi", 0);
+            return false;
         }
-        // read from the server - endless loop controlled by the 'running' flag
+    }
+
+    /**
+     * reads the NMEA messages from the open source
+     * @return      true if the connection was lost (the caller will reconnect)
+     *              false at the end of the demo data or when the thread is stopped
+     */
+    private boolean readSource() {
+        Log.d(TAG, "reading from " + source.name());
+        // if no timeout is configured wake up every second just to check the 'running' flag
+        long dataTimeout = source.dataTimeout();
+        long readTimeout = (dataTimeout > 0) ? dataTimeout : source.isLive() ? 1000 : DEMO_READ_TIMEOUT;
+        long lastData = System.currentTimeMillis();
+        // read from the source - endless loop controlled by the 'running' flag
         while (running.get()) {
             try {
-                // read a line from the socket stream
-                String line = "";
-                byte[] c = { 0 };
-                do {
-                    c[0] = (byte)netInput.read();
-                    // turn wifi status on for a short while to show data was read
+                chunkNanos = 0L;
+                int n = source.read(readTimeout, lineHandler);
+                updateCpa();
+                if (n < 0) {
+                    if (!source.isLive()) {
+                        Log.i(TAG, "end of demo data - thread exiting");
+                        return false;
+                    }
+                    Log.i(TAG, "connection closed by " + source.name());
+                    return true;
+                }
+                if (n == 0) {
+                    if (dataTimeout <= 0 || System.currentTimeMillis() - lastData < dataTimeout)
+                        continue;
+                    throw new SocketTimeoutException("no data for " + dataTimeout + "msec");
+                }
+                lastData = System.currentTimeMillis();
+                if (source.isLive()) {
+                    // turn wifi status on for a short while to show data was read (once per chunk)
                     setImageStatus("wifiok", 0);
                     setImageStatus("none", 50);
-                    if (c[0] == 0x000A)
-                        break;
-                    if (c[0] != 0x000D)
-                        line = line + new String(c);
-                    if (c[0] < 0) {
-                        Log.i(TAG, "network read returned nothing");
-                        // return 0 will result in disconnecting and reconnecting
-                        try {clientSocket.close();}catch (Exception ignored){}
-                        return 0;
-                    }
-                } while (c[0] > 0);
-                final String finalLine = line;
-                Log.d(TAG, "received line from network: " + finalLine);
-                activity.runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        displayFragment.processMessage(finalLine);
-                    }
-                });
+                }
             } catch (SocketTimeoutException e) {
                 setImageStatus("nowifi", 50);
                 Log.i(TAG, "network read timeout: " + e.getMessage());
-                if (++networkError > 200) {
-                    Log.i(TAG, "too many network errors - abort thread");
-                    return 1;
-                }
-                // return 0 will result in disconnecting and reconnecting
-                try {clientSocket.close();}catch (Exception ignored){}
-                return 0;
+                return true;
             } catch (Exception e) {
                 setImageStatus("nowifi", 50);
-                Log.e(TAG, "network read error: " + e.getMessage());
-                return 1;
+                Log.e(TAG, "read error from " + source.name() + ": " + e.getMessage());
+                return source.isLive();
             }
         }
+        return false;
+    }
 
-        // close any open resources before closing this thread
-        try {
-            if (netInput != null)
-                netInput.close();
-            if (clientSocket.isConnected())
-                clientSocket.close();
-        } catch (Exception e) {
-            Log.e(TAG, "could not close resource: " + e.getMessage());
+    /** sets the connection state and updates the connection health */
+    private synchronized void setState(State newState) {
+        long now = System.currentTimeMillis();
+        health = healthAt(now);
+        stateTime = now;
+        state = newState;
+    }
+
+    /** the connection health at a time - the current state carried on from when it was set (call under the lock) */
+    private double healthAt(long now) {
+        if (stateTime == 0)
+            return health;
+        // exponentially weighted fraction of the time connected
+        double a = 1.0 - Math.exp(-(now - stateTime) / (double) HEALTH_WINDOW);
+        return health + a * (((state == State.CONNECTED) ? 1.0 : 0.0) - health);
+    }
+
+    /** the connection state */
+    State getState() {
+        return state;
+    }
+
+    /**
+     * the connection health - percentage of the time connected over the last few minutes
+     * (exponentially weighted with time constant HEALTH_WINDOW)
+     * @return      0 - 100
+     */
+    synchronized int health() {
+        return (int) Math.round(healthAt(System.currentTimeMillis()) * 100.0);
+    }
+
+    /** parses each sentence in place in the source buffer and updates the boat data */
+    private final NmeaLineFramer.LineHandler lineHandler = new NmeaLineFramer.LineHandler() {
+        @Override
+        public void onLine(byte[] buf, int start, int length) {
+            if (chunkNanos == 0L) {
+                chunkNanos = System.nanoTime();
+                chunkTime = System.currentTimeMillis();
+            }
+            if (recorder != null)
+                recorder.record(buf, start, length, chunkTime);
+            if (AisDecoder.isAis(buf, start, length)) {
+                decodeAis(buf, start, length);
+                return;
+            }
+            nmeaMessage.set(buf, start, length, AppConfig.NMEA_VALIDATE_CHKSUM);
+            RECEIVED.inc();
+            count(RECEIVED_BY_TYPE);
+            if (nmeaMessage.isChecksumError())
+                CHECKSUM_ERRORS.inc();
+            if (displayFragment.updateBoatData(nmeaMessage))
+                count(PARSED_BY_TYPE);
+            else
+                count(REJECTED_BY_TYPE);
+            PARSE_LATENCY.record((System.nanoTime() - chunkNanos) / 1000L);
+        }
+    };
+
+    /** decodes an AIS sentence (the AIS targets are updated when a message is complete) */
+    private void decodeAis(byte[] buf, int start, int length) {
+        AIS_RECEIVED.inc();
+        if (!AppConfig.AIS_DECODE)
+            return;
+        switch (aisDecoder.decode(buf, start, length, AppConfig.NMEA_VALIDATE_CHKSUM)) {
+            case AisDecoder.DECODED:
+                AIS_DECODED.inc();
+                break;
+            case AisDecoder.ERROR:
+                AIS_ERRORS.inc();
+                break;
+        }
+    }
+
+    /** updates the CPA of the AIS targets (once every second at most) */
+    private void updateCpa() {
+        if (!AppConfig.AIS_DECODE)
+            return;
+        long now = System.currentTimeMillis();
+        if (!cpaEngine.isDue(now))
+            return;
+        // the targets are also evicted when no AIS data is received
+        displayFragment.aisTargets.evict(now);
+        displayFragment.ownShip(cpaEngine, now);
+        cpaEngine.update(now);
+    }
+
+    /** shows a collision alarm on the screen */
+    private void showAlarm(final String text) {
+        activity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(activity, text, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /** counts the current message in its formatter counter */
+    private void count(CounterGroup group) {
+        int type = nmeaMessage.getFormatterCode();
+        Counter counter = group.get(type);
+        if (counter == null)
+            counter = group.add(type, nmeaMessage.formatterName());
+        counter.inc();
+    }
+
+    /** closes the source */
+    private void closeSource() {
+        if (source != null)
+            source.close();
+    }
+
+    /** closes the recorder (the recorded data is flushed to the file) */
+    private void closeRecorder() {
+        if (recorder != null) {
+            Log.i(TAG, "sentences recorded: " + recorder.recorded);
+            recorder.close();
+            recorder = null;
         }
-        Log.i(TAG, "network read thread terminating");
-        return 0;
     }
 
     /** sets the status image on the screen with or without delay */
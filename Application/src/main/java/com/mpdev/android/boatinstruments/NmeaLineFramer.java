@@ -0,0 +1,142 @@
+package com.mpdev.android.boatinstruments;
+
+import java.nio.ByteBuffer;
+
+/**
+ * NmeaLineFramer class
+ * Splits the bytes read from the gateway in bulk into CR/LF delimited NMEA sentences
+ *
+ * Each chunk is copied once from the (direct) read buffer into a chunk array
+ * and the sentences that are complete inside the chunk are passed on in place (buffer, offset, length)
+ * Only a sentence that is split between two reads is copied to the carry-over buffer
+ * Data that is already in an array (e.g. a datagram) is framed in place without the chunk copy
+ * Sentences longer than the max line length are discarded
+ */
+class NmeaLineFramer {
+
+    /** receives the framed sentences */
+    interface LineHandler {
+        /**
+         * called for each complete sentence (CR/LF removed)
+         * the buffer is reused after the call returns
+         * @param buf       the buffer that holds the sentence
+         * @param start     offset of the sentence in the buffer
+         * @param length    length of the sentence
+         */
+        void onLine(byte[] buf, int start, int length);
+    }
+
+    // max length of a sentence (NMEA 0183 limit is 82 chars - allow for non-compliant talkers)
+    static final int MAX_LINE = 256;
+
+    // the bytes of the current chunk
+    private byte[] chunk;
+    // the start of a sentence split between two reads
+    private final byte[] carry = new byte[MAX_LINE];
+    private int carryLen = 0;
+    // true while skipping the rest of a sentence that is too long
+    private boolean overflow = false;
+    // number of sentences discarded because they were too long
+    int discarded = 0;
+
+    /** Constructor */
+    NmeaLineFramer(int chunkSize) {
+        chunk = new byte[chunkSize];
+    }
+
+    /** discards any partial sentence (e.g. after reconnecting) */
+    void reset() {
+        carryLen = 0;
+        overflow = false;
+    }
+
+    /**
+     * frames the bytes available in the buffer (between position and limit)
+     * and passes the complete sentences to the handler
+     * all the available bytes are consumed
+     * @param data      the read buffer (flipped for reading)
+     * @param handler   the handler for the sentences
+     * @return          the number of sentences found
+     */
+    int frame(ByteBuffer data, LineHandler handler) {
+        int n = data.remaining();
+        if (n > chunk.length)
+            chunk = new byte[n];
+        data.get(chunk, 0, n);
+        return frame(chunk, 0, n, handler);
+    }
+
+    /**
+     * frames the bytes in an array in place (no copy) and passes the complete sentences to the handler
+     * all the bytes are consumed - only an incomplete sentence at the end is copied to the carry-over buffer
+     * @param buf       the bytes
+     * @param offset    the first byte
+     * @param n         the number of bytes
+     * @param handler   the handler for the sentences
+     * @return          the number of sentences found
+     */
+    int frame(byte[] buf, int offset, int n, LineHandler handler) {
+        int lines = 0;
+        int start = offset;
+        int end = offset + n;
+        for (int i = offset; i < end; ++i) {
+            byte c = buf[i];
+            if (c != '\n' && c != '\r')
+                continue;
+            if (carryLen > 0 || overflow) {
+                // end of a sentence that started in a previous chunk
+                if (append(buf, start, i - start) && carryLen > 0) {
+                    handler.onLine(carry, 0, carryLen);
+                    ++lines;
+                }
+                carryLen = 0;
+                overflow = false;
+            }
+            else
+            if (i > start) {
+                if (i - start <= MAX_LINE) {
+                    handler.onLine(buf, start, i - start);
+                    ++lines;
+                }
+                else
+                    ++discarded;
+            }
+            start = i + 1;
+        }
+        // keep the incomplete sentence for the next chunk
+        if (start < end)
+            append(buf, start, end - start);
+        return lines;
+    }
+
+    /**
+     * passes on the incomplete sentence kept from the last chunk as a complete one
+     * used when the end of the chunk also ends the sentence (e.g. the end of a datagram)
+     * @param handler   the handler for the sentence
+     * @return          the number of sentences passed on (0 or 1)
+     */
+    int flush(LineHandler handler) {
+        int lines = 0;
+        if (carryLen > 0 && !overflow) {
+            handler.onLine(carry, 0, carryLen);
+            lines = 1;
+        }
+        reset();
+        return lines;
+    }
+
+    /** adds bytes to the carry-over buffer - returns false if the sentence is too long */
+    private boolean append(byte[] buf, int start, int length) {
+        if (overflow)
+            return false;
+        if (carryLen + length > MAX_LINE) {
+            overflow = true;
+            carryLen = 0;
+            ++discarded;
+            return false;
+        }
+        System.arraycopy(buf, start, carry, carryLen, length);
+        carryLen += length;
+        return true;
+    }
+}
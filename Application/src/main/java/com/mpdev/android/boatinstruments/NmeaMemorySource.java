@@ -0,0 +1,145 @@
+package com.mpdev.android.boatinstruments;
+
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NmeaMemorySource class
+ * In-memory source of NMEA sentences
+ * The sentences are either added to the source by another thread (loopback stand-in for a gateway)
+ * or generated from a simple simulated boat at a fixed interval (see generator())
+ */
+class NmeaMemorySource implements NmeaSource {
+
+    // max number of sentences queued - the oldest are dropped
+    static final int QUEUE_SIZE = 4096;
+
+    private final LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+    // generator interval (msec) - 0 if the sentences are added by the caller
+    private final long interval;
+    private long nextGenerated;
+    // simulated boat
+    private double elapsed = 0.0;
+    private double lat = 50.8016, lon = -1.1231;
+    private final StringBuilder sb = new StringBuilder();
+
+    /** Constructor - source for the sentences added by the caller */
+    NmeaMemorySource() {
+        this(0L);
+    }
+
+    /** Constructor */
+    private NmeaMemorySource(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * source that generates the sentences of a simulated boat
+     * @param interval  time between each set of sentences (msec)
+     * @return          the source
+     */
+    static NmeaMemorySource generator(long interval) {
+        return new NmeaMemorySource(Math.max(interval, 10L));
+    }
+
+    /**
+     * adds a sentence to the source - can be called from any thread
+     * @param sentence  the sentence (without CR/LF)
+     */
+    void add(String sentence) {
+        byte[] b = sentence.getBytes();
+        while (!queue.offer(b))
+            queue.poll();
+    }
+
+    @Override
+    public void open() {
+        nextGenerated = System.currentTimeMillis();
+    }
+
+    @Override
+    public int read(long timeout, NmeaLineFramer.LineHandler handler) throws InterruptedException {
+        byte[] b;
+        if (interval > 0) {
+            generate(timeout);
+            b = queue.poll();
+        }
+        else
+            b = queue.poll(timeout, TimeUnit.MILLISECONDS);
+        int n = 0;
+        while (b != null) {
+            handler.onLine(b, 0, b.length);
+            ++n;
+            b = queue.poll();
+        }
+        return n;
+    }
+
+    @Override
+    public void close() { }
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    @Override
+    public long dataTimeout() {
+        return 0L;
+    }
+
+    @Override
+    public String name() {
+        return (interval > 0) ? "generator every " + interval + "msec" : "memory";
+    }
+
+    /** generates the next set of sentences when it is due (waits up to timeout msec) */
+    private void generate(long timeout) throws InterruptedException {
+        long wait = nextGenerated - System.currentTimeMillis();
+        if (wait > timeout) {
+            Thread.sleep(timeout);
+            return;
+        }
+        if (wait > 0)
+            Thread.sleep(wait);
+        nextGenerated += interval;
+        elapsed += interval / 1000.0;
+
+        // slowly changing heading, speed, wind and depth
+        double heading = (180.0 + 30.0 * Math.sin(elapsed / 120.0) + 360.0) % 360.0;
+        double speed = 5.5 + 1.0 * Math.sin(elapsed / 45.0);
+        double awa = (300.0 + 10.0 * Math.sin(elapsed / 20.0)) % 360.0;
+        double aws = 12.0 + 3.0 * Math.sin(elapsed / 30.0);
+        double depth = 8.0 + 2.0 * Math.sin(elapsed / 60.0);
+        lat += speed * Math.cos(Math.toRadians(heading)) * interval / 3600000.0 / 60.0;
+        lon += speed * Math.sin(Math.toRadians(heading)) * interval / 3600000.0 / 60.0 / Math.cos(Math.toRadians(lat));
+
+        add(checksum("$HCHDG,%.1f,,,0.7,W", heading));
+        add(checksum("$IIVHW,,T,%.1f,M,%.1f,N,%.1f,K", heading, speed, speed * 1.852));
+        add(checksum("$WIMWV,%.1f,R,%.1f,N,A", awa, aws));
+        add(checksum("$SDDPT,%.2f,0.3,", depth));
+        add(checksum("$GPRMC,%s,A,%s,%s,%.2f,%.1f,%s,0.73,W,A",
+                String.format(Locale.US, "%1$tH%1$tM%1$tS", System.currentTimeMillis()),
+                position(lat, 2, 'N', 'S'), position(lon, 3, 'E', 'W'),
+                speed, heading, String.format(Locale.US, "%1$td%1$tm%1$ty", System.currentTimeMillis())));
+    }
+
+    /** formats a sentence and adds the checksum */
+    private String checksum(String format, Object... args) {
+        sb.setLength(0);
+        sb.append(String.format(Locale.US, format, args));
+        int chksum = 0;
+        for (int i = 1; i < sb.length(); ++i)
+            chksum ^= sb.charAt(i);
+        return sb.append(String.format(Locale.US, "*%02X", chksum)).toString();
+    }
+
+    /** latitude or longitude as ddmm.mmmm,H */
+    private static String position(double value, int degDigits, char positive, char negative) {
+        double v = Math.abs(value);
+        int deg = (int) v;
+        double min = (v - deg) * 60.0;
+        return String.format(Locale.US, "%0" + degDigits + "d%07.4f,%c", deg, min, value >= 0 ? positive : negative);
+    }
+}
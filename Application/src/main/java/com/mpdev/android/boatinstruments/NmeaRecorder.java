@@ -0,0 +1,161 @@
+package com.mpdev.android.boatinstruments;
+
+import com.mpdev.android.logger.Log;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * NmeaRecorder class
+ * Records the raw NMEA sentences received from the gateway with their receive time
+ * in rolling memory-mapped segment files (see AppConfig recorder settings)
+ *
+ * Segment file layout (little endian):
+ *   header: magic "NMR1" (4 bytes), segment start time in epoch millis (8 bytes)
+ *   records: sentence length (2 bytes), receive time in millis after the segment start (4 bytes), sentence bytes
+ *   a record length of 0 marks the end of the data (the rest of the mapped file is zero)
+ *
+ * Writing a sentence is a copy into the mapped buffer - the OS writes the pages to the file
+ * A new segment is started when the current one is full and the oldest segments are deleted
+ * Used by the read thread only - not thread safe
+ */
+class NmeaRecorder {
+
+    private static final String TAG = "NmeaRecorder";
+
+    static final byte[] MAGIC = { 'N', 'M', 'R', '1' };
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_HEADER_SIZE = 6;
+    static final String SEGMENT_PREFIX = "nmea_";
+    static final String SEGMENT_SUFFIX = ".rec";
+    // max time offset in a segment (unsigned 32 bit millis) - a new segment is started after that
+    private static final long MAX_TIME_OFFSET = 0xFFFFFFFFL;
+
+    private final File dir;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    // the current segment
+    private RandomAccessFile segmentFile = null;
+    private MappedByteBuffer segment = null;
+    private long segmentStart;
+    // number of sentences recorded
+    long recorded = 0;
+    // true after an error - nothing more is recorded
+    private boolean failed = false;
+
+    /**
+     * Constructor
+     * @param dir           the directory for the segment files
+     * @param segmentSize   the size of each segment file in bytes
+     * @param maxSegments   the max number of segment files kept (the oldest are deleted)
+     */
+    NmeaRecorder(String dir, int segmentSize, int maxSegments) {
+        this.dir = new File(dir);
+        this.segmentSize = Math.max(segmentSize, HEADER_SIZE + RECORD_HEADER_SIZE + NmeaLineFramer.MAX_LINE + 1);
+        this.maxSegments = Math.max(maxSegments, 1);
+    }
+
+    /**
+     * records one sentence
+     * @param buf       the buffer that holds the sentence
+     * @param start     offset of the sentence in the buffer
+     * @param length    length of the sentence (CR/LF removed)
+     * @param time      the receive time (epoch millis)
+     */
+    void record(byte[] buf, int start, int length, long time) {
+        if (failed || length <= 0 || length > NmeaLineFramer.MAX_LINE)
+            return;
+        // a new segment if there is no room for the record (and the end marker) or the time offset overflows
+        if (segment == null
+        ||  segment.remaining() < RECORD_HEADER_SIZE + length + 2
+        ||  time - segmentStart > MAX_TIME_OFFSET || time < segmentStart) {
+            if (!nextSegment(time))
+                return;
+        }
+        segment.putShort((short) length);
+        segment.putInt((int) (time - segmentStart));
+        segment.put(buf, start, length);
+        ++recorded;
+    }
+
+    /** closes the current segment (the data written so far is flushed to the file) */
+    void close() {
+        if (segment != null) {
+            try {
+                segment.force();
+            } catch (Exception e) {
+                Log.e(TAG, "could not flush segment: " + e.getMessage());
+            }
+            segment = null;
+        }
+        if (segmentFile != null) {
+            try {
+                segmentFile.close();
+            } catch (Exception e) {
+                Log.e(TAG, "could not close segment: " + e.getMessage());
+            }
+            segmentFile = null;
+        }
+    }
+
+    /** closes the current segment and maps a new one - returns false if it cannot be created */
+    private boolean nextSegment(long time) {
+        close();
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs())
+                throw new Exception("cannot create directory " + dir.getPath());
+            deleteOldSegments(maxSegments - 1);
+            SimpleDateFormat dF = new SimpleDateFormat("yyyyMMdd_HHmmss_SSS", Locale.US);
+            File file = new File(dir, SEGMENT_PREFIX + dF.format(new Date(time)) + SEGMENT_SUFFIX);
+            segmentFile = new RandomAccessFile(file, "rw");
+            segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segment.put(MAGIC);
+            segment.putLong(time);
+            segmentStart = time;
+            Log.i(TAG, "recording NMEA sentences to " + file.getPath());
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "could not create segment - recording stopped: " + e.getMessage());
+            close();
+            failed = true;
+            return false;
+        }
+    }
+
+    /** deletes the oldest segment files so that at most 'keep' files are left */
+    private void deleteOldSegments(int keep) {
+        File[] files = listSegments(dir);
+        for (int i = 0; i < files.length - keep; ++i) {
+            if (!files[i].delete())
+                Log.w(TAG, "could not delete segment " + files[i].getName());
+        }
+    }
+
+    /**
+     * the segment files in a directory - oldest first
+     * @param dir       the directory
+     * @return          the segment files (empty if none)
+     */
+    static File[] listSegments(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return new File[0];
+        int n = 0;
+        for (File f : files)
+            if (f.getName().startsWith(SEGMENT_PREFIX) && f.getName().endsWith(SEGMENT_SUFFIX))
+                files[n++] = f;
+        files = Arrays.copyOf(files, n);
+        // the names start with the date and time so they sort in time order
+        Arrays.sort(files);
+        return files;
+    }
+}
@@ -0,0 +1,346 @@
+package com.mpdev.android.boatinstruments;
+
+import com.mpdev.android.logger.Log;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NmeaReplay class
+ * Replays NMEA sentences from a text file or from recorded segment files (see NmeaRecorder)
+ * honouring the original time between the sentences, scaled by the replay speed
+ *
+ * The file is read into memory once and indexed (offset, length and time of each sentence)
+ * For recordings the time of each sentence is the recorded receive time
+ * For text files it is taken from the ZDA and RMC sentences and the sentences between two time fixes
+ * are spread evenly over the interval (a fixed interval is used if the file has no time fixes)
+ *
+ * The replay can be moved to another point (seek) while it is playing and can loop back to the start
+ */
+class NmeaReplay {
+
+    private static final String TAG = "NmeaReplay";
+
+    // time between sentences when the file has no time information (msec)
+    static final long DEFAULT_LINE_INTERVAL = 500;
+    // number of sentences passed on in one call when replaying with no delay
+    private static final int UNTHROTTLED_BATCH = 256;
+    // a time fix earlier than the previous one by more than this is taken as the next day
+    private static final long HALF_DAY = 12L * 60L * 60L * 1000L;
+    private static final long DAY = 2 * HALF_DAY;
+
+    // the sentences
+    private byte[] data;
+    private int[] offsets;
+    private int[] lengths;
+    // time of each sentence (msec from the first sentence)
+    private long[] times;
+    private int numLines = 0;
+
+    // the next sentence to be replayed - set by seek()
+    private volatile int seekLine = -1;
+
+    // replay state (used by the replay thread only)
+    private double speed = 1.0;
+    private boolean loop = false;
+    private int nextLine = 0;
+    // nanoTime that corresponds to the time of the sentence the replay (re)started from
+    private long startNanos;
+    private long startTime;
+
+    /** Constructor - use load() */
+    private NmeaReplay() { }
+
+    /**
+     * loads a replay file
+     * @param fileName  a text file with one sentence per line, a recorded segment file (.rec)
+     *                  or a directory of recorded segments
+     * @return          the replay or null if the file cannot be read
+     */
+    static NmeaReplay load(String fileName) {
+        NmeaReplay replay = new NmeaReplay();
+        File file = new File(fileName);
+        try {
+            if (file.isDirectory())
+                replay.loadRecording(NmeaRecorder.listSegments(file));
+            else
+            if (fileName.endsWith(NmeaRecorder.SEGMENT_SUFFIX))
+                replay.loadRecording(new File[] { file });
+            else
+                replay.loadText(Files.readAllBytes(file.toPath()));
+        } catch (Exception e) {
+            Log.e(TAG, "could not load replay file " + fileName + ": " + e.getMessage());
+            return null;
+        }
+        Log.i(TAG, "loaded " + replay.numLines + " sentences - duration " + replay.duration()/1000 + " sec");
+        return replay;
+    }
+
+    /** number of sentences */
+    int size() {
+        return numLines;
+    }
+
+    /** the time from the first to the last sentence (msec) */
+    long duration() {
+        return (numLines == 0) ? 0L : times[numLines - 1];
+    }
+
+    /**
+     * moves the replay to a point in time - can be called while the replay is running
+     * @param time      msec from the start of the file
+     */
+    void seek(long time) {
+        int i = Arrays.binarySearch(times, 0, numLines, time);
+        if (i < 0)
+            i = -i - 1;
+        // first of the sentences with the same time
+        while (i > 0 && i < numLines && times[i - 1] == times[i])
+            --i;
+        seekLine = Math.min(i, numLines);
+    }
+
+    /**
+     * prepares the replay from the beginning
+     * @param speed     the speed factor (1 = real time, 10 = 10 times faster) - 0 for no delay
+     * @param loop      true to start again from the beginning after the last sentence
+     */
+    void start(double speed, boolean loop) {
+        this.speed = speed;
+        this.loop = loop;
+        seekLine = -1;
+        restart(0);
+    }
+
+    /**
+     * replays the sentences that are due - waits up to maxWait msec for the next one
+     * @param maxWait   max time to wait (msec) - short so that the caller can check its running flag
+     * @param handler   receives the sentences
+     * @return          the number of sentences replayed (0 if none was due) or -1 at the end of the replay
+     */
+    int next(long maxWait, NmeaLineFramer.LineHandler handler) {
+        int seek = seekLine;
+        if (seek >= 0) {
+            seekLine = -1;
+            restart(seek);
+        }
+        if (nextLine >= numLines) {
+            if (!loop || numLines == 0)
+                return -1;
+            // start again from the beginning
+            restart(0);
+        }
+        int n = 0;
+        if (speed > 0.0) {
+            // wait until it is time for the next sentence
+            long wait = (due(nextLine) - System.nanoTime()) / 1000000L;
+            if (wait > 0) {
+                try { Thread.sleep(Math.min(wait, maxWait)); } catch (InterruptedException ignored) {}
+            }
+            long now = System.nanoTime();
+            while (nextLine < numLines && due(nextLine) - now <= 0L) {
+                handler.onLine(data, offsets[nextLine], lengths[nextLine]);
+                ++nextLine;
+                ++n;
+            }
+        }
+        else {
+            // no delay - a batch at a time
+            int end = Math.min(numLines, nextLine + UNTHROTTLED_BATCH);
+            for (; nextLine < end; ++nextLine, ++n)
+                handler.onLine(data, offsets[nextLine], lengths[nextLine]);
+        }
+        return n;
+    }
+
+    /**
+     * replays the sentences - returns when the end is reached (unless looping) or when running is cleared
+     * @param speed     the speed factor (1 = real time, 10 = 10 times faster) - 0 for no delay
+     * @param loop      true to start again from the beginning after the last sentence
+     * @param running   the thread running flag
+     * @param handler   receives the sentences
+     * @return          the number of sentences replayed
+     */
+    long play(double speed, boolean loop, AtomicBoolean running, NmeaLineFramer.LineHandler handler) {
+        start(speed, loop);
+        long played = 0;
+        int n;
+        while (running.get() && (n = next(250L, handler)) >= 0)
+            played += n;
+        return played;
+    }
+
+    /** continues the replay from a sentence - its time is now */
+    private void restart(int line) {
+        nextLine = line;
+        startNanos = System.nanoTime();
+        startTime = (line < numLines) ? times[line] : 0L;
+    }
+
+    /** the nanoTime when a sentence is due */
+    private long due(int line) {
+        return startNanos + (long) ((times[line] - startTime) * 1000000.0 / speed);
+    }
+
+    /** indexes a text file - one sentence per line */
+    private void loadText(byte[] text) {
+        data = text;
+        allocate(64);
+        int start = 0;
+        for (int i = 0; i <= text.length; ++i) {
+            if (i < text.length && text[i] != '\n' && text[i] != '\r')
+                continue;
+            if (i > start && i - start <= NmeaLineFramer.MAX_LINE)
+                add(start, i - start, -1L);
+            start = i + 1;
+        }
+        setTextTimes();
+    }
+
+    /** loads the recorded sentences from segment files */
+    private void loadRecording(File[] segments) throws Exception {
+        allocate(1024);
+        data = new byte[64 * 1024];
+        int size = 0;
+        long firstTime = -1L;
+        for (File segment : segments) {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(segment.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[NmeaRecorder.MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(magic, NmeaRecorder.MAGIC))
+                throw new Exception("not a recording: " + segment.getName());
+            long segmentStart = buf.getLong();
+            while (buf.remaining() >= NmeaRecorder.RECORD_HEADER_SIZE) {
+                int length = buf.getShort() & 0xFFFF;
+                if (length == 0 || buf.remaining() < 4 + length)
+                    break;
+                long time = segmentStart + (buf.getInt() & 0xFFFFFFFFL);
+                if (firstTime < 0)
+                    firstTime = time;
+                if (size + length > data.length)
+                    data = Arrays.copyOf(data, Math.max(2 * data.length, size + length));
+                buf.get(data, size, length);
+                // times relative to the first sentence (never going backwards)
+                long t = time - firstTime;
+                if (numLines > 0 && t < times[numLines - 1])
+                    t = times[numLines - 1];
+                add(size, length, t);
+                size += length;
+            }
+        }
+    }
+
+    /**
+     * sets the sentence times of a text file from the ZDA/RMC time fixes
+     * the sentences before the first fix get the time of the first fix
+     */
+    private void setTextTimes() {
+        // time of day of each fix (or -1)
+        long day = 0L, lastFix = -1L;
+        int fixes = 0;
+        for (int i = 0; i < numLines; ++i) {
+            long t = timeOfDay(offsets[i], lengths[i]);
+            if (t < 0)
+                continue;
+            t += day;
+            if (lastFix >= 0 && t < lastFix - HALF_DAY) {
+                // after midnight
+                day += DAY;
+                t += DAY;
+            }
+            if (lastFix >= 0 && t < lastFix)
+                t = lastFix;
+            times[i] = t;
+            lastFix = t;
+            ++fixes;
+        }
+        if (fixes < 2) {
+            // no timing information - fixed interval
+            for (int i = 0; i < numLines; ++i)
+                times[i] = i * DEFAULT_LINE_INTERVAL;
+            return;
+        }
+        // spread the sentences evenly between the fixes
+        int prev = -1;
+        for (int i = 0; i < numLines; ++i) {
+            if (times[i] < 0)
+                continue;
+            if (prev < 0) {
+                for (int j = 0; j < i; ++j)
+                    times[j] = times[i];
+            }
+            else {
+                for (int j = prev + 1; j < i; ++j)
+                    times[j] = times[prev] + (times[i] - times[prev]) * (j - prev) / (i - prev);
+            }
+            prev = i;
+        }
+        // after the last fix - the sentences keep the average rate of the file
+        long interval = Math.max(1L, (times[prev] - times[0]) / Math.max(1, prev));
+        for (int j = prev + 1; j < numLines; ++j)
+            times[j] = times[j - 1] + interval;
+        // relative to the first sentence
+        long t0 = times[0];
+        for (int i = 0; i < numLines; ++i)
+            times[i] -= t0;
+    }
+
+    /**
+     * the time of day in a ZDA or RMC sentence (the first field - hhmmss[.ss])
+     * @return      msec since midnight or -1 if not a ZDA/RMC sentence or no valid time
+     */
+    private long timeOfDay(int start, int length) {
+        // $ttZDA,hhmmss or $ttRMC,hhmmss
+        if (length < 13 || data[start] != '$' || data[start + 6] != ',')
+            return -1L;
+        byte f1 = data[start + 3], f2 = data[start + 4], f3 = data[start + 5];
+        if (!(f1 == 'Z' && f2 == 'D' && f3 == 'A') && !(f1 == 'R' && f2 == 'M' && f3 == 'C'))
+            return -1L;
+        int p = start + 7;
+        int[] hms = new int[3];
+        for (int k = 0; k < 3; ++k) {
+            int d1 = data[p++] - '0', d2 = data[p++] - '0';
+            if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9)
+                return -1L;
+            hms[k] = d1 * 10 + d2;
+        }
+        long ms = 0;
+        int end = start + length;
+        if (p < end && data[p] == '.') {
+            // fraction of a second
+            int scale = 100;
+            for (++p; p < end && data[p] >= '0' && data[p] <= '9'; ++p) {
+                ms += (data[p] - '0') * scale;
+                scale /= 10;
+            }
+        }
+        if (hms[0] > 23 || hms[1] > 59 || hms[2] > 60)
+            return -1L;
+        return ((hms[0] * 60L + hms[1]) * 60L + hms[2]) * 1000L + ms;
+    }
+
+    /** allocates the index arrays */
+    private void allocate(int capacity) {
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        times = new long[capacity];
+        numLines = 0;
+    }
+
+    /** adds a sentence to the index */
+    private void add(int offset, int length, long time) {
+        if (numLines == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * numLines);
+            lengths = Arrays.copyOf(lengths, 2 * numLines);
+            times = Arrays.copyOf(times, 2 * numLines);
+        }
+        offsets[numLines] = offset;
+        lengths[numLines] = length;
+        times[numLines] = time;
+        ++numLines;
+    }
+}
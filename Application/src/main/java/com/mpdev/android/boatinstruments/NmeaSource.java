@@ -0,0 +1,48 @@
+package com.mpdev.android.boatinstruments;
+
+/**
+ * NmeaSource interface
+ * A source of NMEA sentences for the read thread (see NmeaGw)
+ * The source delivers complete sentences (CR/LF removed) to a line handler so that the rest of the
+ * processing does not depend on where the data comes from
+ *
+ * The source is selected by AppConfig.NMEA_SOURCE (or DEMO_MODE for the demo file) - see NmeaGw.createSource()
+ * A source is used by one thread only
+ */
+interface NmeaSource {
+
+    // source types (AppConfig.NMEA_SOURCE)
+    String TCP = "tcp";
+    String UDP = "udp";
+    String FILE = "file";
+    String GENERATOR = "generator";
+    String MULTI = "multi";
+
+    /**
+     * opens the source (connects to the gateway, loads the file etc.)
+     * @throws Exception    if the source cannot be opened
+     */
+    void open() throws Exception;
+
+    /**
+     * waits for data for up to timeout msec and passes the complete sentences to the handler
+     * @param timeout   max time to wait (msec)
+     * @param handler   receives the sentences
+     * @return          the number of sentences read (0 if nothing arrived within the timeout)
+     *                  or -1 at the end of the data (connection closed, end of file)
+     * @throws Exception    on read error
+     */
+    int read(long timeout, NmeaLineFramer.LineHandler handler) throws Exception;
+
+    /** closes the source - it can be opened again */
+    void close();
+
+    /** true for live data from a gateway - false for demo / generated data */
+    boolean isLive();
+
+    /** no data for this long (msec) means that the connection is lost and the source is opened again - 0 for none */
+    long dataTimeout();
+
+    /** the source description for the log */
+    String name();
+}
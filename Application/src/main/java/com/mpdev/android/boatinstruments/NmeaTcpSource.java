@@ -0,0 +1,115 @@
+package com.mpdev.android.boatinstruments;
+
+import com.mpdev.android.logger.Log;
+import com.mpdev.android.metrics.Counter;
+import com.mpdev.android.metrics.Metrics;
+
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * NmeaTcpSource class
+ * Reads the NMEA sentences from a gateway over TCP (the app is the client)
+ * Non-blocking socket channel - the data is read in bulk and split into sentences by the line framer
+ */
+class NmeaTcpSource implements NmeaSource {
+
+    private static final String TAG = "NmeaTcpSource";
+
+    // connect timeout (msec)
+    private static final int CONNECT_TIMEOUT = 3000;
+    // read buffer - large enough for a burst from a busy multiplexer
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private static final Counter BYTES_READ = Metrics.counter("net.bytesRead");
+
+    private final String host;
+    private final int port;
+
+    private SocketChannel netChannel = null;
+    private Selector selector = null;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    // splits the data read into sentences
+    private final NmeaLineFramer framer = new NmeaLineFramer(READ_BUFFER_SIZE);
+
+    /** Constructor */
+    NmeaTcpSource(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public void open() throws Exception {
+        try {
+            netChannel = SocketChannel.open();
+            netChannel.configureBlocking(false);
+            netChannel.socket().setKeepAlive(true);
+            Log.i(TAG, "receive buffer size: " + netChannel.socket().getReceiveBufferSize());
+            selector = Selector.open();
+            // connect to server
+            if (!netChannel.connect(new InetSocketAddress(host, port))) {
+                netChannel.register(selector, SelectionKey.OP_CONNECT);
+                if (selector.select(CONNECT_TIMEOUT) == 0)
+                    throw new SocketTimeoutException("connect timed out");
+                netChannel.finishConnect();
+                selector.selectedKeys().clear();
+            }
+            netChannel.register(selector, SelectionKey.OP_READ);
+            framer.reset();
+            Log.i(TAG, "connected to " + name());
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(long timeout, NmeaLineFramer.LineHandler handler) throws Exception {
+        if (selector.select(timeout) == 0)
+            return 0;
+        selector.selectedKeys().clear();
+        // read whatever is available in one go
+        readBuffer.clear();
+        int n = netChannel.read(readBuffer);
+        if (n < 0) {
+            Log.i(TAG, "network read returned nothing");
+            return -1;
+        }
+        BYTES_READ.add(n);
+        readBuffer.flip();
+        return framer.frame(readBuffer, handler);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (selector != null)
+                selector.close();
+            if (netChannel != null)
+                netChannel.close();
+        } catch (Exception e) {
+            Log.e(TAG, "could not close resource: " + e.getMessage());
+        }
+        selector = null;
+        netChannel = null;
+    }
+
+    @Override
+    public boolean isLive() {
+        return true;
+    }
+
+    @Override
+    public long dataTimeout() {
+        return Math.max(AppConfig.NMEA_GW_TIMEOUT, 0);
+    }
+
+    @Override
+    public String name() {
+        return "tcp " + host + ":" + port;
+    }
+}
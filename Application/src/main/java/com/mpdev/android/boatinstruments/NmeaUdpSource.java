@@ -0,0 +1,118 @@
+package com.mpdev.android.boatinstruments;
+
+import com.mpdev.android.logger.Log;
+import com.mpdev.android.metrics.Counter;
+import com.mpdev.android.metrics.Metrics;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * NmeaUdpSource class
+ * Listens for the NMEA sentences broadcast by a gateway over UDP (usually on port 10110)
+ * Each datagram holds one or more complete sentences - the end of the datagram ends the last sentence
+ *
+ * Non-blocking datagram channel - each time the selector wakes up all the datagrams queued in the socket
+ * are received in one batch (up to MAX_BATCH) so a busy multiplexer costs one wake-up per burst
+ * Each datagram is received straight into a reused array and split into sentences in place (no copy)
+ * The socket receive buffer is enlarged so that bursts are not dropped while the app is busy
+ */
+class NmeaUdpSource implements NmeaSource {
+
+    private static final String TAG = "NmeaUdpSource";
+
+    // max datagram size
+    private static final int DATAGRAM_SIZE = 2048;
+    // max number of datagrams received in one read
+    private static final int MAX_BATCH = 64;
+    // requested socket receive buffer size
+    private static final int RECEIVE_BUFFER_SIZE = 256 * 1024;
+
+    private static final Counter BYTES_READ = Metrics.counter("net.bytesRead");
+    private static final Counter DATAGRAMS = Metrics.counter("net.datagrams");
+
+    private final int port;
+
+    private DatagramChannel channel = null;
+    private Selector selector = null;
+    private final byte[] datagram = new byte[DATAGRAM_SIZE];
+    private final ByteBuffer readBuffer = ByteBuffer.wrap(datagram);
+    // splits the datagrams into sentences
+    private final NmeaLineFramer framer = new NmeaLineFramer(DATAGRAM_SIZE);
+
+    /** Constructor */
+    NmeaUdpSource(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void open() throws Exception {
+        try {
+            channel = DatagramChannel.open();
+            channel.socket().setReuseAddress(true);
+            channel.socket().setBroadcast(true);
+            channel.socket().setReceiveBufferSize(RECEIVE_BUFFER_SIZE);
+            channel.configureBlocking(false);
+            channel.socket().bind(new InetSocketAddress(port));
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+            framer.reset();
+            Log.i(TAG, "listening on " + name() + " - receive buffer size: "
+                    + channel.socket().getReceiveBufferSize());
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(long timeout, NmeaLineFramer.LineHandler handler) throws Exception {
+        if (selector.select(timeout) == 0)
+            return 0;
+        selector.selectedKeys().clear();
+        // receive all the datagrams that are queued
+        int lines = 0;
+        for (int i = 0; i < MAX_BATCH; ++i) {
+            readBuffer.clear();
+            if (channel.receive(readBuffer) == null)
+                break;
+            DATAGRAMS.inc();
+            BYTES_READ.add(readBuffer.position());
+            lines += framer.frame(datagram, 0, readBuffer.position(), handler) + framer.flush(handler);
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (selector != null)
+                selector.close();
+            if (channel != null)
+                channel.close();
+        } catch (Exception e) {
+            Log.e(TAG, "could not close resource: " + e.getMessage());
+        }
+        selector = null;
+        channel = null;
+    }
+
+    @Override
+    public boolean isLive() {
+        return true;
+    }
+
+    @Override
+    public long dataTimeout() {
+        // there is no connection to lose - a gap between the broadcasts must not reopen the socket
+        return 0L;
+    }
+
+    @Override
+    public String name() {
+        return "udp port " + port;
+    }
+}
@@ -3,18 +3,22 @@ package com.mpdev.android.boatinstruments;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
+import android.graphics.Typeface;
 import android.os.Bundle;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.widget.FrameLayout;
 import android.widget.RadioGroup;
+import android.widget.ScrollView;
 import android.widget.Switch;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import com.mpdev.android.boat.BoatDataMax;
+import com.mpdev.android.display.DisplayTheme;
 import com.mpdev.android.logger.Log;
+import com.mpdev.android.metrics.Metrics;
 
 /**
  * User interface for the application setup
@@ -91,6 +95,10 @@ public class SetupActivity extends AppCompatActivity {
             @Override
             public void onClick(View v) { buttonResetMax(v); }
         });
+        findViewById(R.id.metrics_button).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) { buttonMetrics(v); }
+        });
         // setup display views
         setupDispViews();
         // update the values on the screen
@@ -127,6 +135,8 @@ public class SetupActivity extends AppCompatActivity {
     public void buttonSave(View v) {
         Log.i(TAG, "onClick - saving config");
         updateDisplay2Config();
+        // the colours may have changed
+        DisplayTheme.load();
         // write config to file
         AppConfig.writeConfig();
         if (AppConfig.DISPLAY_MODE != prevDispMode) {
@@ -163,6 +173,37 @@ public class SetupActivity extends AppCompatActivity {
         onBackPressed();
     }
 
+    /** action when metrics button is clicked - shows the metrics with the option to save them to file */
+    public void buttonMetrics(View v) {
+        Log.i(TAG, "onClick - metrics");
+        TextView report = new TextView(this);
+        report.setText(Metrics.report());
+        report.setTypeface(Typeface.MONOSPACE);
+        report.setTextSize(12);
+        ScrollView scroll = new ScrollView(this);
+        scroll.addView(report);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.metrics)
+                .setView(scroll)
+                .setPositiveButton(R.string.metrics_save, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        String fileName = MainActivity.appFilePath + AppConfig.METRICS_FILE;
+                        String text = Metrics.dump(fileName) ? "Metrics saved to " + AppConfig.METRICS_FILE
+                                : "Could not save metrics";
+                        Toast.makeText(context, text, Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNeutralButton(R.string.metrics_reset, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        Metrics.reset();
+                    }
+                })
+                .setNegativeButton(R.string.metrics_close, null)
+                .show();
+    }
+
     /** sets up the various view objects for the data entry */
     void setupDispViews() {
         gwIpAddress = findViewById(R.id.ip_address);
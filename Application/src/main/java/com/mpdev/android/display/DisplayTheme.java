@@ -0,0 +1,101 @@
+package com.mpdev.android.display;
+
+import android.graphics.Color;
+
+import com.mpdev.android.boatinstruments.AppConfig;
+import com.mpdev.android.logger.Log;
+
+/**
+ * DisplayTheme class
+ * Holds the display colours parsed once from the config strings
+ * and the text sizes calculated once from the display height, so that the pages do no parsing when they render
+ * The colours are kept for both day and night mode - switching mode only selects the other set
+ * load() must be called again whenever the colours in AppConfig change
+ */
+public class DisplayTheme {
+
+    private static final String TAG = "DisplayTheme";
+
+    // colour indexes
+    private static final int INSTR = 0;
+    private static final int INSTR_OUT = 1;
+    private static final int INSTR_MAX = 2;
+    private static final int BGND = 3;
+
+    // the parsed colours (initialised to the AppConfig defaults)
+    private static final int[] dayColours = { 0xFF000000, 0xFF888888, 0xFF0000EE, 0xFFEEEE00 };
+    private static final int[] nightColours = { 0xFFFF4444, 0xFFFF8888, 0xFFEEEE00, 0xFF000000 };
+
+    // text sizes
+    static int textSize1, textSize2, textSize3, textSize4;
+
+    static {
+        load();
+    }
+
+    /**
+     * Constructor - static methods only
+     */
+    private DisplayTheme() { }
+
+    /**
+     * parses the day and night colours from the config
+     * an invalid colour is logged and the previous value is kept
+     */
+    public static void load() {
+        dayColours[INSTR] = parse(AppConfig.INSTR_COLOUR_DAY, dayColours[INSTR]);
+        dayColours[INSTR_OUT] = parse(AppConfig.INSTR_COLOUR_DAY_OUT, dayColours[INSTR_OUT]);
+        dayColours[INSTR_MAX] = parse(AppConfig.INSTR_COLOUR_MAX_DAY, dayColours[INSTR_MAX]);
+        dayColours[BGND] = parse(AppConfig.BGND_COLOUR_DAY, dayColours[BGND]);
+        nightColours[INSTR] = parse(AppConfig.INSTR_COLOUR_NIGHT, nightColours[INSTR]);
+        nightColours[INSTR_OUT] = parse(AppConfig.INSTR_COLOUR_NIGHT_OUT, nightColours[INSTR_OUT]);
+        nightColours[INSTR_MAX] = parse(AppConfig.INSTR_COLOUR_MAX_NIGHT, nightColours[INSTR_MAX]);
+        nightColours[BGND] = parse(AppConfig.BGND_COLOUR_NIGHT, nightColours[BGND]);
+    }
+
+    /**
+     * calculates the text sizes from the display height
+     * @param dispHeight    the display height in pixels
+     */
+    static void setDisplayHeight(int dispHeight) {
+        textSize1 = dispHeight/36;
+        textSize2 = dispHeight/40;
+        textSize3 = dispHeight/50;
+        textSize4 = dispHeight/60;
+    }
+
+    /** instrument digits colour */
+    static int instrColour() {
+        return colours()[INSTR];
+    }
+
+    /** instrument digits colour - out of date */
+    static int instrColourOut() {
+        return colours()[INSTR_OUT];
+    }
+
+    /** instrument digits colour - max values */
+    static int instrColourMax() {
+        return colours()[INSTR_MAX];
+    }
+
+    /** background colour */
+    static int bgndColour() {
+        return colours()[BGND];
+    }
+
+    /** the colours for the current day/night mode */
+    private static int[] colours() {
+        return AppConfig.NIGHT_MODE ? nightColours : dayColours;
+    }
+
+    /** parses a colour string - returns the default colour if not valid */
+    private static int parse(String colour, int defColour) {
+        try {
+            return Color.parseColor(colour);
+        } catch (Exception e) {
+            Log.e(TAG, "invalid colour " + colour + ": " + e.getMessage());
+            return defColour;
+        }
+    }
+}
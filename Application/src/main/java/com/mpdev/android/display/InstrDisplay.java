@@ -118,6 +118,8 @@ public class InstrDisplay {
             dispWidth = displayMetrics.widthPixels;
             Log.i(TAG, "Display dimensions " + dispWidth + " x " + dispHeight);
         }
+        // calculate the text sizes for this display
+        DisplayTheme.setDisplayHeight(dispHeight);
         // inflate the main view as per display mode
         if (AppConfig.DISPLAY_MODE == InstView.SCROLL_VERTICAL)
             mainView = inflater.inflate(R.layout.boat_fields_scrollvert, mainContainer, false);
@@ -251,6 +253,28 @@ public class InstrDisplay {
         }
     }
 
+    /**
+     * incremental update of the displayed page(s) - only the text views of the changed fields are updated
+     * (colours, text sizes and labels are left as they are)
+     * @param boatData      the boat data
+     * @param changed       the changed fields (BoatData.FLD_xxx bits)
+     */
+    public void updatePage(BoatData boatData, int changed) {
+        // if display freeze flag is on, do nothing
+        if (freezeDisplay || changed == 0)
+            return;
+        if (AppConfig.DISPLAY_MODE == InstView.TRANSITION) {
+            // the first time the page has to be displayed in full
+            if (firstTimeDisplayed)
+                thisPage(boatData);
+            else
+                pageList.get(curPage).updateTextValues(boatData, changed);
+        }
+        else
+            for (Page p: pageList)
+                p.updateTextValues(boatData, changed);
+    }
+
     /**
      * display next page - only for Transition display
      */
@@ -298,7 +322,7 @@ public class InstrDisplay {
         }
         // set the colours and text size on this page
         page.setColours();
-        page.setTextSize(dispHeight);
+        page.setTextSize();
         // display the instrument values
         page.setTextValues(boatData);
         // update the day/night button
@@ -361,13 +385,13 @@ public class InstrDisplay {
     public void setDispColAndSizes() {
         if (AppConfig.DISPLAY_MODE == InstView.TRANSITION) {
             pageList.get(curPage).setColours();
-            pageList.get(curPage).setTextSize(dispHeight);
+            pageList.get(curPage).setTextSize();
             pageList.get(curPage).setOutOfDate();
         }
         else
             for (Page p: pageList) {
                 p.setColours();
-                p.setTextSize(dispHeight);
+                p.setTextSize();
                 p.setOutOfDate();
             }
     }
@@ -14,6 +14,13 @@ interface Page {
     /** sets the values of the txt views for this page from boat data */
     void setTextValues(BoatData boatData);
 
+    /**
+     * updates only the text views whose boat data field has changed and restores their normal colour
+     * @param boatData      the boat data
+     * @param changed       the changed fields (BoatData.FLD_xxx bits)
+     */
+    void updateTextValues(BoatData boatData, int changed);
+
     /** sets the values of the text views to max readings from boat data max */
     void setTextValuesMax(BoatDataMax boatDataMax);
 
@@ -26,8 +33,8 @@ interface Page {
     /** changes the colour of out-of-date values */
     void setOutOfDate();
 
-    /** sets the text sizes according to the display height */
-    void setTextSize(int dispHeight);
+    /** sets the text sizes (calculated from the display height - see DisplayTheme) */
+    void setTextSize();
 
     /** sets the scene */
     void setScene(Scene scene);
@@ -2,7 +2,6 @@ package com.mpdev.android.display;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Color;
 import android.graphics.Typeface;
 import android.transition.Scene;
 import android.view.View;
@@ -14,9 +13,12 @@ import com.mpdev.android.boatinstruments.AppConfig;
 import com.mpdev.android.boatinstruments.MainActivity;
 import com.mpdev.android.boatinstruments.R;
 
-import java.util.Date;
+import static com.mpdev.android.boat.BoatData.*;
 
 public class Page1 implements Page {
+    // the boat data fields displayed on this page
+    private static final int PAGE_FIELDS = FLD_BOAT_SPEED | FLD_HEADING | FLD_APP_WIND | FLD_LOG | FLD_TRIP | FLD_GND_WIND;
+
     // data view variables
     // page 1
     private TextView boatSpeed, heading;
@@ -28,7 +30,7 @@ public class Page1 implements Page {
     // data labels for max values
     private TextView boatSpeedLabel, appWindSpeedLabel, gndwindForceLabel;
     // data fields timestamps
-    private Date boatSpeed_t, heading_t, appWind_t, log_t, trip_t, gndWind_t;
+    private long boatSpeed_t, heading_t, appWind_t, log_t, trip_t, gndWind_t;
 
     // the corresponding scene object for Transition display
     private Scene scene;
@@ -66,12 +68,12 @@ public class Page1 implements Page {
         tripLog.setText(boatData.tripString());
         groundWind.setText(boatData.gndWind.toString());
         // timestamps
-        boatSpeed_t = boatData.boatSpeed_t;
-        heading_t = boatData.heading_t;
-        appWind_t = boatData.appWind_t;
-        log_t = boatData.log_t;
-        trip_t = boatData.trip_t;
-        gndWind_t = boatData.gndWind_t;
+        boatSpeed_t = boatData.fieldTime(FLD_BOAT_SPEED);
+        heading_t = boatData.fieldTime(FLD_HEADING);
+        appWind_t = boatData.fieldTime(FLD_APP_WIND);
+        log_t = boatData.fieldTime(FLD_LOG);
+        trip_t = boatData.fieldTime(FLD_TRIP);
+        gndWind_t = boatData.fieldTime(FLD_GND_WIND);
         // labels
         boatSpeedLabel.setText(R.string.boat_speed);
         boatSpeedLabel.setTypeface(null, Typeface.NORMAL);
@@ -81,6 +83,46 @@ public class Page1 implements Page {
         gndwindForceLabel.setTypeface(null, Typeface.NORMAL);
     }
 
+    /** updates the text views of the changed fields on this page */
+    @Override
+    public void updateTextValues(BoatData boatData, int changed) {
+        if ((changed & PAGE_FIELDS) == 0)
+            return;
+        int instrColour = DisplayTheme.instrColour();
+        if ((changed & FLD_BOAT_SPEED) != 0) {
+            boatSpeed.setText(boatData.boatSpeedString());
+            boatSpeed.setTextColor(instrColour);
+            boatSpeed_t = boatData.fieldTime(FLD_BOAT_SPEED);
+        }
+        if ((changed & FLD_HEADING) != 0) {
+            heading.setText(boatData.headingString());
+            heading.setTextColor(instrColour);
+            heading_t = boatData.fieldTime(FLD_HEADING);
+        }
+        if ((changed & FLD_APP_WIND) != 0) {
+            appWindSpeed.setText(boatData.appWind.speedString());
+            appWindSpeed.setTextColor(instrColour);
+            appWindAngle.setText(boatData.appWind.angleString());
+            appWindAngle.setTextColor(instrColour);
+            appWind_t = boatData.fieldTime(FLD_APP_WIND);
+        }
+        if ((changed & FLD_LOG) != 0) {
+            boatLog.setText(boatData.logString());
+            boatLog.setTextColor(instrColour);
+            log_t = boatData.fieldTime(FLD_LOG);
+        }
+        if ((changed & FLD_TRIP) != 0) {
+            tripLog.setText(boatData.tripString());
+            tripLog.setTextColor(instrColour);
+            trip_t = boatData.fieldTime(FLD_TRIP);
+        }
+        if ((changed & FLD_GND_WIND) != 0) {
+            groundWind.setText(boatData.gndWind.toString());
+            groundWind.setTextColor(instrColour);
+            gndWind_t = boatData.fieldTime(FLD_GND_WIND);
+        }
+    }
+
     /** sets the values of the text views to max readings from boat data max */
     @Override
     public void setTextValuesMax(BoatDataMax boatDataMax) {
@@ -102,14 +144,10 @@ public class Page1 implements Page {
         gndwindForceLabel.setText(label);
         gndwindForceLabel.setTypeface(null, Typeface.BOLD_ITALIC);
         // set digit colours
-        String instrColour;
-        if (AppConfig.NIGHT_MODE)
-            instrColour = AppConfig.INSTR_COLOUR_MAX_NIGHT;
-        else
-            instrColour = AppConfig.INSTR_COLOUR_MAX_DAY;
-        boatSpeed.setTextColor(Color.parseColor(instrColour));
-        appWindSpeed.setTextColor(Color.parseColor(instrColour));
-        groundWind.setTextColor(Color.parseColor(instrColour));
+        int instrColour = DisplayTheme.instrColourMax();
+        boatSpeed.setTextColor(instrColour);
+        appWindSpeed.setTextColor(instrColour);
+        groundWind.setTextColor(instrColour);
     }
 
     /** sets the values of the text views to max readings timestamps from boat data max */
@@ -127,59 +165,48 @@ public class Page1 implements Page {
     /** sets the colours for these text views */
     @Override
     public void setColours() {
-        String instrColour, bgndColour;
-        if (AppConfig.NIGHT_MODE) {
-            instrColour = AppConfig.INSTR_COLOUR_NIGHT;
-            bgndColour = AppConfig.BGND_COLOUR_NIGHT;
-        }
-        else {
-            instrColour = AppConfig.INSTR_COLOUR_DAY;
-            bgndColour = AppConfig.BGND_COLOUR_DAY;
-        }
+        int instrColour = DisplayTheme.instrColour();
+        int bgndColour = DisplayTheme.bgndColour();
         // background
-        container.setBackgroundColor(Color.parseColor(bgndColour));
+        container.setBackgroundColor(bgndColour);
         // digits
-        boatSpeed.setTextColor(Color.parseColor(instrColour));
-        heading.setTextColor(Color.parseColor(instrColour));
-        appWindSpeed.setTextColor(Color.parseColor(instrColour));
-        appWindAngle.setTextColor(Color.parseColor(instrColour));
-        boatLog.setTextColor(Color.parseColor(instrColour));
-        tripLog.setTextColor(Color.parseColor(instrColour));
-        groundWind.setTextColor(Color.parseColor(instrColour));
+        boatSpeed.setTextColor(instrColour);
+        heading.setTextColor(instrColour);
+        appWindSpeed.setTextColor(instrColour);
+        appWindAngle.setTextColor(instrColour);
+        boatLog.setTextColor(instrColour);
+        tripLog.setTextColor(instrColour);
+        groundWind.setTextColor(instrColour);
     }
 
     /** changes the colour of out-of-date values */
     @Override
     public void setOutOfDate() {
-        Date now = new Date();
-        String instrColour;
-        if (AppConfig.NIGHT_MODE)
-            instrColour = AppConfig.INSTR_COLOUR_NIGHT_OUT;
-        else
-            instrColour = AppConfig.INSTR_COLOUR_DAY_OUT;
+        long now = BoatData.now();
+        int instrColour = DisplayTheme.instrColourOut();
         // check each value on this page - if not recent then set the colour
-        if (boatSpeed_t.getTime() > 0L && now.getTime() - boatSpeed_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            boatSpeed.setTextColor(Color.parseColor(instrColour));
-        if (heading_t.getTime() > 0L && now.getTime() - heading_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            heading.setTextColor(Color.parseColor(instrColour));
-        if (appWind_t.getTime() > 0L && now.getTime() - appWind_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE) {
-            appWindSpeed.setTextColor(Color.parseColor(instrColour));
-            appWindAngle.setTextColor(Color.parseColor(instrColour));
+        if (isStale(boatSpeed_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            boatSpeed.setTextColor(instrColour);
+        if (isStale(heading_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            heading.setTextColor(instrColour);
+        if (isStale(appWind_t, now, AppConfig.TIMEOUT_OUT_OF_DATE)) {
+            appWindSpeed.setTextColor(instrColour);
+            appWindAngle.setTextColor(instrColour);
         }
-        if (log_t.getTime() > 0L && now.getTime() - log_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            boatLog.setTextColor(Color.parseColor(instrColour));
-        if (trip_t.getTime() > 0L && now.getTime() - trip_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            tripLog.setTextColor(Color.parseColor(instrColour));
-        if (gndWind_t.getTime() > 0L && now.getTime() - gndWind_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            groundWind.setTextColor(Color.parseColor(instrColour));
+        if (isStale(log_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            boatLog.setTextColor(instrColour);
+        if (isStale(trip_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            tripLog.setTextColor(instrColour);
+        if (isStale(gndWind_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            groundWind.setTextColor(instrColour);
     }
 
     /** sets the size of the txt views for this page */
     @Override
-    public void setTextSize(int dispHeight) {
-        textSize1 = dispHeight/36;
-        textSize2 = dispHeight/40;
-        textSize3 = dispHeight/50;
+    public void setTextSize() {
+        textSize1 = DisplayTheme.textSize1;
+        textSize2 = DisplayTheme.textSize2;
+        textSize3 = DisplayTheme.textSize3;
         boatSpeed.setTextSize(textSize1);
         heading.setTextSize(textSize1);
         appWindSpeed.setTextSize(textSize1);
@@ -1,7 +1,6 @@
 package com.mpdev.android.display;
 
 import android.content.Context;
-import android.graphics.Color;
 import android.graphics.Typeface;
 import android.transition.Scene;
 import android.view.View;
@@ -12,9 +11,12 @@ import com.mpdev.android.boat.BoatDataMax;
 import com.mpdev.android.boatinstruments.AppConfig;
 import com.mpdev.android.boatinstruments.R;
 
-import java.util.Date;
+import static com.mpdev.android.boat.BoatData.*;
 
 public class Page2 implements Page {
+    // the boat data fields displayed on this page
+    private static final int PAGE_FIELDS = FLD_DEPTH | FLD_WATER_TEMP | FLD_TRUE_WIND | FLD_POLAR_SPEED | FLD_POLAR_EFF | FLD_GPS_TIME;
+
     // data view variables
     // page 2
     private TextView depth, waterTemp;
@@ -26,7 +28,7 @@ public class Page2 implements Page {
     // data labels for max values
     private TextView waterTempLabel, trueWindSpeedLabel, polarEffLabel;
     // data fields timestamps
-    private Date depth_t, waterTemp_t, trueWind_t, polarSpeed_t,
+    private long depth_t, waterTemp_t, trueWind_t, polarSpeed_t,
                 polarEff_t, gpsTime_t;
 
     // the corresponding scene object for Transition display
@@ -66,18 +68,60 @@ public class Page2 implements Page {
         gpsDateGMT.setText(boatData.gpsDate());
         gpsTimeGMT.setText((boatData.gpsTime()));
         // timestamps
-        depth_t = boatData.depth_t;
-        waterTemp_t = boatData.waterTemp_t;
-        trueWind_t = boatData.trueWind_t;
-        polarSpeed_t = boatData.polarSpeed_t;
-        polarEff_t = boatData.polarEff_t;
-        gpsTime_t = boatData.gpsTime_t;
+        depth_t = boatData.fieldTime(FLD_DEPTH);
+        waterTemp_t = boatData.fieldTime(FLD_WATER_TEMP);
+        trueWind_t = boatData.fieldTime(FLD_TRUE_WIND);
+        polarSpeed_t = boatData.fieldTime(FLD_POLAR_SPEED);
+        polarEff_t = boatData.fieldTime(FLD_POLAR_EFF);
+        gpsTime_t = boatData.fieldTime(FLD_GPS_TIME);
         // labels
         waterTempLabel.setText(R.string.water_temp);
         trueWindSpeedLabel.setText(R.string.true_wind_speed);
         polarEffLabel.setText(R.string.polar_eff);
     }
 
+    /** updates the text views of the changed fields on this page */
+    @Override
+    public void updateTextValues(BoatData boatData, int changed) {
+        if ((changed & PAGE_FIELDS) == 0)
+            return;
+        int instrColour = DisplayTheme.instrColour();
+        if ((changed & FLD_DEPTH) != 0) {
+            depth.setText(boatData.depthString());
+            depth.setTextColor(instrColour);
+            depth_t = boatData.fieldTime(FLD_DEPTH);
+        }
+        if ((changed & FLD_WATER_TEMP) != 0) {
+            waterTemp.setText(boatData.waterTempString());
+            waterTemp.setTextColor(instrColour);
+            waterTemp_t = boatData.fieldTime(FLD_WATER_TEMP);
+        }
+        if ((changed & FLD_TRUE_WIND) != 0) {
+            trueWindSpeed.setText(boatData.trueWind.speedString());
+            trueWindSpeed.setTextColor(instrColour);
+            trueWindAngle.setText(boatData.trueWind.angleString());
+            trueWindAngle.setTextColor(instrColour);
+            trueWind_t = boatData.fieldTime(FLD_TRUE_WIND);
+        }
+        if ((changed & FLD_POLAR_SPEED) != 0) {
+            polarSpeed.setText(boatData.polarSpeedString());
+            polarSpeed.setTextColor(instrColour);
+            polarSpeed_t = boatData.fieldTime(FLD_POLAR_SPEED);
+        }
+        if ((changed & FLD_POLAR_EFF) != 0) {
+            polarEff.setText(boatData.polarEffString());
+            polarEff.setTextColor(instrColour);
+            polarEff_t = boatData.fieldTime(FLD_POLAR_EFF);
+        }
+        if ((changed & FLD_GPS_TIME) != 0) {
+            gpsDateGMT.setText(boatData.gpsDate());
+            gpsDateGMT.setTextColor(instrColour);
+            gpsTimeGMT.setText(boatData.gpsTime());
+            gpsTimeGMT.setTextColor(instrColour);
+            gpsTime_t = boatData.fieldTime(FLD_GPS_TIME);
+        }
+    }
+
     /** sets the values of the text views to max readings from boat data max */
     @Override
     public void setTextValuesMax(BoatDataMax boatDataMax) {
@@ -99,14 +143,10 @@ public class Page2 implements Page {
         polarEffLabel.setText(label);
         polarEffLabel.setTypeface(null, Typeface.BOLD_ITALIC);
         // set digit colours
-        String instrColour;
-        if (AppConfig.NIGHT_MODE)
-            instrColour = AppConfig.INSTR_COLOUR_MAX_NIGHT;
-        else
-            instrColour = AppConfig.INSTR_COLOUR_MAX_DAY;
-        waterTemp.setTextColor(Color.parseColor(instrColour));
-        trueWindSpeed.setTextColor(Color.parseColor(instrColour));
-        polarEff.setTextColor(Color.parseColor(instrColour));
+        int instrColour = DisplayTheme.instrColourMax();
+        waterTemp.setTextColor(instrColour);
+        trueWindSpeed.setTextColor(instrColour);
+        polarEff.setTextColor(instrColour);
     }
 
     /** sets the values of the text views to max readings timestamps from boat data max */
@@ -124,62 +164,51 @@ public class Page2 implements Page {
     /** sets the colours for these text views */
     @Override
     public void setColours() {
-        String instrColour, bgndColour;
-        if (AppConfig.NIGHT_MODE) {
-            instrColour = AppConfig.INSTR_COLOUR_NIGHT;
-            bgndColour = AppConfig.BGND_COLOUR_NIGHT;
-        }
-        else {
-            instrColour = AppConfig.INSTR_COLOUR_DAY;
-            bgndColour = AppConfig.BGND_COLOUR_DAY;
-        }
+        int instrColour = DisplayTheme.instrColour();
+        int bgndColour = DisplayTheme.bgndColour();
         // background
-        container.setBackgroundColor(Color.parseColor(bgndColour));
+        container.setBackgroundColor(bgndColour);
         // digits
-        depth.setTextColor(Color.parseColor(instrColour));
-        waterTemp.setTextColor(Color.parseColor(instrColour));
-        trueWindSpeed.setTextColor(Color.parseColor(instrColour));
-        trueWindAngle.setTextColor(Color.parseColor(instrColour));
-        polarSpeed.setTextColor(Color.parseColor(instrColour));
-        polarEff.setTextColor(Color.parseColor(instrColour));
-        gpsDateGMT.setTextColor(Color.parseColor(instrColour));
-        gpsTimeGMT.setTextColor(Color.parseColor(instrColour));
+        depth.setTextColor(instrColour);
+        waterTemp.setTextColor(instrColour);
+        trueWindSpeed.setTextColor(instrColour);
+        trueWindAngle.setTextColor(instrColour);
+        polarSpeed.setTextColor(instrColour);
+        polarEff.setTextColor(instrColour);
+        gpsDateGMT.setTextColor(instrColour);
+        gpsTimeGMT.setTextColor(instrColour);
     }
 
     /** changes the colour of out-of-date values */
     @Override
     public void setOutOfDate() {
-        Date now = new Date();
-        String instrColour;
-        if (AppConfig.NIGHT_MODE)
-            instrColour = AppConfig.INSTR_COLOUR_NIGHT_OUT;
-        else
-            instrColour = AppConfig.INSTR_COLOUR_DAY_OUT;
+        long now = BoatData.now();
+        int instrColour = DisplayTheme.instrColourOut();
         // check each value on this page - if not recent then set the colour
-        if (depth_t.getTime() > 0L &&  now.getTime() - depth_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            depth.setTextColor(Color.parseColor(instrColour));
-        if (waterTemp_t.getTime() > 0L &&  now.getTime() - waterTemp_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            waterTemp.setTextColor(Color.parseColor(instrColour));
-        if (trueWind_t.getTime() > 0L &&  now.getTime() - trueWind_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE) {
-            trueWindSpeed.setTextColor(Color.parseColor(instrColour));
-            trueWindAngle.setTextColor(Color.parseColor(instrColour));
+        if (isStale(depth_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            depth.setTextColor(instrColour);
+        if (isStale(waterTemp_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            waterTemp.setTextColor(instrColour);
+        if (isStale(trueWind_t, now, AppConfig.TIMEOUT_OUT_OF_DATE)) {
+            trueWindSpeed.setTextColor(instrColour);
+            trueWindAngle.setTextColor(instrColour);
         }
-        if (polarSpeed_t.getTime() > 0L &&  now.getTime() - polarSpeed_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            polarSpeed.setTextColor(Color.parseColor(instrColour));
-        if (polarEff_t.getTime() > 0L &&  now.getTime() - polarEff_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            polarEff.setTextColor(Color.parseColor(instrColour));
-        if (gpsTime_t.getTime() > 0L &&  now.getTime() - gpsTime_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE) {
-            gpsTimeGMT.setTextColor(Color.parseColor(instrColour));
-            gpsDateGMT.setTextColor(Color.parseColor(instrColour));
+        if (isStale(polarSpeed_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            polarSpeed.setTextColor(instrColour);
+        if (isStale(polarEff_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            polarEff.setTextColor(instrColour);
+        if (isStale(gpsTime_t, now, AppConfig.TIMEOUT_OUT_OF_DATE)) {
+            gpsTimeGMT.setTextColor(instrColour);
+            gpsDateGMT.setTextColor(instrColour);
         }
     }
 
     /** sets the size of the txt views for this page */
     @Override
-    public void setTextSize(int dispHeight) {
-        textSize1 = dispHeight/36;
-        textSize2 = dispHeight/40;
-        textSize3 = dispHeight/50;
+    public void setTextSize() {
+        textSize1 = DisplayTheme.textSize1;
+        textSize2 = DisplayTheme.textSize2;
+        textSize3 = DisplayTheme.textSize3;
         depth.setTextSize(textSize1);
         waterTemp.setTextSize(textSize1);
         trueWindSpeed.setTextSize(textSize1);
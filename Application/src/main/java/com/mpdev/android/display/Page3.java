@@ -1,7 +1,6 @@
 package com.mpdev.android.display;
 
 import android.content.Context;
-import android.graphics.Color;
 import android.graphics.Typeface;
 import android.transition.Scene;
 import android.view.View;
@@ -12,9 +11,12 @@ import com.mpdev.android.boat.BoatDataMax;
 import com.mpdev.android.boatinstruments.AppConfig;
 import com.mpdev.android.boatinstruments.R;
 
-import java.util.Date;
+import static com.mpdev.android.boat.BoatData.*;
 
 public class Page3 implements Page {
+    // the boat data fields displayed on this page
+    private static final int PAGE_FIELDS = FLD_SOG | FLD_COG | FLD_POSITION | FLD_NEXT_WP | FLD_XTE;
+
     // data view variables
     // page 3
     private TextView sog, cog;
@@ -28,7 +30,7 @@ public class Page3 implements Page {
     private TextView sogLabel;
 
     // data fields timestamps
-    Date sog_t, cog_t, position_t, nextWp_t, xTrackError_t;
+    long sog_t, cog_t, position_t, nextWp_t, xTrackError_t;
 
     // the corresponding scene object for Transition display
     private Scene scene;
@@ -69,16 +71,59 @@ public class Page3 implements Page {
         nextWpLong.setText(boatData.nextWaypoint.wpCoord.toString("long"));
         xTrackError.setText(boatData.xteString());
         // timestamps
-        sog_t = boatData.sog_t;
-        cog_t = boatData.cog_t;
-        position_t = boatData.position_t;
-        nextWp_t = boatData.nextWaypoint_t;
-        xTrackError_t = boatData.xte_t;
+        sog_t = boatData.fieldTime(FLD_SOG);
+        cog_t = boatData.fieldTime(FLD_COG);
+        position_t = boatData.fieldTime(FLD_POSITION);
+        nextWp_t = boatData.fieldTime(FLD_NEXT_WP);
+        xTrackError_t = boatData.fieldTime(FLD_XTE);
         // labels
         sogLabel.setText(R.string.sog);
         sogLabel.setTypeface(null, Typeface.NORMAL);
     }
 
+    /** updates the text views of the changed fields on this page */
+    @Override
+    public void updateTextValues(BoatData boatData, int changed) {
+        if ((changed & PAGE_FIELDS) == 0)
+            return;
+        int instrColour = DisplayTheme.instrColour();
+        if ((changed & FLD_SOG) != 0) {
+            sog.setText(boatData.sogString());
+            sog.setTextColor(instrColour);
+            sog_t = boatData.fieldTime(FLD_SOG);
+        }
+        if ((changed & FLD_COG) != 0) {
+            cog.setText(boatData.cogString());
+            cog.setTextColor(instrColour);
+            cog_t = boatData.fieldTime(FLD_COG);
+        }
+        if ((changed & FLD_POSITION) != 0) {
+            posLat.setText(boatData.position.toString("lat"));
+            posLat.setTextColor(instrColour);
+            posLong.setText(boatData.position.toString("long"));
+            posLong.setTextColor(instrColour);
+            position_t = boatData.fieldTime(FLD_POSITION);
+        }
+        if ((changed & FLD_NEXT_WP) != 0) {
+            nextWpName.setText(boatData.nextWaypoint.name.substring(0,Math.min(boatData.nextWaypoint.name.length(),6)));
+            nextWpName.setTextColor(instrColour);
+            nextWpDist.setText(boatData.nextWaypoint.distString());
+            nextWpDist.setTextColor(instrColour);
+            nextWpBrng.setText(boatData.nextWaypoint.bearingString());
+            nextWpBrng.setTextColor(instrColour);
+            nextWpLat.setText(boatData.nextWaypoint.wpCoord.toString("lat"));
+            nextWpLat.setTextColor(instrColour);
+            nextWpLong.setText(boatData.nextWaypoint.wpCoord.toString("long"));
+            nextWpLong.setTextColor(instrColour);
+            nextWp_t = boatData.fieldTime(FLD_NEXT_WP);
+        }
+        if ((changed & FLD_XTE) != 0) {
+            xTrackError.setText(boatData.xteString());
+            xTrackError.setTextColor(instrColour);
+            xTrackError_t = boatData.fieldTime(FLD_XTE);
+        }
+    }
+
     /** sets the values of the text views to max readings from boat data max */
     @Override
     public void setTextValuesMax(BoatDataMax boatDataMax) {
@@ -91,12 +136,8 @@ public class Page3 implements Page {
         sogLabel.setText(label);
         sogLabel.setTypeface(null, Typeface.BOLD_ITALIC);
         // set digit colours
-        String instrColour;
-        if (AppConfig.NIGHT_MODE)
-            instrColour = AppConfig.INSTR_COLOUR_MAX_NIGHT;
-        else
-            instrColour = AppConfig.INSTR_COLOUR_MAX_DAY;
-        sog.setTextColor(Color.parseColor(instrColour));
+        int instrColour = DisplayTheme.instrColourMax();
+        sog.setTextColor(instrColour);
     }
 
     /** sets the values of the text views to max readings timestamps from boat data max */
@@ -110,66 +151,55 @@ public class Page3 implements Page {
     /** sets the colours for these text views */
     @Override
     public void setColours() {
-        String instrColour, bgndColour;
-        if (AppConfig.NIGHT_MODE) {
-            instrColour = AppConfig.INSTR_COLOUR_NIGHT;
-            bgndColour = AppConfig.BGND_COLOUR_NIGHT;
-        }
-        else {
-            instrColour = AppConfig.INSTR_COLOUR_DAY;
-            bgndColour = AppConfig.BGND_COLOUR_DAY;
-        }
+        int instrColour = DisplayTheme.instrColour();
+        int bgndColour = DisplayTheme.bgndColour();
         // background
-        container.setBackgroundColor(Color.parseColor(bgndColour));
+        container.setBackgroundColor(bgndColour);
         // digits
-        sog.setTextColor(Color.parseColor(instrColour));
-        cog.setTextColor(Color.parseColor(instrColour));
-        posLat.setTextColor(Color.parseColor(instrColour));
-        posLong.setTextColor(Color.parseColor(instrColour));
-        nextWpName.setTextColor(Color.parseColor(instrColour));
-        nextWpDist.setTextColor(Color.parseColor(instrColour));
-        nextWpBrng.setTextColor(Color.parseColor(instrColour));
-        nextWpLat.setTextColor(Color.parseColor(instrColour));
-        nextWpLong.setTextColor(Color.parseColor(instrColour));
-        xTrackError.setTextColor(Color.parseColor(instrColour));
+        sog.setTextColor(instrColour);
+        cog.setTextColor(instrColour);
+        posLat.setTextColor(instrColour);
+        posLong.setTextColor(instrColour);
+        nextWpName.setTextColor(instrColour);
+        nextWpDist.setTextColor(instrColour);
+        nextWpBrng.setTextColor(instrColour);
+        nextWpLat.setTextColor(instrColour);
+        nextWpLong.setTextColor(instrColour);
+        xTrackError.setTextColor(instrColour);
     }
 
     /** changes the colour of out-of-date values */
     @Override
     public void setOutOfDate() {
-        Date now = new Date();
-        String instrColour;
-        if (AppConfig.NIGHT_MODE)
-            instrColour = AppConfig.INSTR_COLOUR_NIGHT_OUT;
-        else
-            instrColour = AppConfig.INSTR_COLOUR_DAY_OUT;
+        long now = BoatData.now();
+        int instrColour = DisplayTheme.instrColourOut();
         // check each value on this page - if not recent then set the colour
-        if (sog_t.getTime() > 0L &&  now.getTime() - sog_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            sog.setTextColor(Color.parseColor(instrColour));
-        if (cog_t.getTime() > 0L &&  now.getTime() - cog_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            cog.setTextColor(Color.parseColor(instrColour));
-        if (position_t.getTime() > 0L &&  now.getTime() - position_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE) {
-            posLat.setTextColor(Color.parseColor(instrColour));
-            posLong.setTextColor(Color.parseColor(instrColour));
+        if (isStale(sog_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            sog.setTextColor(instrColour);
+        if (isStale(cog_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            cog.setTextColor(instrColour);
+        if (isStale(position_t, now, AppConfig.TIMEOUT_OUT_OF_DATE)) {
+            posLat.setTextColor(instrColour);
+            posLong.setTextColor(instrColour);
         }
-        if (nextWp_t.getTime() > 0L &&  now.getTime() - nextWp_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE) {
-            nextWpName.setTextColor(Color.parseColor(instrColour));
-            nextWpBrng.setTextColor(Color.parseColor(instrColour));
-            nextWpDist.setTextColor(Color.parseColor(instrColour));
-            nextWpLat.setTextColor(Color.parseColor(instrColour));
-            nextWpLong.setTextColor(Color.parseColor(instrColour));
+        if (isStale(nextWp_t, now, AppConfig.TIMEOUT_OUT_OF_DATE)) {
+            nextWpName.setTextColor(instrColour);
+            nextWpBrng.setTextColor(instrColour);
+            nextWpDist.setTextColor(instrColour);
+            nextWpLat.setTextColor(instrColour);
+            nextWpLong.setTextColor(instrColour);
         }
-        if (xTrackError_t.getTime() > 0L &&  now.getTime() - xTrackError_t.getTime() > AppConfig.TIMEOUT_OUT_OF_DATE)
-            xTrackError.setTextColor(Color.parseColor(instrColour));
+        if (isStale(xTrackError_t, now, AppConfig.TIMEOUT_OUT_OF_DATE))
+            xTrackError.setTextColor(instrColour);
     }
 
     /** sets the size of the txt views for this page */
     @Override
-    public void setTextSize(int dispHeight) {
-        textSize1 = dispHeight/36;
-        textSize2 = dispHeight/40;
-        textSize3 = dispHeight/50;
-        textSize4 = dispHeight/60;
+    public void setTextSize() {
+        textSize1 = DisplayTheme.textSize1;
+        textSize2 = DisplayTheme.textSize2;
+        textSize3 = DisplayTheme.textSize3;
+        textSize4 = DisplayTheme.textSize4;
         sog.setTextSize(textSize2);
         cog.setTextSize(textSize2);
         posLat.setTextSize(textSize3);
@@ -1,149 +1,92 @@
 package com.mpdev.android.logger;
 
-import android.annotation.SuppressLint;
-
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.List;
-
 /**
  * wrapper class around android.util.Log
- * keeps a list of the log entries for displaying within the app
+ * keeps the most recent log entries (see LogStore) for displaying within the app
  * and calls the standard android.utilLog methods
  */
 public class Log {
 
-    /** class that holds the local copy of the log entry */
-    static class LogEntry {
-        Date timeStamp;
-        int severity;
-        String sevStr;
-        String tag;
-        String message;
-        /** Constructor */
-        LogEntry(int severity, Date timeStamp, String sevStr, String tag, String message) {
-            this.timeStamp = timeStamp;
-            this.severity = severity;
-            this.sevStr = sevStr;
-            this.tag = tag;
-            this.message = message;
-        }
-    }
+    // default number of log entries kept until the configured capacity is set
+    static final int DEFAULT_CAPACITY = 4096;
 
-    /** the log snapshot for this application run */
-    static List<LogEntry> appLog = new ArrayList<>();
+    /** the log snapshot for this application run (bounded - the oldest entries are overwritten) */
+    static volatile LogStore appLog = new LogStore(DEFAULT_CAPACITY);
 
     static final String TIME_FORMAT = "HH:mm:ss.SSS";
 
-    /** keep a copy of the log entry in our list */
-    private static void keepLog(int severity, Date timestamp, String sevStr, String tag, String message) {
-        appLog.add(new LogEntry(severity, timestamp, sevStr, tag, message));
+    /**
+     * sets the number of log entries kept in memory
+     * the most recent entries are moved to the new store
+     * @param capacity      the number of entries (rounded up to a power of 2)
+     */
+    public static synchronized void setCapacity(int capacity) {
+        LogStore oldLog = appLog;
+        LogStore newLog = new LogStore(capacity);
+        if (newLog.capacity() == oldLog.capacity())
+            return;
+        newLog.copyFrom(oldLog);
+        appLog = newLog;
     }
 
-    /** return the selected log entries as one string (new-line separated) */
+    /** keep a copy of the log entry in our store */
+    private static void keepLog(int severity, String tag, String message) {
+        appLog.add(System.currentTimeMillis(), severity, tag, message);
+    }
+
+    /**
+     * return the selected log entries as one string (new-line separated)
+     * @param params    the selection criteria (see LogQuery)
+     */
     public static String log2String(String[] params) {
-        // check parameters
-        int severity = 0;
-        String includeTag = ".*", excludeTag = "";
-        Date fromTime = new Date(0L);
-        boolean reverseOrder = false;
-        if (params != null) {
-            if (params.length > 0)
-                try { severity = Integer.parseInt(params[0]); } catch (Exception ignored){}
-            if (params.length > 1)
-                includeTag = params[1];
-            if (params.length > 2)
-                excludeTag = params[2];
-            if (params.length > 3) {
-                String time = params[3];
-                if (time.matches("[0-9]{2}:[0-9]{2}:[0-9]{2}")) {
-                    try {
-                        int hours = Integer.parseInt(time.substring(0,2));
-                        int minutes = Integer.parseInt(time.substring(3,5));
-                        int seconds = Integer.parseInt(time.substring(6,8));
-                        // Timestamp From
-                        Calendar calFrom = Calendar.getInstance();
-                        calFrom.setTime(new Date());
-                        calFrom.set(Calendar.HOUR_OF_DAY, hours);
-                        calFrom.set(Calendar.MINUTE, minutes);
-                        calFrom.set(Calendar.SECOND, seconds);
-                        calFrom.set(Calendar.MILLISECOND, 0);
-                        fromTime = calFrom.getTime();
-                    } catch (Exception ignored) {}
-                }
-            }
-            if (params.length > 4)
-                reverseOrder = "yes".equals(params[4]);
-        }
+        LogQuery query = new LogQuery(params);
         // select the entries that match the parameters to return
         // this message is also included in the log extract !!
-        String criteria = "sev="+severity + " incl=["+includeTag + "] excl=["+excludeTag +
-                "] time>="+fromTime.toString() + " reverse="+reverseOrder;
+        String criteria = query.criteria();
         Log.i("Log", "logreader parameters: " + criteria);
-        StringBuilder sb = new StringBuilder();
-        @SuppressLint("SimpleDateFormat") SimpleDateFormat dF = new SimpleDateFormat(TIME_FORMAT);
-        int start = 0, end = appLog.size(), incr = 1;
-        if (reverseOrder) {
-            start = appLog.size()-1;
-            end = -1;
-            incr = -1;
-        }
-        // process all log entries from the list
-        int linesCount = 0;
-        for (int i = start; (start<end)&&(i<end) || (start>end)&&(i>end); i += incr) {
-            LogEntry l = appLog.get(i);
-            if (l.severity >= severity
-            // &&  l.tag.matches(includeTag)
-            // && !l.tag.matches(excludeTag)
-            &&  l.message.matches(includeTag)
-            && !l.message.matches(excludeTag)
-            &&  l.timeStamp.getTime() >= fromTime.getTime()) {
-                ++linesCount;
-                String time = dF.format(l.timeStamp);
-                l.message = l.message.replace("\n", "\n    ");
-                sb.append(time).append(" ");
-                sb.append(l.sevStr).append("/").append(l.tag).append(" ");
-                sb.append(l.message).append("\n");
+        final StringBuilder sb = new StringBuilder();
+        int linesCount = query.run(Integer.MAX_VALUE, new LogQuery.PageHandler() {
+            @Override
+            public void onPage(String page) {
+                sb.append(page);
             }
-        }
+        });
         return linesCount + " lines matching the criteria\n" + criteria + "\n" + sb.toString();
     }
 
     /** verbose */
     public static void v(String tag, String message) {
-        keepLog(android.util.Log.VERBOSE, new Date(), "V", tag, message);
+        keepLog(android.util.Log.VERBOSE, tag, message);
         android.util.Log.v(tag, message);
     }
 
     /** debug */
     public static void d(String tag, String message) {
-        keepLog(android.util.Log.DEBUG, new Date(), "D", tag, message);
+        keepLog(android.util.Log.DEBUG, tag, message);
         android.util.Log.d(tag, message);
     }
 
     /** info */
     public static void i(String tag, String message) {
-        keepLog(android.util.Log.INFO, new Date(), "I", tag, message);
+        keepLog(android.util.Log.INFO, tag, message);
         android.util.Log.i(tag, message);
     }
 
     /** warning */
     public static void w(String tag, String message) {
-        keepLog(android.util.Log.WARN, new Date(), "W", tag, message);
+        keepLog(android.util.Log.WARN, tag, message);
         android.util.Log.w(tag, message);
     }
 
     /** error */
     public static void e(String tag, String message) {
-        keepLog(android.util.Log.ERROR, new Date(), "E", tag, message);
+        keepLog(android.util.Log.ERROR, tag, message);
         android.util.Log.e(tag, message);
     }
 
     /** assert */
     public static void a(String tag, String message) {
-        keepLog(android.util.Log.ASSERT, new Date(), "A", tag, message);
+        keepLog(android.util.Log.ASSERT, tag, message);
         android.util.Log.println(android.util.Log.ASSERT, tag, message);
     }
 
@@ -0,0 +1,240 @@
+package com.mpdev.android.logger;
+
+import android.annotation.SuppressLint;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * LogQuery class
+ * Selects log entries from the log store by severity, message pattern and time
+ *
+ * The include/exclude patterns are compiled once per query
+ * The store is indexed in blocks of entries (severities present, latest timestamp) so that
+ * the blocks that cannot match the severity or time criteria are skipped without reading their entries
+ * The index is kept between queries and only the blocks written since the last query are indexed
+ * The selected lines are passed to the caller in pages
+ */
+public class LogQuery {
+
+    /** receives the selected log lines one page at a time */
+    public interface PageHandler {
+        /**
+         * called for each page of selected lines
+         * @param page      the lines (new-line terminated)
+         */
+        void onPage(String page);
+    }
+
+    private static final String TAG = "LogQuery";
+
+    // query criteria
+    private int severity = 0;
+    private String includeText = ".*", excludeText = "";
+    private final Matcher include, exclude;
+    private long fromTime = 0L;
+    private boolean reverseOrder = false;
+
+    ////////// block index (shared by all queries - guarded by LogQuery.class)
+    static final int BLOCK_BITS = 6;
+    static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    // the store that is indexed
+    private static LogStore indexedStore = null;
+    // per block slot: the block number indexed in the slot (-1 if none), severities present (one bit each), latest time
+    private static long[] blockNumber;
+    private static int[] blockSeverities;
+    private static long[] blockMaxTime;
+
+    /**
+     * Constructor
+     * @param params    [0] min severity, [1] include pattern, [2] exclude pattern,
+     *                  [3] from time (HH:mm:ss today), [4] "yes" for reverse order - all optional
+     */
+    public LogQuery(String[] params) {
+        if (params != null) {
+            if (params.length > 0)
+                try { severity = Integer.parseInt(params[0]); } catch (Exception ignored){}
+            if (params.length > 1)
+                includeText = params[1];
+            if (params.length > 2)
+                excludeText = params[2];
+            if (params.length > 3)
+                fromTime = parseTime(params[3]);
+            if (params.length > 4)
+                reverseOrder = "yes".equals(params[4]);
+        }
+        include = compile(includeText).matcher("");
+        exclude = compile(excludeText).matcher("");
+    }
+
+    /** the query criteria as text */
+    public String criteria() {
+        return "sev="+severity + " incl=["+includeText + "] excl=["+excludeText +
+                "] time>="+new Date(fromTime).toString() + " reverse="+reverseOrder;
+    }
+
+    /**
+     * runs the query
+     * @param pageLines     max number of lines passed to the handler in each call
+     * @param handler       receives the selected lines
+     * @return              the number of lines selected
+     */
+    public int run(int pageLines, PageHandler handler) {
+        LogStore log = Log.appLog;
+        @SuppressLint("SimpleDateFormat") SimpleDateFormat dF = new SimpleDateFormat(Log.TIME_FORMAT);
+        Date time = new Date(0L);
+        StringBuilder sb = new StringBuilder();
+        LogStore.Record l = new LogStore.Record();
+        int linesCount = 0, pageCount = 0;
+
+        // blocks that cannot match are skipped as a whole
+        long first = log.first(), end = log.end();
+        if (end <= first)
+            return 0;
+        long firstBlock = first >>> BLOCK_BITS, lastBlock = (end - 1) >>> BLOCK_BITS;
+        boolean[] skip = selectBlocks(log, firstBlock, lastBlock);
+        long b = reverseOrder ? lastBlock : firstBlock;
+        for (int n = 0; n < skip.length; ++n, b += reverseOrder ? -1 : 1) {
+            if (skip[n])
+                continue;
+            long blockStart = Math.max(b << BLOCK_BITS, first);
+            long blockEnd = Math.min((b + 1) << BLOCK_BITS, end);
+            long i = reverseOrder ? blockEnd - 1 : blockStart;
+            for (; i >= blockStart && i < blockEnd; i += reverseOrder ? -1 : 1) {
+                if (!log.read(i, l) || !matches(l))
+                    continue;
+                ++linesCount;
+                time.setTime(l.time);
+                sb.append(dF.format(time)).append(" ");
+                sb.append(LogStore.severityChar(l.severity)).append("/").append(l.tag).append(" ");
+                appendMessage(sb, l.message).append("\n");
+                if (++pageCount >= pageLines) {
+                    handler.onPage(sb.toString());
+                    sb.setLength(0);
+                    pageCount = 0;
+                }
+            }
+        }
+        if (pageCount > 0)
+            handler.onPage(sb.toString());
+        return linesCount;
+    }
+
+    /** checks an entry against the criteria */
+    private boolean matches(LogStore.Record l) {
+        return l.severity >= severity
+            &&  l.time >= fromTime
+            &&  include.reset(l.message).matches()
+            && !exclude.reset(l.message).matches();
+    }
+
+    /**
+     * brings the block index up to date and finds the blocks that cannot match the severity and time
+     * @return      one flag per block in the order they will be scanned - true to skip the block
+     */
+    private boolean[] selectBlocks(LogStore log, long firstBlock, long lastBlock) {
+        int numBlocks = (int) Math.max(0L, lastBlock - firstBlock + 1);
+        boolean[] skip = new boolean[numBlocks];
+        synchronized (LogQuery.class) {
+            updateIndex(log, firstBlock, lastBlock);
+            for (int n = 0; n < numBlocks; ++n) {
+                long b = reverseOrder ? lastBlock - n : firstBlock + n;
+                int slot = slot(b);
+                if (blockNumber[slot] != b)
+                    continue;
+                skip[n] = (blockSeverities[slot] >>> severity) == 0 || blockMaxTime[slot] < fromTime;
+            }
+        }
+        return skip;
+    }
+
+    /** indexes the complete blocks of the store that are not indexed yet */
+    private static void updateIndex(LogStore log, long firstBlock, long lastBlock) {
+        if (indexedStore != log) {
+            // new store (e.g. after a capacity change) - start again
+            int slots = (log.capacity() >> BLOCK_BITS) + 2;
+            blockNumber = new long[slots];
+            blockSeverities = new int[slots];
+            blockMaxTime = new long[slots];
+            for (int i = 0; i < slots; ++i)
+                blockNumber[i] = -1L;
+            indexedStore = log;
+        }
+        LogStore.Record l = new LogStore.Record();
+        for (long b = firstBlock; b <= lastBlock; ++b) {
+            int slot = slot(b);
+            if (blockNumber[slot] == b)
+                continue;
+            // only blocks that are complete and still fully in the store are indexed
+            long blockStart = b << BLOCK_BITS;
+            if (blockStart < log.first() || blockStart + BLOCK_SIZE > log.end())
+                continue;
+            int severities = 0;
+            long maxTime = Long.MIN_VALUE;
+            boolean complete = true;
+            for (long i = blockStart; i < blockStart + BLOCK_SIZE; ++i) {
+                if (!log.read(i, l)) {
+                    complete = false;
+                    break;
+                }
+                severities |= 1 << l.severity;
+                maxTime = Math.max(maxTime, l.time);
+            }
+            if (!complete)
+                continue;
+            blockNumber[slot] = b;
+            blockSeverities[slot] = severities;
+            blockMaxTime[slot] = maxTime;
+        }
+    }
+
+    /** the index slot of a block */
+    private static int slot(long block) {
+        return (int) (block % blockNumber.length);
+    }
+
+    /** appends the message with the continuation lines indented */
+    private static StringBuilder appendMessage(StringBuilder sb, String message) {
+        int start = 0, nl;
+        while ((nl = message.indexOf('\n', start)) >= 0) {
+            sb.append(message, start, nl + 1).append("    ");
+            start = nl + 1;
+        }
+        return sb.append(message, start, message.length());
+    }
+
+    /** compiles a pattern - an invalid pattern is matched as plain text */
+    private static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            Log.w(TAG, "invalid pattern " + regex + ": " + e.getDescription());
+            return Pattern.compile(regex, Pattern.LITERAL);
+        }
+    }
+
+    /** from time HH:mm:ss (today) as epoch millis - 0 if not valid */
+    private static long parseTime(String time) {
+        if (time == null || !time.matches("[0-9]{2}:[0-9]{2}:[0-9]{2}"))
+            return 0L;
+        try {
+            int hours = Integer.parseInt(time.substring(0,2));
+            int minutes = Integer.parseInt(time.substring(3,5));
+            int seconds = Integer.parseInt(time.substring(6,8));
+            // Timestamp From
+            Calendar calFrom = Calendar.getInstance();
+            calFrom.setTime(new Date());
+            calFrom.set(Calendar.HOUR_OF_DAY, hours);
+            calFrom.set(Calendar.MINUTE, minutes);
+            calFrom.set(Calendar.SECOND, seconds);
+            calFrom.set(Calendar.MILLISECOND, 0);
+            return calFrom.getTimeInMillis();
+        } catch (Exception ignored) {
+            return 0L;
+        }
+    }
+}
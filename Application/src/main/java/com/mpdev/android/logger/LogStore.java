@@ -0,0 +1,128 @@
+package com.mpdev.android.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * LogStore class
+ * Fixed capacity ring buffer that keeps the log entries of this application run
+ * When the buffer is full the oldest entries are overwritten
+ *
+ * Each slot holds an immutable entry (the message string is allocated for every log line anyway)
+ * Writers do not lock: each one reserves the next sequence number and publishes its entry in the slot
+ * Readers take the entry from the slot and skip it if it has a different sequence number (overwritten)
+ */
+class LogStore {
+
+    /** one log entry as read from the store - reused by the reader */
+    static class Record {
+        long seq;
+        long time;
+        int severity;
+        String tag;
+        String message;
+    }
+
+    /** one log entry in the store - not changed after it is published */
+    private static final class Entry {
+        final long seq;
+        final long time;
+        final int severity;
+        final String tag;
+        final String message;
+
+        Entry(long seq, long time, int severity, String tag, String message) {
+            this.seq = seq;
+            this.time = time;
+            this.severity = severity;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+
+    private static final int SEVERITY_MASK = 7;
+    // severity letters indexed by the android.util.Log severity (VERBOSE = 2 ... ASSERT = 7)
+    private static final char[] SEV_CHAR = { '?', '?', 'V', 'D', 'I', 'W', 'E', 'A' };
+
+    // the entries (null while empty)
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> entries;
+    // next sequence number to be written
+    private final AtomicLong nextSeq = new AtomicLong(0L);
+
+    /**
+     * Constructor
+     * @param capacity      min number of entries kept (rounded up to a power of 2)
+     */
+    LogStore(int capacity) {
+        int c = 16;
+        while (c < capacity && c < (1 << 30))
+            c <<= 1;
+        this.capacity = c;
+        mask = c - 1;
+        entries = new AtomicReferenceArray<>(c);
+    }
+
+    /** the number of entries the store can hold */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * adds an entry - overwrites the oldest entry if the store is full
+     * @param time          the timestamp (epoch millis)
+     * @param severity      the severity (android.util.Log constant)
+     * @param tag           the tag
+     * @param message       the message
+     */
+    void add(long time, int severity, String tag, String message) {
+        long seq = nextSeq.getAndIncrement();
+        entries.set((int) seq & mask, new Entry(seq, time, severity & SEVERITY_MASK, (tag == null) ? "" : tag, message));
+    }
+
+    /** the sequence number of the oldest entry still in the store */
+    long first() {
+        return Math.max(0L, nextSeq.get() - capacity);
+    }
+
+    /** the sequence number after the newest entry */
+    long end() {
+        return nextSeq.get();
+    }
+
+    /**
+     * reads one entry
+     * @param seq       the sequence number of the entry
+     * @param r         the record to fill in
+     * @return          false if the entry is not in the store (overwritten or not written yet)
+     */
+    boolean read(long seq, Record r) {
+        Entry e = entries.get((int) seq & mask);
+        if (e == null || e.seq != seq)
+            return false;
+        r.seq = seq;
+        r.time = e.time;
+        r.severity = e.severity;
+        r.tag = e.tag;
+        r.message = e.message;
+        return true;
+    }
+
+    /**
+     * copies the entries of another store (oldest first)
+     * the newest entries are kept if this store is smaller
+     * @param src       the store to copy from
+     */
+    void copyFrom(LogStore src) {
+        Record r = new Record();
+        for (long seq = Math.max(src.first(), src.end() - capacity); seq < src.end(); ++seq)
+            if (src.read(seq, r))
+                add(r.time, r.severity, r.tag, r.message);
+    }
+
+    /** the letter for a severity (V, D, I, W, E, A) */
+    static char severityChar(int severity) {
+        return SEV_CHAR[severity & SEVERITY_MASK];
+    }
+}
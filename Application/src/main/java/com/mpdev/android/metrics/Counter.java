@@ -0,0 +1,43 @@
+package com.mpdev.android.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter class
+ * A count that can be incremented from any thread without locking (see Metrics)
+ */
+public class Counter {
+
+    private final String name;
+    private final AtomicLong count = new AtomicLong(0L);
+
+    /** Constructor - use Metrics.counter() */
+    Counter(String name) {
+        this.name = name;
+    }
+
+    /** the counter name */
+    public String getName() {
+        return name;
+    }
+
+    /** adds 1 */
+    public void inc() {
+        count.incrementAndGet();
+    }
+
+    /** adds n */
+    public void add(long n) {
+        count.addAndGet(n);
+    }
+
+    /** the current count */
+    public long get() {
+        return count.get();
+    }
+
+    /** sets the count back to 0 */
+    void reset() {
+        count.set(0L);
+    }
+}
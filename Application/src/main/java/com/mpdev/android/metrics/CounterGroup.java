@@ -0,0 +1,94 @@
+package com.mpdev.android.metrics;
+
+/**
+ * CounterGroup class
+ * A set of counters with the same name prefix keyed by an int (e.g. one counter per NMEA formatter)
+ * The lookup by key does not lock or allocate - a new key is added under a lock (copy on write)
+ */
+public class CounterGroup {
+
+    private final String prefix;
+
+    // keys and counters (open addressing) - replaced as a whole when a key is added
+    private static class Table {
+        final int[] keys;
+        final Counter[] counters;
+        Table(int size) {
+            keys = new int[size];
+            counters = new Counter[size];
+        }
+    }
+    private volatile Table table = new Table(0);
+
+    /** Constructor - use Metrics.counterGroup() */
+    CounterGroup(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * the counter of a key
+     * @param key       the key
+     * @return          the counter or null if the key has not been added yet
+     */
+    public Counter get(int key) {
+        Table t = table;
+        Counter[] c = t.counters;
+        int[] k = t.keys;
+        if (c.length == 0)
+            return null;
+        int mask = c.length - 1;
+        for (int i = hash(key) & mask; c[i] != null; i = (i + 1) & mask)
+            if (k[i] == key)
+                return c[i];
+        return null;
+    }
+
+    /**
+     * adds the counter of a key (also registered in Metrics as prefix + "." + suffix)
+     * @param key       the key
+     * @param suffix    the counter name after the prefix
+     * @return          the counter (the existing one if the key was added already)
+     */
+    public synchronized Counter add(int key, String suffix) {
+        Counter counter = get(key);
+        if (counter != null)
+            return counter;
+        counter = Metrics.counter(prefix + "." + suffix);
+        // rebuild the table with room to spare (at most half full)
+        Table old = table;
+        int size = 16;
+        while (size < 2 * (count(old) + 1))
+            size <<= 1;
+        Table t = new Table(size);
+        for (int i = 0; i < old.counters.length; ++i)
+            if (old.counters[i] != null)
+                insert(t, old.keys[i], old.counters[i]);
+        insert(t, key, counter);
+        table = t;
+        return counter;
+    }
+
+    /** the number of keys in a table */
+    private static int count(Table t) {
+        int n = 0;
+        for (Counter c : t.counters)
+            if (c != null)
+                ++n;
+        return n;
+    }
+
+    /** adds a counter to a table */
+    private static void insert(Table t, int key, Counter counter) {
+        int mask = t.counters.length - 1;
+        int i = hash(key) & mask;
+        while (t.counters[i] != null)
+            i = (i + 1) & mask;
+        t.keys[i] = key;
+        t.counters[i] = counter;
+    }
+
+    /** spreads the bits of a key */
+    private static int hash(int key) {
+        return key * 0x9E3779B9 >>> 8;
+    }
+}
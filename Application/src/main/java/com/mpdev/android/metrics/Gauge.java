@@ -0,0 +1,32 @@
+package com.mpdev.android.metrics;
+
+/**
+ * Gauge class
+ * A value that is read when the metrics are reported (e.g. a state or a level) - see Metrics.gauge()
+ * The owner subclasses it to return the current value - get() may be called from any thread
+ */
+public abstract class Gauge {
+
+    private final String name;
+
+    /**
+     * Constructor
+     * @param name      the gauge name (e.g. "net.health")
+     */
+    public Gauge(String name) {
+        this.name = name;
+    }
+
+    /** the gauge name */
+    public String getName() {
+        return name;
+    }
+
+    /** the current value */
+    public abstract long get();
+
+    /** the current value as shown in the report (override for values that are not plain numbers) */
+    public String format() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,130 @@
+package com.mpdev.android.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram class
+ * Distribution of non-negative values (e.g. latencies in microseconds) in log-linear buckets
+ * as in HdrHistogram: each power of 2 is split into SUB_BUCKETS linear buckets, so every
+ * recorded value is kept with a relative error of less than 1 / SUB_BUCKETS (about 6%)
+ *
+ * Recording is one array increment - no locking and no allocation - and can be done from any thread
+ * The percentiles are calculated when the histogram is read
+ */
+public class Histogram {
+
+    // linear buckets per power of 2
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values up to 2^MAX_BITS are kept in their own bucket - larger values go to the last one
+    private static final int MAX_BITS = 40;
+    private static final int NUM_BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final String unit;
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong count = new AtomicLong(0L);
+    private final AtomicLong total = new AtomicLong(0L);
+    private final AtomicLong max = new AtomicLong(0L);
+
+    /** Constructor - use Metrics.histogram() */
+    Histogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    /** the histogram name */
+    public String getName() {
+        return name;
+    }
+
+    /** the unit of the values */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * records one value
+     * @param value     the value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value))
+            ;
+    }
+
+    /** the number of values recorded */
+    public long getCount() {
+        return count.get();
+    }
+
+    /** the largest value recorded */
+    public long getMax() {
+        return max.get();
+    }
+
+    /** the mean of the values recorded */
+    public double getMean() {
+        long n = count.get();
+        return (n == 0) ? 0.0 : (double) total.get() / n;
+    }
+
+    /**
+     * the value below which a percentage of the recorded values are
+     * @param percentile    the percentage (0 - 100)
+     * @return              the value (the top of its bucket, not more than the max) - 0 if nothing recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = 0;
+        long[] counts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; ++i)
+            n += (counts[i] = buckets.get(i));
+        if (n == 0)
+            return 0L;
+        long target = Math.max(1L, (long) Math.ceil(n * Math.min(percentile, 100.0) / 100.0));
+        long sum = 0;
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            sum += counts[i];
+            if (sum >= target)
+                return Math.min(bucketTop(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** clears the recorded values */
+    void reset() {
+        for (int i = 0; i < NUM_BUCKETS; ++i)
+            buckets.set(i, 0L);
+        count.set(0L);
+        total.set(0L);
+        max.set(0L);
+    }
+
+    /** the bucket of a value */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        if (exp >= MAX_BITS)
+            return NUM_BUCKETS - 1;
+        // the top SUB_BUCKET_BITS bits below the leading 1 select the linear bucket
+        int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** the largest value in a bucket */
+    static long bucketTop(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exp - SUB_BUCKET_BITS);
+        return (1L << exp) + (sub + 1) * width - 1;
+    }
+}
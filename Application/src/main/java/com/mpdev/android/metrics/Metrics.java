@@ -0,0 +1,137 @@
+package com.mpdev.android.metrics;
+
+import com.mpdev.android.logger.Log;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Metrics class
+ * Registry of the application counters, histograms and gauges
+ *
+ * The metrics are created once (usually in static fields of the classes that update them)
+ * and are then updated without locking from any thread
+ * The gauges are registered by their owners and read only when the metrics are reported
+ * The registry lists them by name for the setup screen and can write them to a file
+ */
+public class Metrics {
+
+    private static final String TAG = "Metrics";
+
+    // the metrics by name (guarded by Metrics.class)
+    private static final Map<String, Counter> counters = new TreeMap<>();
+    private static final Map<String, Histogram> histograms = new TreeMap<>();
+    private static final Map<String, Gauge> gauges = new TreeMap<>();
+    // when the metrics were last reset
+    private static long startTime = System.currentTimeMillis();
+
+    private Metrics() { }
+
+    /**
+     * the counter with a name - created if it does not exist
+     * @param name      the counter name (e.g. "nmea.received")
+     * @return          the counter
+     */
+    public static synchronized Counter counter(String name) {
+        Counter c = counters.get(name);
+        if (c == null) {
+            c = new Counter(name);
+            counters.put(name, c);
+        }
+        return c;
+    }
+
+    /**
+     * the histogram with a name - created if it does not exist
+     * @param name      the histogram name (e.g. "latency.parse")
+     * @param unit      the unit of the values (e.g. "usec")
+     * @return          the histogram
+     */
+    public static synchronized Histogram histogram(String name, String unit) {
+        Histogram h = histograms.get(name);
+        if (h == null) {
+            h = new Histogram(name, unit);
+            histograms.put(name, h);
+        }
+        return h;
+    }
+
+    /**
+     * registers a gauge (replaces a gauge with the same name)
+     * @param gauge     the gauge
+     * @return          the gauge
+     */
+    public static synchronized Gauge gauge(Gauge gauge) {
+        gauges.put(gauge.getName(), gauge);
+        return gauge;
+    }
+
+    /**
+     * a new group of counters keyed by an int
+     * @param prefix    the name prefix of the counters in the group
+     * @return          the group
+     */
+    public static CounterGroup counterGroup(String prefix) {
+        return new CounterGroup(prefix);
+    }
+
+    /** sets all the counters and histograms back to 0 (the gauges show current values) */
+    public static synchronized void reset() {
+        for (Counter c : counters.values())
+            c.reset();
+        for (Histogram h : histograms.values())
+            h.reset();
+        startTime = System.currentTimeMillis();
+    }
+
+    /** all the metrics as text (one per line) */
+    public static String report() {
+        ArrayList<Counter> cList;
+        ArrayList<Histogram> hList;
+        ArrayList<Gauge> gList;
+        long start;
+        synchronized (Metrics.class) {
+            cList = new ArrayList<>(counters.values());
+            hList = new ArrayList<>(histograms.values());
+            gList = new ArrayList<>(gauges.values());
+            start = startTime;
+        }
+        long seconds = Math.max(1L, (System.currentTimeMillis() - start) / 1000L);
+        StringBuilder sb = new StringBuilder();
+        sb.append("since ").append(new Date(start)).append(" (").append(seconds).append(" sec)\n");
+        for (Gauge g : gList)
+            sb.append(g.getName()).append(": ").append(g.format()).append("\n");
+        for (Counter c : cList)
+            sb.append(String.format(Locale.US, "%s: %d (%.1f/sec)\n", c.getName(), c.get(), (double) c.get() / seconds));
+        for (Histogram h : hList) {
+            if (h.getCount() == 0) {
+                sb.append(h.getName()).append(": -\n");
+                continue;
+            }
+            sb.append(String.format(Locale.US, "%s (%s): n=%d mean=%.1f p50=%d p90=%d p99=%d max=%d\n",
+                    h.getName(), h.getUnit(), h.getCount(), h.getMean(),
+                    h.getPercentile(50.0), h.getPercentile(90.0), h.getPercentile(99.0), h.getMax()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * writes the metrics report to a file
+     * @param fileName  the file (replaced)
+     * @return          true if written
+     */
+    public static boolean dump(String fileName) {
+        try (PrintWriter out = new PrintWriter(fileName)) {
+            out.print(report());
+            Log.i(TAG, "metrics written to " + fileName);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "could not write metrics to " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
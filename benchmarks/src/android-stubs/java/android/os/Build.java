@@ -0,0 +1,11 @@
+package android.os;
+
+/**
+ * Stand-in for the Android Build class - only the constants used in the annotations of the app code
+ */
+public class Build {
+
+    public static class VERSION_CODES {
+        public static final int O = 26;
+    }
+}
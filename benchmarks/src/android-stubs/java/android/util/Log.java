@@ -0,0 +1,27 @@
+package android.util;
+
+/**
+ * Stand-in for the Android Log class
+ * Warnings and errors go to stderr - everything else is dropped so that it does not distort the measurements
+ */
+public class Log {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    public static int v(String tag, String msg) { return 0; }
+    public static int d(String tag, String msg) { return 0; }
+    public static int i(String tag, String msg) { return 0; }
+    public static int w(String tag, String msg) { return println(WARN, tag, msg); }
+    public static int e(String tag, String msg) { return println(ERROR, tag, msg); }
+
+    public static int println(int priority, String tag, String msg) {
+        if (priority >= WARN)
+            System.err.println(tag + ": " + msg);
+        return 0;
+    }
+}
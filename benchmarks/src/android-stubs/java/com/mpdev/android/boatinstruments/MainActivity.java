@@ -0,0 +1,9 @@
+package com.mpdev.android.boatinstruments;
+
+/**
+ * Stand-in for the app activity - only the application file path used by AppConfig and BoatDataMax
+ */
+public class MainActivity {
+
+    public static String appFilePath = "";
+}
@@ -0,0 +1,108 @@
+package com.mpdev.android.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corpus class
+ * The NMEA sentences of the demo file used as benchmark input
+ * held both as strings and in one byte buffer (as the sources deliver them)
+ */
+public class Corpus {
+
+    public static final String DEMO_FILE = "boatInstrumentsDemo.txt";
+    public static final String POLAR_FILE = "zephyrPolar.json";
+
+    public final String[] lines;
+    public final byte[] buffer;
+    public final int[] offset;
+    public final int[] length;
+
+    private Corpus(List<String> sentences) {
+        lines = sentences.toArray(new String[0]);
+        offset = new int[lines.length];
+        length = new int[lines.length];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines.length; ++i) {
+            offset[i] = sb.length();
+            length[i] = lines[i].length();
+            sb.append(lines[i]).append("\r\n");
+        }
+        buffer = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /** the number of sentences */
+    public int size() {
+        return lines.length;
+    }
+
+    /** the '$' sentences of the demo file */
+    public static Corpus demo() throws IOException {
+        return load(find(DEMO_FILE));
+    }
+
+    /**
+     * loads the '$' sentences of a file (AIS and other '!' sentences and broken lines are skipped)
+     * @param file      the NMEA text file
+     * @return          the corpus
+     */
+    public static Corpus load(File file) throws IOException {
+        List<String> sentences = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1)) {
+            line = line.trim();
+            if (line.startsWith("$") && line.length() > 6 && line.charAt(line.length() - 3) == '*')
+                sentences.add(line);
+        }
+        if (sentences.isEmpty())
+            throw new IOException("no NMEA sentences in " + file);
+        return new Corpus(sentences);
+    }
+
+    /** the sentences with a formatter (e.g. "RMC") */
+    public String[] withFormatter(String formatter) {
+        List<String> list = new ArrayList<>();
+        for (String line : lines)
+            if (line.regionMatches(3, formatter, 0, 3))
+                list.add(line);
+        return list.toArray(new String[0]);
+    }
+
+    /**
+     * adds the checksum to a sentence
+     * @param sentence  the sentence without the '*hh'
+     * @return          the complete sentence
+     */
+    public static String withChecksum(String sentence) {
+        int sum = 0;
+        for (int i = 1; i < sentence.length(); ++i)
+            sum ^= sentence.charAt(i);
+        return String.format("%s*%02X", sentence, sum & 0xff);
+    }
+
+    /**
+     * finds a file of the project (the benchmarks run from the benchmarks directory or the project root)
+     * the system property corpus.dir overrides the search
+     * @param fileName  the file name
+     * @return          the file
+     */
+    public static File find(String fileName) throws FileNotFoundException {
+        String dir = System.getProperty("corpus.dir");
+        if (dir != null) {
+            File file = new File(dir, fileName);
+            if (file.isFile())
+                return file;
+            throw new FileNotFoundException(file.toString());
+        }
+        for (File d = new File("").getAbsoluteFile(); d != null; d = d.getParentFile()) {
+            File file = new File(d, fileName);
+            if (file.isFile())
+                return file;
+        }
+        throw new FileNotFoundException(fileName + " (set -Dcorpus.dir)");
+    }
+}
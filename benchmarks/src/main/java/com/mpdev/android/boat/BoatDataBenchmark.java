@@ -0,0 +1,84 @@
+package com.mpdev.android.boat;
+
+import com.mpdev.android.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BoatData update from parsed messages - one run per supported formatter
+ * The sentences come from the demo file - the formatters that are not in it use a sample sentence
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoatDataBenchmark {
+
+    @Param({"HDG", "VHW", "MWV", "MWD", "MTW", "DPT", "VLW", "GLL", "RMC", "BWC", "ZDA", "VTG", "GNS", "XTE"})
+    public String formatter;
+
+    // sentences for the formatters that are missing from the demo file (or only come from another talker)
+    private static final String[] SAMPLES = {
+            "$WIMWD,270.0,T,272.1,M,12.5,N,6.4,M",
+            "$GPVTG,0.73,T,,M,0.16,N,0.29,K,A",
+            "$GPGNS,134107,3609.3621,N,00521.4806,W,A,10,1,43.5,47.3,,,V",
+            "$GPXTE,A,A,0.12,L,N,A"
+    };
+
+    private NmeaMessage[] messages;
+    private BoatData boatData;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        BoatPolar.loadPolarTable(Corpus.find(Corpus.POLAR_FILE).getPath());
+        String[] lines = Corpus.demo().withFormatter(formatter);
+        messages = parse(lines);
+        if (messages.length == 0)
+            for (String sample : SAMPLES)
+                if (sample.regionMatches(3, formatter, 0, 3))
+                    messages = parse(new String[] {Corpus.withChecksum(sample)});
+        if (messages.length == 0)
+            throw new IllegalStateException("no valid " + formatter + " sentence");
+        boatData = new BoatData();
+        next = 0;
+    }
+
+    /** the messages that parse ok and update the boat data */
+    private static NmeaMessage[] parse(String[] lines) {
+        int n = 0;
+        NmeaMessage[] msgs = new NmeaMessage[lines.length];
+        BoatData check = new BoatData();
+        for (String line : lines) {
+            NmeaMessage msg = new NmeaMessage();
+            msg.set(line);
+            if (check.updateBoatData(msg))
+                msgs[n++] = msg;
+        }
+        NmeaMessage[] result = new NmeaMessage[n];
+        System.arraycopy(msgs, 0, result, 0, n);
+        return result;
+    }
+
+    @Benchmark
+    public boolean updateBoatData() {
+        NmeaMessage msg = messages[next];
+        if (++next == messages.length)
+            next = 0;
+        return boatData.updateBoatData(msg);
+    }
+}
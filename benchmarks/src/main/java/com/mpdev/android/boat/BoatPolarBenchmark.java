@@ -0,0 +1,62 @@
+package com.mpdev.android.boat;
+
+import com.mpdev.android.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polar speed lookup for true winds spread over the polar table
+ * (dense grid lookup compared to the interpolation in the polar table it is built from)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoatPolarBenchmark {
+
+    private static final int NUM_WINDS = 1024;
+
+    private BoatWind.WindData[] winds;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        BoatPolar.loadPolarTable(Corpus.find(Corpus.POLAR_FILE).getPath());
+        if (!BoatPolar.polarLoaded)
+            throw new IllegalStateException("polar not loaded");
+        Random random = new Random(42);
+        winds = new BoatWind.WindData[NUM_WINDS];
+        for (int i = 0; i < NUM_WINDS; ++i)
+            winds[i] = new BoatWind.WindData(2.0 + 30.0 * random.nextDouble(), 30.0 + 150.0 * random.nextDouble(),
+                    random.nextBoolean() ? "P" : "S");
+        next = 0;
+    }
+
+    @Benchmark
+    public double getPolarSpeed() {
+        BoatWind.WindData wind = winds[next];
+        next = (next + 1) & (NUM_WINDS - 1);
+        return BoatPolar.getPolarSpeed(wind);
+    }
+
+    @Benchmark
+    public double getTableSpeed() {
+        BoatWind.WindData wind = winds[next];
+        next = (next + 1) & (NUM_WINDS - 1);
+        return BoatPolar.getTableSpeed(wind.angle, wind.speed);
+    }
+}
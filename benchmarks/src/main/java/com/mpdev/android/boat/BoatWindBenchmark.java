@@ -0,0 +1,56 @@
+package com.mpdev.android.boat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * True wind calculation for apparent winds and boat speeds on all points of sail
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoatWindBenchmark {
+
+    private static final int NUM_WINDS = 1024;
+
+    private double[] boatSpeeds;
+    private BoatWind.WindData[] appWinds;
+    private BoatWind.WindData trueWind;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        boatSpeeds = new double[NUM_WINDS];
+        appWinds = new BoatWind.WindData[NUM_WINDS];
+        for (int i = 0; i < NUM_WINDS; ++i) {
+            boatSpeeds[i] = 8.0 * random.nextDouble();
+            appWinds[i] = new BoatWind.WindData(2.0 + 30.0 * random.nextDouble(), 180.0 * random.nextDouble(),
+                    random.nextBoolean() ? "P" : "S");
+        }
+        trueWind = new BoatWind.WindData("B");
+        next = 0;
+    }
+
+    @Benchmark
+    public double calcTrueWind() {
+        int i = next;
+        next = (next + 1) & (NUM_WINDS - 1);
+        BoatWind.calcTrueWind(boatSpeeds[i], appWinds[i], trueWind);
+        return trueWind.angle;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mpdev.android.boat;
+
+import com.mpdev.android.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the demo file sentences - one sentence per operation, cycling through the file
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NmeaMessageBenchmark {
+
+    private Corpus corpus;
+    private NmeaMessage msg;
+    private BoatData boatData;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        corpus = Corpus.demo();
+        msg = new NmeaMessage();
+        BoatPolar.loadPolarTable(Corpus.find(Corpus.POLAR_FILE).getPath());
+        boatData = new BoatData();
+        next = 0;
+    }
+
+    /** the index of the next sentence */
+    private int nextLine() {
+        int i = next;
+        if (++next == corpus.size())
+            next = 0;
+        return i;
+    }
+
+    @Benchmark
+    public NmeaMessage setString() {
+        msg.set(corpus.lines[nextLine()]);
+        return msg;
+    }
+
+    @Benchmark
+    public NmeaMessage setBytes() {
+        int i = nextLine();
+        msg.set(corpus.buffer, corpus.offset[i], corpus.length[i], true);
+        return msg;
+    }
+
+    @Benchmark
+    public int checkSumString() {
+        return msg.checkSum(corpus.lines[nextLine()]);
+    }
+
+    @Benchmark
+    public int checkSumBytes() {
+        int i = nextLine();
+        return NmeaMessage.checkSum(corpus.buffer, corpus.offset[i], corpus.offset[i] + corpus.length[i]);
+    }
+
+    /** the full hot path of the reader thread: parse from the receive buffer and update the boat data */
+    @Benchmark
+    public boolean parseAndUpdate() {
+        int i = nextLine();
+        msg.set(corpus.buffer, corpus.offset[i], corpus.length[i], true);
+        return boatData.updateBoatData(msg);
+    }
+}